@@ -0,0 +1,54 @@
+package actors;
+
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+
+import java.util.concurrent.Executor;
+
+/**
+ * ActorDispatchers: The dispatchers configured under {@code tubelytics.dispatchers} in application.conf.
+ * CPU-bound text analysis, actors waiting on the YouTube API and the actors behind the WebSockets
+ * each get threads of their own, so a burst of scoring cannot hold up the pushes to the browsers
+ * or Play's request handling on the default dispatcher.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class ActorDispatchers {
+
+    /** Readability, sentiment and word frequency computations */
+    public static final String ANALYTICS = "tubelytics.dispatchers.analytics";
+
+    /** Actors that mostly wait on the YouTube API: channel profiles, word statistics requests, live polls */
+    public static final String IO = "tubelytics.dispatchers.io";
+
+    /** The UserActors behind the WebSockets and the QueryHub pushing to them */
+    public static final String WEBSOCKET = "tubelytics.dispatchers.websocket";
+
+    private ActorDispatchers() {
+    }
+
+    /**
+     * Pins Props to a dispatcher. An ActorSystem without the dispatcher configured, such as one
+     * started without application.conf, keeps the actor on its default dispatcher.
+     *
+     * @param system The ActorSystem the actor is started in
+     * @param props The Props of the actor
+     * @param dispatcher The ID of the dispatcher
+     * @return The Props running on the dispatcher
+     */
+    public static Props pinned(ActorSystem system, Props props, String dispatcher) {
+        return system.dispatchers().hasDispatcher(dispatcher) ? props.withDispatcher(dispatcher) : props;
+    }
+
+    /**
+     * Looks up a dispatcher to run asynchronous stages on, falling back to the default dispatcher
+     * like {@link #pinned(ActorSystem, Props, String)}.
+     *
+     * @param system The ActorSystem holding the dispatcher
+     * @param dispatcher The ID of the dispatcher
+     * @return The dispatcher as an Executor
+     */
+    public static Executor executor(ActorSystem system, String dispatcher) {
+        return system.dispatchers().hasDispatcher(dispatcher) ? system.dispatchers().lookup(dispatcher) : system.dispatcher();
+    }
+}
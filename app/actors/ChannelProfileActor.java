@@ -3,11 +3,10 @@ package actors;
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.Props;
-import com.fasterxml.jackson.databind.JsonNode;
+import akka.routing.ConsistentHashingRouter;
+import models.ChannelProfile;
 import models.YouTubeService;
 
-import java.util.concurrent.CompletionStage;
-
 /**
  * Actor responsible for managing channel profile details and videos from YouTube API.
  *
@@ -56,25 +55,17 @@ public class ChannelProfileActor extends AbstractActor {
         String channelId = message.channelId;
         ActorRef originalSender = message.originalSender;
 
-        CompletionStage<JsonNode> channelDetailsStage = youTubeService.fetchChannelDetails(channelId);
-        CompletionStage<JsonNode> videosStage = youTubeService.fetchChannelVideos(channelId, 10);
-
-        channelDetailsStage.thenCombine(videosStage, (channelDetails, videos) -> {
-                    if (channelDetails == null || videos == null) {
-                        return new ChannelProfileResponse(channelId, null, null, originalSender);
-                    }
-                    return new ChannelProfileResponse(channelId, channelDetails, videos, originalSender);
-                }).thenAccept(response -> originalSender.tell(response, getSelf()))
-                .exceptionally(ex -> {
-                    originalSender.tell(new ChannelProfileResponse(channelId, null, null, originalSender), getSelf());
-                    return null;
-                });
+        youTubeService.fetchChannelProfile(channelId, 10)
+                .thenApply(profile -> new ChannelProfileResponse(channelId, profile, originalSender))
+                .exceptionally(ex -> new ChannelProfileResponse(channelId, null, originalSender))
+                .thenAccept(response -> originalSender.tell(response, getSelf()));
     }
 
     /**
      * Message class to request fetching channel profile and videos.
+     * In a consistent-hashing pool, the requests for one channel go to the same actor.
      */
-    public static class FetchChannelProfile {
+    public static class FetchChannelProfile implements ConsistentHashingRouter.ConsistentHashable {
         public final String channelId;
         public final ActorRef originalSender;
 
@@ -88,29 +79,31 @@ public class ChannelProfileActor extends AbstractActor {
             this.channelId = channelId;
             this.originalSender = originalSender;
         }
+
+        @Override
+        public Object consistentHashKey() {
+            return channelId;
+        }
     }
 
     /**
-     * Response class containing channel details and video list.
+     * Response class containing the channel profile and its videos.
      */
     public static class ChannelProfileResponse {
         public final String channelId;
-        public final JsonNode profile; // Channel details
-        public final JsonNode videos; // Video list
+        public final ChannelProfile profile; // Channel details and videos, null if they could not be fetched
         public final ActorRef originalSender;
 
         /**
          * Constructor for ChannelProfileResponse.
          *
          * @param channelId      The ID of the YouTube channel
-         * @param profile        The details of the channel
-         * @param videos         The list of videos from the channel
+         * @param profile        The profile of the channel with its videos, or null if it could not be fetched
          * @param originalSender The original sender of the request
          */
-        public ChannelProfileResponse(String channelId, JsonNode profile, JsonNode videos, ActorRef originalSender) {
+        public ChannelProfileResponse(String channelId, ChannelProfile profile, ActorRef originalSender) {
             this.channelId = channelId;
             this.profile = profile;
-            this.videos = videos;
             this.originalSender = originalSender;
         }
     }
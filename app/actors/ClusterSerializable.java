@@ -0,0 +1,11 @@
+package actors;
+
+/**
+ * ClusterSerializable: Marks the messages that travel between the nodes of a cluster. They are
+ * bound to Akka's Jackson serializer in application.conf, so their fields and creators must be
+ * readable by Jackson.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public interface ClusterSerializable {
+}
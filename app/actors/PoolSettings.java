@@ -0,0 +1,92 @@
+package actors;
+
+import akka.actor.Props;
+import akka.actor.SupervisorStrategy;
+import akka.routing.ConsistentHashingPool;
+import akka.routing.ConsistentHashingRouter;
+import akka.routing.SmallestMailboxPool;
+import com.typesafe.config.Config;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * PoolSettings: How the work of one kind of stateless actor is spread over a router pool.
+ * Consistent hashing sends the messages of one key (a channel ID, a query) to the same routee,
+ * so its work stays together; smallest-mailbox sends every message to the least busy routee,
+ * for the highest throughput.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class PoolSettings {
+
+    /** Sizes a pool to the number of cores when configured as its size */
+    public static final int CORES = 0;
+
+    /**
+     * How a pool picks the routee of a message.
+     */
+    public enum Routing {
+        CONSISTENT_HASHING,
+        SMALLEST_MAILBOX
+    }
+
+    private final Routing routing;
+    private final int size;
+
+    /**
+     * @param routing How the pool picks the routee of a message
+     * @param size The number of routees, or {@link #CORES} for one per core
+     */
+    public PoolSettings(Routing routing, int size) {
+        this.routing = routing;
+        this.size = size == CORES ? Runtime.getRuntime().availableProcessors() : size;
+    }
+
+    /**
+     * Reads the settings of every pool from a section holding one {@code routing} and {@code size} per pool.
+     *
+     * @param config The {@code tubelytics.actors.pools} section of application.conf
+     * @return The settings by pool name
+     */
+    public static Map<String, PoolSettings> fromConfig(Config config) {
+        Map<String, PoolSettings> pools = new HashMap<>();
+        for (String name : config.root().keySet()) {
+            Config pool = config.getConfig(name);
+            Routing routing = Routing.valueOf(pool.getString("routing").toUpperCase(Locale.ROOT).replace('-', '_'));
+            pools.put(name, new PoolSettings(routing, pool.getInt("size")));
+        }
+        return pools;
+    }
+
+    /**
+     * Wraps the Props of a routee into the Props of its pool. Under consistent hashing, a message
+     * implementing {@link ConsistentHashingRouter.ConsistentHashable} is routed by its key and any
+     * other message by its own hash. A routee that fails is restarted on its own, without the rest of the pool.
+     *
+     * @param routee The Props of one routee
+     * @return The Props of the pool
+     */
+    public Props props(Props routee) {
+        if (routing == Routing.CONSISTENT_HASHING) {
+            return new ConsistentHashingPool(size)
+                    .withHashMapper(message -> message instanceof ConsistentHashingRouter.ConsistentHashable
+                            ? ((ConsistentHashingRouter.ConsistentHashable) message).consistentHashKey()
+                            : message)
+                    .withSupervisorStrategy(SupervisorStrategy.defaultStrategy())
+                    .props(routee);
+        }
+        return new SmallestMailboxPool(size)
+                .withSupervisorStrategy(SupervisorStrategy.defaultStrategy())
+                .props(routee);
+    }
+
+    public Routing getRouting() {
+        return routing;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,359 @@
+package actors;
+
+import akka.actor.AbstractActorWithTimers;
+import akka.actor.ActorRef;
+import akka.actor.PoisonPill;
+import akka.actor.Props;
+import akka.actor.Terminated;
+import akka.cluster.sharding.ShardRegion;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import models.SearchPage;
+import models.YouTubeService;
+import utils.CanonicalRequest;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * QueryHub fans live search results out to the sessions watching each query.
+ * Subscriptions are keyed by the normalized query, so sessions typing the same search differently
+ * share one {@link QueryPoller}; the poller of a key is started with its first subscriber and
+ * stopped with its last one. Every poll is paid from the API quota, so only so many pollers run at once,
+ * whatever the number of queries watched: the hubs of one node share their poller slots, and a query
+ * beyond them waits, subscribers and all, until a slot is freed.
+ *
+ * <p>Every subscriber has a bounded outbox and is sent one update at a time: the next one only
+ * after it has acknowledged the previous one with {@link Ack}. While a subscriber is busy, newer
+ * updates queue in its outbox and the oldest are dropped once it is full, so a slow WebSocket can
+ * neither hold up the other subscribers nor grow the hub's memory.</p>
+ *
+ * <p>On a cluster, the hubs are sharded by normalized query instead, see {@link ShardingSettings}:
+ * each one serves a single query for the whole cluster and passivates once its last subscriber leaves.</p>
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public class QueryHub extends AbstractActorWithTimers {
+
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMinutes(30);
+    public static final int DEFAULT_SUBSCRIBER_BUFFER = 16;
+    public static final int DEFAULT_MAX_POLLERS = 2;
+    /** How often a hub with waiting queries checks for a poller slot freed by another hub */
+    public static final Duration SLOT_RETRY_INTERVAL = Duration.ofSeconds(30);
+
+    private static final Object RETRY_SLOTS = "retry-slots";
+
+    private final YouTubeService youTubeService;
+    private final Duration pollInterval;
+    private final int subscriberBuffer;
+    private final Semaphore pollerSlots;
+    private final boolean entity;
+    private final Map<String, Topic> topics = new HashMap<>();
+    private final Set<String> waiting = new LinkedHashSet<>();
+    private final Map<ActorRef, Outbox> outboxes = new HashMap<>();
+
+    /**
+     * Factory method to create the QueryHub with {@value #DEFAULT_MAX_POLLERS} poller slots of its own.
+     *
+     * @param youTubeService The YouTubeService instance used to re-run the searches
+     * @param pollInterval How often each subscribed query is polled
+     * @param subscriberBuffer The most updates kept for a subscriber that has not acknowledged the previous one
+     * @return A Props instance for creating the QueryHub
+     */
+    public static Props props(YouTubeService youTubeService, Duration pollInterval, int subscriberBuffer) {
+        return props(youTubeService, pollInterval, subscriberBuffer, new Semaphore(DEFAULT_MAX_POLLERS));
+    }
+
+    /**
+     * Factory method to create the QueryHub.
+     *
+     * @param youTubeService The YouTubeService instance used to re-run the searches
+     * @param pollInterval How often each subscribed query is polled
+     * @param subscriberBuffer The most updates kept for a subscriber that has not acknowledged the previous one
+     * @param pollerSlots The slots of the pollers that may run at once, one taken per polled query
+     * @return A Props instance for creating the QueryHub
+     */
+    public static Props props(YouTubeService youTubeService, Duration pollInterval, int subscriberBuffer, Semaphore pollerSlots) {
+        return Props.create(QueryHub.class, () -> new QueryHub(youTubeService, pollInterval, subscriberBuffer, pollerSlots, false));
+    }
+
+    /**
+     * Factory method to create the hub of one query in a sharded region, which asks its shard
+     * to passivate it once it has no subscribers left.
+     *
+     * @param youTubeService The YouTubeService instance used to re-run the search
+     * @param pollInterval How often the query is polled
+     * @param subscriberBuffer The most updates kept for a subscriber that has not acknowledged the previous one
+     * @param pollerSlots The slots of the pollers that may run at once, shared by the hubs of this node
+     * @return A Props instance for creating the sharded QueryHubs
+     */
+    public static Props entityProps(YouTubeService youTubeService, Duration pollInterval, int subscriberBuffer, Semaphore pollerSlots) {
+        return Props.create(QueryHub.class, () -> new QueryHub(youTubeService, pollInterval, subscriberBuffer, pollerSlots, true));
+    }
+
+    private QueryHub(YouTubeService youTubeService, Duration pollInterval, int subscriberBuffer, Semaphore pollerSlots,
+                     boolean entity) {
+        this.youTubeService = youTubeService;
+        this.pollInterval = pollInterval;
+        this.subscriberBuffer = subscriberBuffer;
+        this.pollerSlots = pollerSlots;
+        this.entity = entity;
+    }
+
+    /**
+     * Gives the poller slots back when the hub stops, e.g. when its shard passivates or moves it.
+     */
+    @Override
+    public void postStop() {
+        for (Topic topic : topics.values()) {
+            if (topic.poller != null) {
+                pollerSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Normalizes a query into the key its subscribers share, the same way it is normalized
+     * for the cache key, see {@link CanonicalRequest#normalizeQuery(String)}.
+     *
+     * @param query The search query
+     * @return The subscription key of the query
+     */
+    public static String key(String query) {
+        return CanonicalRequest.normalizeQuery(query);
+    }
+
+    @Override
+    public Receive createReceive() {
+        return receiveBuilder()
+                .match(Subscribe.class, this::handleSubscribe)
+                .match(Unsubscribe.class, message -> unsubscribe(key(message.query), message.subscriber))
+                .match(Ack.class, ack -> handleAck(getSender()))
+                .match(Published.class, this::handlePublished)
+                .match(Terminated.class, terminated -> removeSubscriber(terminated.getActor()))
+                .matchEquals(RETRY_SLOTS, retry -> startWaitingPollers())
+                .build();
+    }
+
+    private void handleSubscribe(Subscribe message) {
+        String key = key(message.query);
+        Topic topic = topics.computeIfAbsent(key, k -> {
+            Topic created = new Topic(message.query);
+            startPoller(k, created);
+            return created;
+        });
+        topic.subscribers.add(message.subscriber);
+
+        Outbox outbox = outboxes.computeIfAbsent(message.subscriber, subscriber -> {
+            getContext().watch(subscriber);
+            return new Outbox();
+        });
+        outbox.keys.add(key);
+    }
+
+    private void unsubscribe(String key, ActorRef subscriber) {
+        Topic topic = topics.get(key);
+        if (topic != null && topic.subscribers.remove(subscriber) && topic.subscribers.isEmpty()) {
+            // The last subscriber is gone, so nobody needs the query polled any more
+            topics.remove(key);
+            waiting.remove(key);
+            if (topic.poller != null) {
+                getContext().stop(topic.poller);
+                pollerSlots.release();
+                startWaitingPollers();
+            }
+            if (entity && topics.isEmpty()) {
+                // Messages sent meanwhile are held by the shard and start the hub again
+                getContext().getParent().tell(new ShardRegion.Passivate(PoisonPill.getInstance()), getSelf());
+            }
+        }
+        Outbox outbox = outboxes.get(subscriber);
+        if (outbox != null && outbox.keys.remove(key) && outbox.keys.isEmpty()) {
+            getContext().unwatch(subscriber);
+            outboxes.remove(subscriber);
+        }
+    }
+
+    /**
+     * Starts the poller of a query if a poller slot is free, or queues the query for the next free slot.
+     */
+    private void startPoller(String key, Topic topic) {
+        if (pollerSlots.tryAcquire()) {
+            runPoller(key, topic);
+            return;
+        }
+        waiting.add(key);
+        if (!getTimers().isTimerActive(RETRY_SLOTS)) {
+            // Slots freed by the other hubs of the node are not announced, so look for one now and then
+            getTimers().startTimerWithFixedDelay(RETRY_SLOTS, RETRY_SLOTS, SLOT_RETRY_INTERVAL);
+        }
+    }
+
+    /**
+     * Starts the pollers of the waiting queries, oldest first, for as long as there are free slots.
+     */
+    private void startWaitingPollers() {
+        while (!waiting.isEmpty() && pollerSlots.tryAcquire()) {
+            String key = waiting.iterator().next();
+            waiting.remove(key);
+            runPoller(key, topics.get(key));
+        }
+        if (waiting.isEmpty()) {
+            getTimers().cancel(RETRY_SLOTS);
+        }
+    }
+
+    /**
+     * Starts the poller of a query, holding the slot it was given.
+     */
+    private void runPoller(String key, Topic topic) {
+        // The pollers wait on the YouTube API, so they run on the io dispatcher rather than the hub's
+        topic.poller = getContext().actorOf(ActorDispatchers.pinned(getContext().getSystem(),
+                QueryPoller.props(youTubeService, topic.query, key, pollInterval), ActorDispatchers.IO));
+    }
+
+    private void removeSubscriber(ActorRef subscriber) {
+        Outbox outbox = outboxes.get(subscriber);
+        if (outbox != null) {
+            for (String key : Set.copyOf(outbox.keys)) {
+                unsubscribe(key, subscriber);
+            }
+        }
+    }
+
+    private void handlePublished(Published message) {
+        Topic topic = topics.get(message.key);
+        if (topic == null) {
+            return;
+        }
+        LiveResults update = new LiveResults(message.page);
+        for (ActorRef subscriber : topic.subscribers) {
+            Outbox outbox = outboxes.get(subscriber);
+            if (!outbox.awaitingAck) {
+                outbox.awaitingAck = true;
+                subscriber.tell(update, getSelf());
+            } else {
+                if (outbox.pending.size() >= subscriberBuffer) {
+                    outbox.pending.poll();
+                }
+                outbox.pending.add(update);
+            }
+        }
+    }
+
+    private void handleAck(ActorRef subscriber) {
+        Outbox outbox = outboxes.get(subscriber);
+        if (outbox == null) {
+            return;
+        }
+        LiveResults next = outbox.pending.poll();
+        if (next == null) {
+            outbox.awaitingAck = false;
+        } else {
+            subscriber.tell(next, getSelf());
+        }
+    }
+
+    /**
+     * The poller and subscribers of one normalized query. The poller is null while the query waits for a slot.
+     */
+    private static class Topic {
+        final String query;
+        final Set<ActorRef> subscribers = new HashSet<>();
+        ActorRef poller;
+
+        Topic(String query) {
+            this.query = query;
+        }
+    }
+
+    /**
+     * The updates waiting for one subscriber, and the keys it subscribes to.
+     */
+    private static class Outbox {
+        final Set<String> keys = new HashSet<>();
+        final ArrayDeque<LiveResults> pending = new ArrayDeque<>();
+        boolean awaitingAck;
+    }
+
+    /**
+     * Message to start receiving live results for a query.
+     */
+    public static class Subscribe implements ClusterSerializable {
+        public final String query;
+        public final ActorRef subscriber;
+
+        /**
+         * @param query The search query to watch
+         * @param subscriber The actor receiving the results, usually the UserActor of a session
+         */
+        @JsonCreator
+        public Subscribe(@JsonProperty("query") String query, @JsonProperty("subscriber") ActorRef subscriber) {
+            this.query = query;
+            this.subscriber = subscriber;
+        }
+    }
+
+    /**
+     * Message to stop receiving live results for a query.
+     */
+    public static class Unsubscribe implements ClusterSerializable {
+        public final String query;
+        public final ActorRef subscriber;
+
+        /**
+         * @param query The search query no longer watched
+         * @param subscriber The actor receiving the results
+         */
+        @JsonCreator
+        public Unsubscribe(@JsonProperty("query") String query, @JsonProperty("subscriber") ActorRef subscriber) {
+            this.query = query;
+            this.subscriber = subscriber;
+        }
+    }
+
+    /**
+     * The latest page of a subscribed query. The subscriber must answer it with {@link Ack}
+     * to be sent the next one.
+     */
+    public static class LiveResults implements ClusterSerializable {
+        public final SearchPage page;
+
+        /**
+         * @param page The latest page of the query
+         */
+        @JsonCreator
+        public LiveResults(@JsonProperty("page") SearchPage page) {
+            this.page = page;
+        }
+    }
+
+    /**
+     * Sent by a subscriber once it has handled a {@link LiveResults}.
+     */
+    public static final class Ack implements ClusterSerializable {
+        public static final Ack INSTANCE = new Ack();
+
+        private Ack() {
+        }
+    }
+
+    /**
+     * A page polled for a normalized query, sent by its {@link QueryPoller}.
+     */
+    static class Published {
+        final String key;
+        final SearchPage page;
+
+        Published(String key, SearchPage page) {
+            this.key = key;
+            this.page = page;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package actors;
+
+import akka.actor.AbstractActorWithTimers;
+import akka.actor.Props;
+import akka.pattern.Patterns;
+import models.SearchPage;
+import models.YouTubeService;
+import utils.QuotaScheduler;
+
+import java.time.Duration;
+
+/**
+ * QueryPoller re-runs one query on a fixed schedule for the {@link QueryHub}, which starts it with
+ * the first subscriber of the query and stops it with the last. Each successful poll is published
+ * to the hub; a poll that fails is skipped, as is a tick while the previous poll is still running
+ * or while the API quota is down to the reserve kept for interactive searches.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public class QueryPoller extends AbstractActorWithTimers {
+
+    public static final int PAGE_SIZE = 10;
+
+    private static final Object POLL = "poll";
+
+    private final YouTubeService youTubeService;
+    private final String query;
+    private final String key;
+    private final Duration pollInterval;
+    private boolean polling;
+
+    /**
+     * Factory method to create the QueryPoller.
+     *
+     * @param youTubeService The YouTubeService instance used to re-run the search
+     * @param query The search query, as first subscribed
+     * @param key The normalized query the results are published under
+     * @param pollInterval How often the query is polled
+     * @return A Props instance for creating the QueryPoller
+     */
+    public static Props props(YouTubeService youTubeService, String query, String key, Duration pollInterval) {
+        return Props.create(QueryPoller.class, () -> new QueryPoller(youTubeService, query, key, pollInterval));
+    }
+
+    private QueryPoller(YouTubeService youTubeService, String query, String key, Duration pollInterval) {
+        this.youTubeService = youTubeService;
+        this.query = query;
+        this.key = key;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void preStart() {
+        getTimers().startTimerWithFixedDelay(POLL, POLL, pollInterval);
+    }
+
+    @Override
+    public Receive createReceive() {
+        return receiveBuilder()
+                .matchEquals(POLL, tick -> poll())
+                .match(PollResult.class, this::handlePollResult)
+                .build();
+    }
+
+    private void poll() {
+        if (polling || youTubeService.isQuotaLow()) {
+            return;
+        }
+        polling = true;
+        // Live updates are speculative work and must leave the quota reserve to interactive searches.
+        // The poll goes past the cache, whose pages may be older than the poll interval
+        Patterns.pipe(youTubeService.refreshSearchPage(query, PAGE_SIZE, QuotaScheduler.Priority.BACKGROUND)
+                        .handle((page, error) -> new PollResult(page)), getContext().getDispatcher())
+                .to(getSelf());
+    }
+
+    private void handlePollResult(PollResult result) {
+        polling = false;
+        if (result.page != null) {
+            getContext().getParent().tell(new QueryHub.Published(key, result.page), getSelf());
+        }
+    }
+
+    /**
+     * The outcome of one poll, with a null page if the poll failed.
+     */
+    private static class PollResult {
+        final SearchPage page;
+
+        PollResult(SearchPage page) {
+            this.page = page;
+        }
+    }
+}
@@ -4,27 +4,60 @@ import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.Props;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import models.Readability;
+import models.SearchPage;
+import models.VideoSummary;
 import play.libs.Json;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
 
 /**
  * Actor responsible for calculating readability scores for a given description.
  * It computes the Flesch-Kincaid Grade Level and Flesch Reading Ease Score.
+ * The scores are computed in the actor itself, so a pool of ReadabilityActors scores as many
+ * descriptions at once as it has routees. A description is scored in a single scan of its chars.
+ *
+ * <p>A whole {@link SearchPage} is scored at once: its descriptions are split over the fork-join
+ * pool the actor runs on, and the scores are cached by video ID, so a video seen again in another
+ * query is not scored twice. Results without a video ID are scored every time. The reply is one {@link PageReadability}.</p>
  *
  * <p>Author: Priyadarshine Kumar 40293041</p>
  */
 public class ReadabilityActor extends AbstractActor {
 
-    public final ActorRef userActor; // Reference to the UserActor
+    /** The most video scores kept; a score takes well under a hundred bytes */
+    public static final int CACHED_VIDEOS = 50_000;
+
+    /** The most descriptions one fork-join task scores before splitting its share */
+    static final int DESCRIPTIONS_PER_TASK = 2;
+
+    public final ActorRef userActor; // Reference to the UserActor, or null to reply to the sender
+    private final Cache<String, Readability> videoScores;
 
     /**
      * Constructor that accepts an ActorRef to the UserActor.
      *
-     * @param userActor The ActorRef to the UserActor
+     * @param userActor The ActorRef to the UserActor, or null to reply to the sender of each message
      */
     public ReadabilityActor(ActorRef userActor) {
+        this(userActor, newVideoScoreCache());
+    }
+
+    /**
+     * @param userActor The ActorRef to the UserActor, or null to reply to the sender of each message
+     * @param videoScores The scores of the videos already seen, by video ID
+     */
+    private ReadabilityActor(ActorRef userActor, Cache<String, Readability> videoScores) {
         this.userActor = userActor;
+        this.videoScores = videoScores;
     }
 
     /**
@@ -34,7 +67,19 @@ public class ReadabilityActor extends AbstractActor {
      * @return The Props instance for the ReadabilityActor
      */
     public static Props props(ActorRef userActor) {
-        return Props.create(ReadabilityActor.class, () -> new ReadabilityActor(userActor));
+        Cache<String, Readability> videoScores = newVideoScoreCache();
+        return Props.create(ReadabilityActor.class, () -> new ReadabilityActor(userActor, videoScores));
+    }
+
+    /**
+     * Creates a Props instance for a ReadabilityActor replying to the sender of each message,
+     * as the routees of a pool shared by all sessions do. All the actors created from the Props,
+     * such as the routees of one pool, share their cache of video scores.
+     *
+     * @return The Props instance for the ReadabilityActor
+     */
+    public static Props props() {
+        return props(null);
     }
 
     /**
@@ -52,74 +97,131 @@ public class ReadabilityActor extends AbstractActor {
                         processDescription(description);
                     } else {
                         // Send error message if "description" is missing
-                        userActor.tell(Json.newObject().put("error", "Error calculating readability: Missing description"), self());
+                        replyTo().tell(Json.newObject().put("error", "Error calculating readability: Missing description"), self());
                     }
                 })
+                .match(SearchPage.class, page -> replyTo().tell(scorePage(page), self()))
                 .build();
     }
 
+    /**
+     * Scores every video of a page and averages the scores. The videos not in the cache are
+     * scored in parallel, as fork-join tasks on the pool the actor runs on, or the common pool.
+     *
+     * @param page The page to score
+     * @return The scores of the videos and of the whole page
+     */
+    public PageReadability scorePage(SearchPage page) {
+        List<VideoSummary> videos = page.getVideos();
+        Readability[] scores = new Readability[videos.size()];
+        for (int i = 0; i < scores.length; i++) {
+            String videoId = videos.get(i).getVideoId();
+            scores[i] = isCacheable(videoId) ? videoScores.getIfPresent(videoId) : null;
+        }
+        new ScoreVideos(videos, scores, 0, scores.length).invoke();
+
+        Map<String, Readability> byVideo = new LinkedHashMap<>();
+        for (int i = 0; i < scores.length; i++) {
+            String videoId = videos.get(i).getVideoId();
+            if (isCacheable(videoId)) {
+                videoScores.put(videoId, scores[i]);
+            }
+            byVideo.put(videoId, scores[i]);
+        }
+        // Results without a video ID share one key of byVideo, but each counts in the average
+        return new PageReadability(page.getQuery(), byVideo, Readability.average(Arrays.asList(scores)));
+    }
+
+    /**
+     * Channels and playlists in the results have no video ID, so their scores are not cached:
+     * they would all share one entry, whatever their description.
+     */
+    private static boolean isCacheable(String videoId) {
+        return videoId != null && !videoId.isEmpty();
+    }
+
+    private static Cache<String, Readability> newVideoScoreCache() {
+        return Caffeine.newBuilder().maximumSize(CACHED_VIDEOS).build();
+    }
+
 
     /**
-     * Processes the given description asynchronously to calculate readability scores.
-     * The results are sent back to the sender (UserActor).
+     * Processes the given description to calculate readability scores.
+     * The results are sent back to the UserActor, or to the sender if there is none.
      *
      * @param description The description text to process
      */
     public void processDescription(String description) {
-        CompletableFuture.supplyAsync(() -> calculateReadabilityScores(description))
-                .thenAccept(scores -> {
-                    JsonNode result = Json.newObject()
-                            .put("fkGrade", scores[0])
-                            .put("readingEase", scores[1]);
-                    userActor.tell(result, self());
-                })
-                .exceptionally(e -> {
-                    // Handle exception and send an error response
-                    JsonNode errorResponse = Json.newObject()
-                            .put("error", "Error calculating readability: " + e.getMessage());
-                    userActor.tell(errorResponse, self());
-                    return null;
-                });
+        JsonNode result;
+        try {
+            double[] scores = calculateReadabilityScores(description);
+            result = Json.newObject()
+                    .put("fkGrade", scores[0])
+                    .put("readingEase", scores[1]);
+        } catch (RuntimeException e) {
+            // Handle exception and send an error response
+            result = Json.newObject()
+                    .put("error", "Error calculating readability: " + e.getMessage());
+        }
+        replyTo().tell(result, self());
+    }
+
+    /**
+     * @return The UserActor, or the sender of the current message if there is none
+     */
+    private ActorRef replyTo() {
+        return userActor != null ? userActor : getSender();
     }
 
 
     /**
      * Calculates the Flesch-Kincaid Grade Level and Flesch Reading Ease score for the given text.
+     * The sentences, words and syllables are counted in one scan of the text, see {@link #count}.
      *
      * @param text The text to analyze
      * @return An array containing the Flesch-Kincaid Grade Level and Flesch Reading Ease Score
      */
     public double[] calculateReadabilityScores(String text) {
-        int sentenceCount = countSentences(text);
-        int wordCount = countWords(text);
-        int syllableCount = countSyllables(text);
+        return scores(text);
+    }
 
-        double fkGrade = 0.39 * (wordCount / sentenceCount) + 11.8 * (syllableCount / wordCount) - 15.59;
-        double readingEase = 206.835 - (1.015 * (wordCount / sentenceCount)) - (84.6 * (syllableCount / wordCount));
+    /**
+     * Calculates the Flesch-Kincaid Grade Level and Flesch Reading Ease score for the given text,
+     * with floating-point ratios of words per sentence and syllables per word.
+     *
+     * @param text The text to analyze
+     * @return An array containing the Flesch-Kincaid Grade Level and Flesch Reading Ease Score
+     */
+    public static double[] scores(CharSequence text) {
+        Counts counts = count(text);
+        double wordsPerSentence = (double) counts.words / counts.sentences;
+        double syllablesPerWord = (double) counts.syllables / counts.words;
+
+        double fkGrade = 0.39 * wordsPerSentence + 11.8 * syllablesPerWord - 15.59;
+        double readingEase = 206.835 - 1.015 * wordsPerSentence - 84.6 * syllablesPerWord;
 
         return new double[]{fkGrade, readingEase};
     }
 
     /**
-     * Counts the number of sentences in the given text by splitting on sentence-ending punctuation.
+     * Counts the number of sentences in the given text. A sentence is a run of words ended by
+     * sentence-ending punctuation or by the end of the text.
      *
      * @param text The text to analyze
-     * @return The number of sentences
+     * @return The number of sentences, at least 1
      */
     public int countSentences(String text) {
-        // Split text by sentence-ending punctuation marks
-        return text.split("[.!?]").length;
+        return count(text).sentences;
     }
 
     /**
-     * Counts the number of words in the given text by splitting on spaces.
+     * Counts the number of words in the given text, separated by whitespace.
      *
      * @param text The text to analyze
-     * @return The number of words
+     * @return The number of words, at least 1
      */
     public int countWords(String text) {
-        // Split text by spaces to count words
-        return text.split("\\s+").length;
+        return count(text).words;
     }
 
     /**
@@ -130,11 +232,7 @@ public class ReadabilityActor extends AbstractActor {
      * @return The total number of syllables
      */
     public int countSyllables(String text) {
-        int syllables = 0;
-        for (String word : text.split("\\s+")) {
-            syllables += countSyllablesInWord(word);
-        }
-        return syllables;
+        return count(text).syllables;
     }
 
     /**
@@ -144,12 +242,10 @@ public class ReadabilityActor extends AbstractActor {
      * @return The number of syllables in the word
      */
     public int countSyllablesInWord(String word) {
-        // Simple vowel counting to estimate syllables
-        word = word.toLowerCase();
         int count = 0;
         boolean isVowel = false;
-        for (char c : word.toCharArray()) {
-            if (isVowelChar(c)) {
+        for (int i = 0; i < word.length(); i++) {
+            if (isVowelChar(word.charAt(i))) {
                 if (!isVowel) {
                     count++;
                     isVowel = true;
@@ -158,20 +254,158 @@ public class ReadabilityActor extends AbstractActor {
                 isVowel = false;
             }
         }
-        if (count > 0) {
-            return count;
-        }else{
-            return 1;
-        }
+        return Math.max(count, 1);
     }
 
     /**
-     * Checks if the character is a vowel (a, e, i, o, u, y).
+     * Checks if the character is a vowel (a, e, i, o, u, y), in either case.
      *
      * @param c The character to check
      * @return True if the character is a vowel, false otherwise
      */
-    public boolean isVowelChar(char c) {
-        return "aeiouy".indexOf(c) != -1;
+    public static boolean isVowelChar(char c) {
+        switch (c) {
+            case 'a': case 'e': case 'i': case 'o': case 'u': case 'y':
+            case 'A': case 'E': case 'I': case 'O': case 'U': case 'Y':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Counts the sentences, words and syllables of a text in a single pass over its chars,
+     * without splitting it into strings or arrays. Every word counts at least one syllable,
+     * and a text without words still counts one word and one sentence, so the ratios of
+     * {@link #scores} are always defined.
+     *
+     * @param text The text to analyze
+     * @return The counts of the text
+     */
+    static Counts count(CharSequence text) {
+        int sentences = 0;
+        int words = 0;
+        int syllables = 0;
+        int wordSyllables = 0;
+        boolean inWord = false;
+        boolean inVowels = false;
+        boolean sentenceHasWords = false;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (inWord) {
+                    syllables += Math.max(wordSyllables, 1);
+                    inWord = false;
+                }
+                inVowels = false;
+                continue;
+            }
+            if (c == '.' || c == '!' || c == '?') {
+                // A run of terminators, as in "?!" or "...", ends one sentence
+                if (sentenceHasWords) {
+                    sentences++;
+                    sentenceHasWords = false;
+                }
+                inVowels = false;
+                continue;
+            }
+            if (!inWord) {
+                words++;
+                wordSyllables = 0;
+                inWord = true;
+            }
+            sentenceHasWords = true;
+            if (isVowelChar(c)) {
+                if (!inVowels) {
+                    wordSyllables++;
+                    inVowels = true;
+                }
+            } else {
+                inVowels = false;
+            }
+        }
+        if (inWord) {
+            syllables += Math.max(wordSyllables, 1);
+        }
+        if (sentenceHasWords) {
+            sentences++;
+        }
+        return new Counts(Math.max(sentences, 1), Math.max(words, 1), Math.max(syllables, 1));
+    }
+
+    /**
+     * Scores the videos of a range of a page that are not scored yet, splitting the range in
+     * halves until each part holds at most {@value #DESCRIPTIONS_PER_TASK} descriptions.
+     */
+    private static final class ScoreVideos extends RecursiveAction {
+        private final List<VideoSummary> videos;
+        private final Readability[] scores;
+        private final int from;
+        private final int to;
+
+        ScoreVideos(List<VideoSummary> videos, Readability[] scores, int from, int to) {
+            this.videos = videos;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > DESCRIPTIONS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScoreVideos(videos, scores, from, middle), new ScoreVideos(videos, scores, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (scores[i] == null) {
+                    double[] score = scores(videos.get(i).getDescription());
+                    scores[i] = new Readability(score[0], score[1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * The readability of every video of a page, and of the page as a whole.
+     */
+    public static final class PageReadability {
+        public final String query;
+        public final Map<String, Readability> byVideo;
+        public final Readability average;
+
+        /**
+         * @param query The search query of the page
+         * @param byVideo The scores of the videos by video ID, in page order
+         */
+        public PageReadability(String query, Map<String, Readability> byVideo) {
+            this(query, byVideo, Readability.average(byVideo.values()));
+        }
+
+        /**
+         * @param query The search query of the page
+         * @param byVideo The scores of the videos by video ID, in page order
+         * @param average The average score of every result of the page
+         */
+        public PageReadability(String query, Map<String, Readability> byVideo, Readability average) {
+            this.query = query;
+            this.byVideo = Collections.unmodifiableMap(new LinkedHashMap<>(byVideo));
+            this.average = average;
+        }
+    }
+
+    /**
+     * The sentences, words and syllables of a text.
+     */
+    static final class Counts {
+        final int sentences;
+        final int words;
+        final int syllables;
+
+        Counts(int sentences, int words, int syllables) {
+            this.sentences = sentences;
+            this.words = words;
+            this.syllables = syllables;
+        }
     }
 }
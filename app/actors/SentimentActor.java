@@ -3,58 +3,71 @@ package actors;
 import akka.actor.AbstractActor;
 import akka.actor.Props;
 import com.fasterxml.jackson.databind.JsonNode;
+import models.SearchPage;
+import models.VideoSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import play.libs.Json;
+import utils.SentimentLexicon;
 
-import java.util.List;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
- * SentimentActor class processes sentiment analysis based on video descriptions received as a JsonNode.
- * It classifies each description as happy, sad, or neutral based on predefined lists of sentiment-related words
- * and returns the final sentiment result after processing all descriptions.
+ * SentimentActor class processes sentiment analysis based on video descriptions received as a JsonNode
+ * or a SearchPage. Each description is scored against a weighted {@link SentimentLexicon}, from -1 for
+ * the saddest to 1 for the happiest, and the page is scored as the average of its descriptions.
+ * The final sentiment is the emoticon of the page score.
+ *
+ * <p>The lexicon is looked up for every message, so a lexicon reloaded meanwhile is used from the
+ * next page on, and scoring reuses one {@link SentimentLexicon.Scorer} per actor.</p>
  *
  * <p>Author: Lokesh Kommalapati (40301947)</p>
  */
 public class SentimentActor extends AbstractActor {
 
-    // Happy and Sad word lists for sentiment analysis
-    private static final List<String> HAPPY_WORDS = List.of(
-            "happy", "good", "joy", ":)", "😊", "love", "awesome", "fantastic", "great", "wonderful",
-            "amazing", "cheerful", "delighted", "excited", "pleased", "blessed", "smile", "fun",
-            "best", "fantabulous", "grateful", "victorious", "content", "elated", "positive", "optimistic",
-            "thrilled", "bright", "sunny", "jolly", "merry", "peaceful", "euphoric", "hopeful", "blissful",
-            "radiant", "overjoyed", "satisfied"
-    );
+    private static final Logger LOG = LoggerFactory.getLogger(SentimentActor.class);
+
+    /** The page score above which the sentiment is happy, and below the negative of which it is sad */
+    public static final double NEUTRAL_THRESHOLD = 0.05;
 
-    private static final List<String> SAD_WORDS = List.of(
-            "sad", "bad", "angry", ":(", "☹️", "hate", "terrible", "awful", "depressed", "heartbroken",
-            "mourn", "unhappy", "disappointed", "gloomy", "down", "sorrow", "grief", "misery", "angst",
-            "pain", "regret", "distressed", "lost", "lonely", "blue", "melancholy", "despair", "downcast",
-            "hopeless", "forlorn", "tragic", "hurt", "shattered", "anguish", "tears", "unfortunate",
-            "dismal", "isolated", "cold", "disheartened", "empty", "sick"
-    );
+    private final Supplier<SentimentLexicon> lexicon;
+    private final SentimentLexicon.Scorer scorer = new SentimentLexicon.Scorer();
 
     /**
-     * Factory method to create the SentimentActor.
-     * This method returns the Props for creating the SentimentActor, which is used by Akka.
-     * No arguments are required for the actor creation.
+     * Factory method to create the SentimentActor with the lexicon shipped with the application.
      *
      * @return The Props to create the SentimentActor instance.
      */
     public static Props props() {
-        return Props.create(SentimentActor.class);
+        return props(SentimentLexicon::builtIn);
+    }
+
+    /**
+     * Factory method to create the SentimentActor with a lexicon that may change, such as a {@link utils.LexiconStore}.
+     *
+     * @param lexicon Supplies the current lexicon
+     * @return The Props to create the SentimentActor instance.
+     */
+    public static Props props(Supplier<SentimentLexicon> lexicon) {
+        return Props.create(SentimentActor.class, () -> new SentimentActor(lexicon));
     }
 
     /**
      * Constructor for SentimentActor.
-     * This constructor doesn't require any parameters and allows initialization if needed.
+     *
+     * @param lexicon Supplies the current lexicon
      */
-    public SentimentActor() {
-        // Initialization logic, if needed, goes here.
+    public SentimentActor(Supplier<SentimentLexicon> lexicon) {
+        this.lexicon = lexicon;
     }
 
     /**
      * Defines the behavior of the SentimentActor.
-     * It listens for messages of type JsonNode and processes sentiment analysis based on video descriptions.
+     * It listens for a JsonNode array of descriptions or a SearchPage and processes sentiment analysis
+     * based on the video descriptions.
      *
      * @return The receive block that defines the actor's behavior.
      */
@@ -63,95 +76,81 @@ public class SentimentActor extends AbstractActor {
         return receiveBuilder()
                 .match(JsonNode.class, message -> {
                     // Handle incoming message containing descriptions
-                    System.out.println("Received message: " + message);  // Print the received message
                     if (message.isArray()) {
-                        String finalSentiment = analyzeSentiment(message);
-                        JsonNode response = Json.newObject().put("finalSentiment", finalSentiment);
-                        getSender().tell(response, getSelf()); // Send the result back to the sender (UserActor)
+                        SentimentLexicon current = lexicon.get();
+                        double total = 0;
+                        for (JsonNode description : message) {
+                            total += scorer.score(current, description.asText());
+                        }
+                        double average = message.size() == 0 ? 0 : total / message.size();
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Scored descriptions count={} sentiment={}", message.size(), average);
+                        }
+                        JsonNode response = Json.newObject()
+                                .put("finalSentiment", emoticon(average))
+                                .put("sentiment", average);
+                        getSender().tell(response, getSelf());
                     }
                 })
+                .match(SearchPage.class, page -> getSender().tell(scorePage(page), getSelf()))
                 .build();
     }
 
     /**
-     * Analyze sentiment based on the video descriptions.
-     * It calculates sentiment for each description and returns the final sentiment emoji.
+     * Scores every video of a page and averages the scores.
      *
-     * @param descriptions The list of descriptions to analyze.
-     * @return The final sentiment emoji (":-)", ":-(", ":-|").
+     * @param page The page to score
+     * @return The scores of the videos and of the whole page
      */
-    private String analyzeSentiment(JsonNode descriptions) {
-        int happyCount = 0;
-        int sadCount = 0;
-        int neutralCount = 0;
-
-        System.out.println("Starting sentiment analysis for " + descriptions.size() + " descriptions");
-
-        for (JsonNode description : descriptions) {
-            String desc = description.asText().toLowerCase();
-            int happyWordsCount = countSentimentWords(desc, HAPPY_WORDS);
-            int sadWordsCount = countSentimentWords(desc, SAD_WORDS);
-            int totalWords = happyWordsCount + sadWordsCount;
-
-            // Print the word counts for each description
-            System.out.println("Description: \"" + description.asText() + "\"");
-            System.out.println("Happy words count: " + happyWordsCount);
-            System.out.println("Sad words count: " + sadWordsCount);
-            System.out.println("Total sentiment words: " + totalWords);
-
-            // Classify the sentiment of the description
-            if (totalWords > 0) {
-                double happyPercentage = (double) happyWordsCount / totalWords;
-                double sadPercentage = (double) sadWordsCount / totalWords;
-
-                System.out.println("Happy percentage: " + happyPercentage);
-                System.out.println("Sad percentage: " + sadPercentage);
-
-                if (happyPercentage > 0.7) {
-                    happyCount++;
-                    System.out.println("Description classified as HAPPY");
-                } else if (sadPercentage > 0.7) {
-                    sadCount++;
-                    System.out.println("Description classified as SAD");
-                } else {
-                    neutralCount++;
-                    System.out.println("Description classified as NEUTRAL");
-                }
-            }
+    public PageSentiment scorePage(SearchPage page) {
+        SentimentLexicon current = lexicon.get();
+        Map<String, Double> byVideo = new LinkedHashMap<>();
+        for (VideoSummary video : page.getVideos()) {
+            byVideo.put(video.getVideoId(), scorer.score(current, video.getDescription()));
         }
+        PageSentiment sentiment = new PageSentiment(page.getQuery(), byVideo);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Scored page query={} videos={} sentiment={}", page.getQuery(), byVideo.size(), sentiment.average);
+        }
+        return sentiment;
+    }
 
-        // Print the final sentiment counts
-        System.out.println("Happy Count: " + happyCount);
-        System.out.println("Sad Count: " + sadCount);
-        System.out.println("Neutral Count: " + neutralCount);
-
-        // Determine the final sentiment based on the counts
-        if (happyCount >= sadCount && happyCount >= neutralCount) {
-            System.out.println("Final Sentiment: :-)");
-            return ":-)"; // Happy sentiment
-        } else if (sadCount > happyCount && sadCount >= neutralCount) {
-            System.out.println("Final Sentiment: :-(");
-            return ":-("; // Sad sentiment
-        } else {
-            System.out.println("Final Sentiment: :-|");
-            return ":-|"; // Neutral sentiment
+    /**
+     * @param score The score of a page
+     * @return The emoticon of the score: ":-)" for happy, ":-(" for sad or ":-|" for neutral
+     */
+    public static String emoticon(double score) {
+        if (score > NEUTRAL_THRESHOLD) {
+            return ":-)";
         }
+        if (score < -NEUTRAL_THRESHOLD) {
+            return ":-(";
+        }
+        return ":-|";
     }
 
     /**
-     * Count the number of sentiment-related words in the description.
-     *
-     * @param description The description text.
-     * @param sentimentWords List of words related to a particular sentiment (happy or sad).
-     * @return The number of sentiment words found in the description.
+     * The sentiment of every video of a page, and of the page as a whole.
      */
-    private int countSentimentWords(String description, List<String> sentimentWords) {
-        int count = 0;
-        for (String word : sentimentWords) {
-            if (description.contains(word)) {
-                count++;
+    public static final class PageSentiment {
+        public final String query;
+        public final Map<String, Double> byVideo;
+        public final double average;
+        public final String finalSentiment;
+
+        /**
+         * @param query The search query of the page
+         * @param byVideo The scores of the videos by video ID, in page order
+         */
+        public PageSentiment(String query, Map<String, Double> byVideo) {
+            this.query = query;
+            this.byVideo = Collections.unmodifiableMap(new LinkedHashMap<>(byVideo));
+            double total = 0;
+            for (double score : byVideo.values()) {
+                total += score;
             }
+            this.average = byVideo.isEmpty() ? 0 : total / byVideo.size();
+            this.finalSentiment = emoticon(average);
         }
-        return count;
     }
 }
@@ -0,0 +1,110 @@
+package actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.cluster.sharding.ClusterSharding;
+import akka.cluster.sharding.ClusterShardingSettings;
+import akka.cluster.sharding.ShardRegion;
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+/**
+ * ShardingSettings: Whether the QueryHubs and the UserActors of the sessions are spread over
+ * an Akka cluster instead of kept on each node. Sharded, every query has one hub in the whole
+ * cluster, so it is polled once however many nodes its watchers are connected to, and every
+ * session has one UserActor, wherever its requests land.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class ShardingSettings {
+
+    public static final String QUERY_HUBS = "queryHub";
+    public static final String USER_ACTORS = "userActor";
+    public static final int DEFAULT_NUMBER_OF_SHARDS = 100;
+
+    /** Keeps the hubs and UserActors on each node, for a single node or a cluster-less ActorSystem */
+    public static final ShardingSettings DISABLED = new ShardingSettings(false, DEFAULT_NUMBER_OF_SHARDS);
+
+    private final boolean enabled;
+    private final int numberOfShards;
+
+    /**
+     * @param enabled Whether the hubs and UserActors are sharded; needs an ActorSystem with the cluster provider
+     * @param numberOfShards The shards the entities of each kind are spread over, about ten per node
+     */
+    public ShardingSettings(boolean enabled, int numberOfShards) {
+        this.enabled = enabled;
+        this.numberOfShards = numberOfShards;
+    }
+
+    /**
+     * Reads the settings from the {@code tubelytics.cluster} section of application.conf.
+     *
+     * @param config The {@code tubelytics.cluster} section
+     * @return The sharding settings
+     */
+    public static ShardingSettings fromConfig(Config config) {
+        return new ShardingSettings(config.getBoolean("enabled"), config.getInt("number-of-shards"));
+    }
+
+    /**
+     * Starts, or returns, this node's region of QueryHubs, with one hub per normalized query.
+     * A hub passivates itself once its last subscriber leaves; it is never passivated for being
+     * idle, as its subscribers wait for news between polls.
+     *
+     * @param system The ActorSystem of this node
+     * @param hubProps The Props of one hub, see {@link QueryHub#entityProps}
+     * @return The region, taking {@link QueryHub.Subscribe} and {@link QueryHub.Unsubscribe}
+     */
+    public ActorRef startQueryHubs(ActorSystem system, Props hubProps) {
+        ClusterShardingSettings settings = ClusterShardingSettings.create(system).withPassivateIdleAfter(Duration.ZERO);
+        return ClusterSharding.get(system).start(QUERY_HUBS, hubProps, settings,
+                new ShardRegion.HashCodeMessageExtractor(numberOfShards) {
+                    @Override
+                    public String entityId(Object message) {
+                        if (message instanceof QueryHub.Subscribe) {
+                            return QueryHub.key(((QueryHub.Subscribe) message).query);
+                        }
+                        if (message instanceof QueryHub.Unsubscribe) {
+                            return QueryHub.key(((QueryHub.Unsubscribe) message).query);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Starts, or returns, this node's region of UserActors, with one UserActor per session ID.
+     * A session's UserActor is started by the first {@link UserActor.SessionMessage} routed to it,
+     * usually the {@link UserActor.Connect} of its WebSocket, or by {@link ShardRegion.StartEntity},
+     * and passivated once idle for the timeout.
+     *
+     * @param system The ActorSystem of this node
+     * @param userProps The Props of one UserActor
+     * @param idleTimeout How long a UserActor may go without a message before it is passivated
+     * @return The region, taking {@link UserActor.SessionMessage}s
+     */
+    public ActorRef startUserActors(ActorSystem system, Props userProps, Duration idleTimeout) {
+        ClusterShardingSettings settings = ClusterShardingSettings.create(system).withPassivateIdleAfter(idleTimeout);
+        return ClusterSharding.get(system).start(USER_ACTORS, userProps, settings,
+                new ShardRegion.HashCodeMessageExtractor(numberOfShards) {
+                    @Override
+                    public String entityId(Object message) {
+                        if (message instanceof UserActor.SessionMessage) {
+                            return ((UserActor.SessionMessage) message).getSessionId();
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getNumberOfShards() {
+        return numberOfShards;
+    }
+}
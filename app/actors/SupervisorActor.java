@@ -2,31 +2,88 @@ package actors;
 
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
+import akka.actor.PoisonPill;
 import akka.actor.Props;
 import akka.actor.OneForOneStrategy;
 import akka.actor.SupervisorStrategy;
 import akka.actor.Status;
+import akka.actor.Terminated;
+import akka.cluster.sharding.ShardRegion;
+import com.typesafe.config.Config;
 import scala.concurrent.duration.Duration;
+import models.SearchPage;
 import models.YouTubeService;
+import utils.ActorMetrics;
+import utils.LexiconStore;
+import utils.SentimentLexicon;
 import utils.SessionManager;
 
+import javax.inject.Inject;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * SupervisorActor is responsible for managing child actors such as UserActor, ReadabilityActor, and ChannelProfileActor.
  * It handles the creation of actors and forwards messages to the appropriate child actors.
  *
+ * <p>The UserActors are kept per session in a bounded registry, and serve whichever WebSocket the
+ * session attaches to them. A UserActor left idle for the idle timeout asks to be passivated and is
+ * stopped; when the registry is full, its least recently used UserActor is stopped to make room.
+ * They are stopped with a {@link PoisonPill} sent after they leave the registry, so the messages
+ * already sent to them are still handled, and a later request for the same session starts a new
+ * one. UserActors that stop for any other reason are dropped from the registry when their
+ * {@link Terminated} arrives.</p>
+ *
+ * <p>The stateless work (word statistics, channel profiles, readability and sentiment scoring)
+ * goes to one router pool per kind, configured in {@code tubelytics.actors.pools}, instead of one
+ * actor per query or channel.</p>
+ *
+ * <p>With {@code tubelytics.cluster.enabled}, the QueryHub and the UserActors of the sessions are
+ * sharded over the cluster instead, see {@link ShardingSettings}, and sharding passivates the idle
+ * UserActors in place of the registry. A node hosts its part of the shards from its first session.</p>
+ *
  * <p>Author: Saranraj Sivakumar 40306771</p>
  * <p>Author: Priyadarshine Kumar 40293041</p>
  */
 public class SupervisorActor extends AbstractActor {
 
-    private final Map<String, ActorRef> userActors = new HashMap<>();
-    private final Map<String, ActorRef> readabilityActors = new HashMap<>();
-    private final Map<String, ActorRef> channelProfileActors = new HashMap<>();
-    private final Map<String, ActorRef> wordStatsActor = new HashMap<>();
+    public static final java.time.Duration DEFAULT_IDLE_TIMEOUT = java.time.Duration.ofMinutes(10);
+    public static final int DEFAULT_MAX_CHILDREN = 1000;
+
+    public static final String WORD_STATS_POOL = "word-stats";
+    public static final String CHANNEL_PROFILE_POOL = "channel-profile";
+    public static final String READABILITY_POOL = "readability";
+    public static final String SENTIMENT_POOL = "sentiment";
+    /** Keyed work is hashed to keep a query or channel on one routee, scoring goes to the least busy one */
+    public static final Map<String, PoolSettings> DEFAULT_POOLS = Map.of(
+            WORD_STATS_POOL, new PoolSettings(PoolSettings.Routing.CONSISTENT_HASHING, PoolSettings.CORES),
+            CHANNEL_PROFILE_POOL, new PoolSettings(PoolSettings.Routing.CONSISTENT_HASHING, PoolSettings.CORES),
+            READABILITY_POOL, new PoolSettings(PoolSettings.Routing.SMALLEST_MAILBOX, PoolSettings.CORES),
+            SENTIMENT_POOL, new PoolSettings(PoolSettings.Routing.SMALLEST_MAILBOX, PoolSettings.CORES));
+
+    private final ChildRegistry userActors;
+    private final Map<ActorRef, ChildRegistry> liveChildren = new HashMap<>();
+    private final java.time.Duration livePollInterval;
+    private final int liveSubscriberBuffer;
+    private final Semaphore livePollerSlots;
+    private final java.time.Duration idleTimeout;
+    private final Map<String, PoolSettings> pools;
+    private final ShardingSettings sharding;
+    private final Supplier<SentimentLexicon> sentimentLexicon;
+    private ActorRef queryHub;
+    private ActorRef userActorRegion;
+    private ActorRef wordStatsPool;
+    private ActorRef channelProfilePool;
+    private ActorRef readabilityPool;
+    private ActorRef sentimentPool;
+    private long childrenStarted;
 
     /**
      * Factory method to create Props for SupervisorActor.
@@ -37,6 +94,128 @@ public class SupervisorActor extends AbstractActor {
         return Props.create(SupervisorActor.class);
     }
 
+    /**
+     * Factory method to create Props for a SupervisorActor with the given child limits.
+     *
+     * @param idleTimeout How long a child may go without a message before it is passivated
+     * @param maxChildren The most children kept in each registry
+     * @param actorMetrics The counts of the children, reported by the metrics endpoint
+     * @return A Props instance for SupervisorActor
+     */
+    public static Props props(java.time.Duration idleTimeout, int maxChildren, ActorMetrics actorMetrics) {
+        return Props.create(SupervisorActor.class, () -> new SupervisorActor(QueryHub.DEFAULT_POLL_INTERVAL,
+                QueryHub.DEFAULT_SUBSCRIBER_BUFFER, idleTimeout, maxChildren, actorMetrics, DEFAULT_POOLS));
+    }
+
+    /**
+     * Constructor to initialize the SupervisorActor with the default live update settings and child limits.
+     */
+    public SupervisorActor() {
+        this(QueryHub.DEFAULT_POLL_INTERVAL, QueryHub.DEFAULT_SUBSCRIBER_BUFFER);
+    }
+
+    /**
+     * Constructor used by Guice, reading the live update settings, child limits and pools from application.conf.
+     *
+     * @param config The application configuration
+     * @param actorMetrics The counts of the children, reported by the metrics endpoint
+     * @param lexiconStore The sentiment lexicon, reloaded whenever its file changes
+     */
+    @Inject
+    public SupervisorActor(Config config, ActorMetrics actorMetrics, LexiconStore lexiconStore) {
+        this(config.getDuration("tubelytics.live.poll-interval"), config.getInt("tubelytics.live.subscriber-buffer"),
+                config.getDuration("tubelytics.actors.idle-timeout"), config.getInt("tubelytics.actors.max-children"),
+                actorMetrics, PoolSettings.fromConfig(config.getConfig("tubelytics.actors.pools")),
+                ShardingSettings.fromConfig(config.getConfig("tubelytics.cluster")), lexiconStore,
+                config.getInt("tubelytics.live.max-pollers"));
+    }
+
+    /**
+     * @param livePollInterval How often the queries users watch are polled for new videos
+     * @param liveSubscriberBuffer The most live updates kept for a session that is behind
+     */
+    public SupervisorActor(java.time.Duration livePollInterval, int liveSubscriberBuffer) {
+        this(livePollInterval, liveSubscriberBuffer, DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_CHILDREN, new ActorMetrics(), DEFAULT_POOLS);
+    }
+
+    /**
+     * @param livePollInterval How often the queries users watch are polled for new videos
+     * @param liveSubscriberBuffer The most live updates kept for a session that is behind
+     * @param idleTimeout How long a child may go without a message before it is passivated
+     * @param maxChildren The most children kept in each registry
+     * @param actorMetrics The counts of the children, reported by the metrics endpoint
+     * @param pools The settings of the word statistics, channel profile, readability and sentiment pools by name;
+     *              a pool missing from the map gets its {@link #DEFAULT_POOLS} settings
+     */
+    public SupervisorActor(java.time.Duration livePollInterval, int liveSubscriberBuffer,
+                           java.time.Duration idleTimeout, int maxChildren, ActorMetrics actorMetrics,
+                           Map<String, PoolSettings> pools) {
+        this(livePollInterval, liveSubscriberBuffer, idleTimeout, maxChildren, actorMetrics, pools, ShardingSettings.DISABLED);
+    }
+
+    /**
+     * @param livePollInterval How often the queries users watch are polled for new videos
+     * @param liveSubscriberBuffer The most live updates kept for a session that is behind
+     * @param idleTimeout How long a child may go without a message before it is passivated
+     * @param maxChildren The most children kept in each registry
+     * @param actorMetrics The counts of the children, reported by the metrics endpoint
+     * @param pools The settings of the word statistics, channel profile, readability and sentiment pools by name;
+     *              a pool missing from the map gets its {@link #DEFAULT_POOLS} settings
+     * @param sharding Whether the QueryHub and the UserActors are sharded over the cluster
+     */
+    public SupervisorActor(java.time.Duration livePollInterval, int liveSubscriberBuffer,
+                           java.time.Duration idleTimeout, int maxChildren, ActorMetrics actorMetrics,
+                           Map<String, PoolSettings> pools, ShardingSettings sharding) {
+        this(livePollInterval, liveSubscriberBuffer, idleTimeout, maxChildren, actorMetrics, pools, sharding,
+                SentimentLexicon::builtIn);
+    }
+
+    /**
+     * @param livePollInterval How often the queries users watch are polled for new videos
+     * @param liveSubscriberBuffer The most live updates kept for a session that is behind
+     * @param idleTimeout How long a child may go without a message before it is passivated
+     * @param maxChildren The most children kept in each registry
+     * @param actorMetrics The counts of the children, reported by the metrics endpoint
+     * @param pools The settings of the word statistics, channel profile, readability and sentiment pools by name;
+     *              a pool missing from the map gets its {@link #DEFAULT_POOLS} settings
+     * @param sharding Whether the QueryHub and the UserActors are sharded over the cluster
+     * @param sentimentLexicon Supplies the current lexicon of the sentiment pool
+     */
+    public SupervisorActor(java.time.Duration livePollInterval, int liveSubscriberBuffer,
+                           java.time.Duration idleTimeout, int maxChildren, ActorMetrics actorMetrics,
+                           Map<String, PoolSettings> pools, ShardingSettings sharding,
+                           Supplier<SentimentLexicon> sentimentLexicon) {
+        this(livePollInterval, liveSubscriberBuffer, idleTimeout, maxChildren, actorMetrics, pools, sharding,
+                sentimentLexicon, QueryHub.DEFAULT_MAX_POLLERS);
+    }
+
+    /**
+     * @param livePollInterval How often the queries users watch are polled for new videos
+     * @param liveSubscriberBuffer The most live updates kept for a session that is behind
+     * @param idleTimeout How long a child may go without a message before it is passivated
+     * @param maxChildren The most children kept in each registry
+     * @param actorMetrics The counts of the children, reported by the metrics endpoint
+     * @param pools The settings of the word statistics, channel profile, readability and sentiment pools by name;
+     *              a pool missing from the map gets its {@link #DEFAULT_POOLS} settings
+     * @param sharding Whether the QueryHub and the UserActors are sharded over the cluster
+     * @param sentimentLexicon Supplies the current lexicon of the sentiment pool
+     * @param maxLivePollers The most queries polled for new videos at once on this node
+     */
+    public SupervisorActor(java.time.Duration livePollInterval, int liveSubscriberBuffer,
+                           java.time.Duration idleTimeout, int maxChildren, ActorMetrics actorMetrics,
+                           Map<String, PoolSettings> pools, ShardingSettings sharding,
+                           Supplier<SentimentLexicon> sentimentLexicon, int maxLivePollers) {
+        this.livePollInterval = livePollInterval;
+        this.liveSubscriberBuffer = liveSubscriberBuffer;
+        this.livePollerSlots = new Semaphore(maxLivePollers);
+        this.idleTimeout = idleTimeout;
+        this.userActors = new ChildRegistry("userActor", maxChildren, actorMetrics);
+        this.pools = new HashMap<>(DEFAULT_POOLS);
+        this.pools.putAll(pools);
+        this.sharding = sharding;
+        this.sentimentLexicon = sentimentLexicon;
+    }
+
     @Override
     public Receive createReceive() {
         return receiveBuilder()
@@ -46,10 +225,25 @@ public class SupervisorActor extends AbstractActor {
                 .match(ChannelProfileActor.ChannelProfileResponse.class, this::handleChannelProfileResponse)
 
                 .match(WordStatsActor.WordStatsResponse.class, this::handleWordStatsResponse)
+                .match(QueryHub.Subscribe.class, this::forwardToQueryHub)
+                .match(QueryHub.Unsubscribe.class, this::forwardToQueryHub)
+                .match(SearchPage.class, this::forwardToScoringPools)
+                .match(Passivate.class, message -> handlePassivate(getSender()))
+                .match(ShardRegion.StartEntityAck.class, ack -> { })
+                .match(Terminated.class, terminated -> handleTerminated(terminated.getActor()))
                 .matchAny(message -> getSender().tell("Unhandled message", getSelf()))
                 .build();
     }
 
+    /**
+     * Asks the parent of an idle child to passivate it. Called by the children on {@code ReceiveTimeout}.
+     *
+     * @param context The context of the idle child
+     */
+    static void passivate(ActorContext context) {
+        context.getParent().tell(Passivate.INSTANCE, context.getSelf());
+    }
+
     /**
      * Handles the creation of a UserActor for the given session.
      *
@@ -59,18 +253,31 @@ public class SupervisorActor extends AbstractActor {
         try {
             String sessionId = message.sessionId;
 
-            // Create or retrieve the ReadabilityActor for this session
-            ActorRef readabilityActor = readabilityActors.computeIfAbsent(sessionId, id ->
-                    getContext().actorOf(ReadabilityActor.props(getSelf()), "readabilityActor-" + id)
-            );
+            // All sessions share one QueryHub, so a query is polled once however many users watch it
+            if (queryHub == null) {
+                queryHub = sharding.isEnabled()
+                        ? sharding.startQueryHubs(getContext().getSystem(), pinned(
+                                QueryHub.entityProps(message.youTubeService, livePollInterval, liveSubscriberBuffer, livePollerSlots),
+                                ActorDispatchers.WEBSOCKET))
+                        : getContext().actorOf(pinned(
+                                QueryHub.props(message.youTubeService, livePollInterval, liveSubscriberBuffer, livePollerSlots),
+                                ActorDispatchers.WEBSOCKET), "queryHub");
+            }
 
-            // Create or retrieve the UserActor for this session
-            ActorRef userActor = userActors.computeIfAbsent(sessionId, id ->
-                    getContext().actorOf(
-                            UserActor.props(message.out, message.youTubeService, message.sessionManager, message.session, readabilityActor),
-                            "userActor-" + id
-                    )
+            if (sharding.isEnabled()) {
+                startShardedUserActor(sessionId, message);
+                return;
+            }
+
+            // Create or retrieve the UserActor for this session; its pages are scored by the pools of this actor
+            ActorRef userActor = getOrCreate(userActors, sessionId, () -> pinned(
+                    UserActor.props(message.out, message.youTubeService, message.sessionManager, message.session,
+                            getSelf(), queryHub, idleTimeout), ActorDispatchers.WEBSOCKET)
             );
+            // A session's UserActor outlives its sockets, so a reconnecting session attaches its new one
+            if (message.out != null) {
+                userActor.tell(message.connect(), getSelf());
+            }
 
             // Send the UserActor reference back to the sender
             getSender().tell(userActor, getSelf());
@@ -79,6 +286,130 @@ public class SupervisorActor extends AbstractActor {
         }
     }
 
+    /**
+     * Starts the UserActor of a session in the sharded region, on whichever node owns the session, and
+     * attaches the WebSocket of the message to it. The session is then reached through the region, which
+     * is sent back in place of the UserActor and routes every {@link UserActor.SessionMessage} by session ID.
+     *
+     * @param sessionId The session ID
+     * @param message The message containing the dependencies of the UserActors
+     */
+    private void startShardedUserActor(String sessionId, CreateUserActorMessage message) {
+        if (userActorRegion == null) {
+            // The socket and the HTTP session are attached by each session's Connect, wherever its actor runs
+            userActorRegion = sharding.startUserActors(getContext().getSystem(), pinned(
+                    UserActor.props(null, message.youTubeService, message.sessionManager, null, getSelf(), queryHub),
+                    ActorDispatchers.WEBSOCKET), idleTimeout);
+        }
+        if (message.out != null) {
+            userActorRegion.tell(message.connect(), getSelf());
+        } else {
+            userActorRegion.tell(new ShardRegion.StartEntity(sessionId), getSelf());
+        }
+        getSender().tell(userActorRegion, getSelf());
+    }
+
+    /**
+     * Starts the readability and sentiment pools, which need nothing but their settings.
+     * Their routees score on the analytics dispatcher, away from the WebSockets.
+     */
+    @Override
+    public void preStart() {
+        readabilityPool = getContext().actorOf(pools.get(READABILITY_POOL)
+                .props(pinned(ReadabilityActor.props(), ActorDispatchers.ANALYTICS)), "readabilityPool");
+        sentimentPool = getContext().actorOf(pools.get(SENTIMENT_POOL)
+                .props(pinned(SentimentActor.props(sentimentLexicon), ActorDispatchers.ANALYTICS)), "sentimentPool");
+    }
+
+    /**
+     * Pins the Props of a child to one of the dispatchers of application.conf.
+     *
+     * @param props The Props of the child
+     * @param dispatcher The ID of the dispatcher, one of {@link ActorDispatchers}
+     * @return The Props running on the dispatcher, or on the default one if it is not configured
+     */
+    private Props pinned(Props props, String dispatcher) {
+        return ActorDispatchers.pinned(getContext().getSystem(), props, dispatcher);
+    }
+
+    /**
+     * Forwards a page to the readability and sentiment pools, which reply to the sender of the page.
+     *
+     * @param page The page of a search, sent by a UserActor
+     */
+    private void forwardToScoringPools(SearchPage page) {
+        readabilityPool.forward(page, getContext());
+        sentimentPool.forward(page, getContext());
+    }
+
+    /**
+     * Returns the child of a key, starting it if the registry has none. Starting a child in a full
+     * registry stops the least recently used one.
+     *
+     * @param registry The registry of the kind of child
+     * @param key The session ID, channel ID or query the child serves
+     * @param props Creates the Props of the child, only called if it has to be started
+     * @return The child serving the key
+     */
+    private ActorRef getOrCreate(ChildRegistry registry, String key, java.util.function.Supplier<Props> props) {
+        ActorRef child = registry.get(key);
+        if (child != null) {
+            return child;
+        }
+        // A passivated child may still be stopping under its name, so every child gets a name of its own
+        child = getContext().actorOf(props.get(),
+                registry.name + "-" + URLEncoder.encode(key, StandardCharsets.UTF_8) + "-" + (++childrenStarted));
+        getContext().watch(child);
+        liveChildren.put(child, registry);
+        registry.metrics.created();
+
+        ActorRef evicted = registry.put(key, child);
+        if (evicted != null) {
+            registry.metrics.evicted();
+            evicted.tell(PoisonPill.getInstance(), getSelf());
+        }
+        return child;
+    }
+
+    /**
+     * Stops an idle child, unless it already left its registry.
+     *
+     * @param child The child asking to be passivated
+     */
+    private void handlePassivate(ActorRef child) {
+        ChildRegistry registry = liveChildren.get(child);
+        if (registry != null && registry.remove(child)) {
+            registry.metrics.passivated();
+            // Sent after every message routed to the child so far, so none of them is lost
+            child.tell(PoisonPill.getInstance(), getSelf());
+        }
+    }
+
+    /**
+     * Forgets a child that has stopped.
+     *
+     * @param child The terminated child
+     */
+    private void handleTerminated(ActorRef child) {
+        ChildRegistry registry = liveChildren.remove(child);
+        if (registry != null) {
+            registry.remove(child);
+            registry.metrics.terminated();
+        }
+    }
+
+    /**
+     * Forwards a Subscribe or Unsubscribe message from a UserActor to the QueryHub.
+     * The QueryHub is created with the first session, so there is nothing to forward to before.
+     *
+     * @param message The Subscribe or Unsubscribe message
+     */
+    private void forwardToQueryHub(Object message) {
+        if (queryHub != null) {
+            queryHub.forward(message, getContext());
+        }
+    }
+
     /**
      * Handles a request to fetch channel profile information by delegating the task to ChannelProfileActor.
      *
@@ -88,13 +419,16 @@ public class SupervisorActor extends AbstractActor {
         try {
             String channelId = message.channelId;
 
-            // Create or retrieve the ChannelProfileActor for this channel
-            ActorRef channelProfileActor = channelProfileActors.computeIfAbsent(channelId, id ->
-                    getContext().actorOf(ChannelProfileActor.props(message.youTubeService), "channelProfileActor-" + id)
-            );
+            // The pool is started with the first request, which brings the YouTubeService
+            if (channelProfilePool == null) {
+                channelProfilePool = getContext().actorOf(
+                        pools.get(CHANNEL_PROFILE_POOL)
+                                .props(pinned(ChannelProfileActor.props(message.youTubeService), ActorDispatchers.IO)),
+                        "channelProfilePool");
+            }
 
-            // Forward the FetchChannelProfile message with the original sender
-            channelProfileActor.tell(new ChannelProfileActor.FetchChannelProfile(channelId, getSender()), getSelf());
+            // Forward the FetchChannelProfile message with the original sender, routed by the channel ID
+            channelProfilePool.tell(new ChannelProfileActor.FetchChannelProfile(channelId, getSender()), getSelf());
         } catch (Exception e) {
             getSender().tell(new Status.Failure(e), getSelf());
         }
@@ -104,13 +438,15 @@ public class SupervisorActor extends AbstractActor {
         try {
             String query = message.query;
 
-            // Create or retrieve the ChannelProfileActor for this channel
-            ActorRef WordStatsActor = wordStatsActor.computeIfAbsent(query, id ->
-                    getContext().actorOf(actors.WordStatsActor.props(message.youTubeService), "wordStatsActor-" + id)
-            );
+            // The pool is started with the first request, which brings the YouTubeService
+            if (wordStatsPool == null) {
+                wordStatsPool = getContext().actorOf(
+                        pools.get(WORD_STATS_POOL).props(pinned(WordStatsActor.props(message.youTubeService), ActorDispatchers.IO)),
+                        "wordStatsPool");
+            }
 
-            // Forward the FetchChannelProfile message with the original sender
-            WordStatsActor.tell(new WordStatsActor.FetchWordStatsResponse(query, getSender()), getSelf());
+            // Forward the FetchWordStatsResponse message with the original sender, routed by the normalized query
+            wordStatsPool.tell(new WordStatsActor.FetchWordStatsResponse(query, getSender()), getSelf());
         } catch (Exception e) {
             getSender().tell(new Status.Failure(e), getSelf());
         }
@@ -157,16 +493,76 @@ public class SupervisorActor extends AbstractActor {
         );
     }
 
-    @Override
-    public void preStart() {
-        // Lifecycle log for preStart
-    }
-
     @Override
     public void postStop() {
         // Lifecycle log for postStop
     }
 
+    /**
+     * The children of one kind by key, least recently used first, bounded in size.
+     */
+    private static final class ChildRegistry {
+        final String name;
+        final ActorMetrics.Registry metrics;
+        private final int maxSize;
+        private final LinkedHashMap<String, ActorRef> children = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<ActorRef, String> keys = new HashMap<>();
+
+        ChildRegistry(String name, int maxSize, ActorMetrics actorMetrics) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.metrics = actorMetrics.registry(name);
+        }
+
+        /**
+         * @return The child of the key, now the most recently used, or null if there is none
+         */
+        ActorRef get(String key) {
+            return children.get(key);
+        }
+
+        /**
+         * Adds a child, removing the least recently used one if the registry is over its bound.
+         *
+         * @return The child removed to make room, or null
+         */
+        ActorRef put(String key, ActorRef child) {
+            children.put(key, child);
+            keys.put(child, key);
+            if (children.size() <= maxSize) {
+                return null;
+            }
+            Iterator<Map.Entry<String, ActorRef>> eldest = children.entrySet().iterator();
+            ActorRef evicted = eldest.next().getValue();
+            eldest.remove();
+            keys.remove(evicted);
+            return evicted;
+        }
+
+        /**
+         * @return Whether the child was still in the registry
+         */
+        boolean remove(ActorRef child) {
+            String key = keys.remove(child);
+            if (key == null) {
+                return false;
+            }
+            children.remove(key);
+            return true;
+        }
+    }
+
+    /**
+     * Sent by an idle child to ask to be stopped. A child asks again after every idle timeout
+     * until it is stopped, so a request that is ignored costs nothing.
+     */
+    public static final class Passivate {
+        public static final Passivate INSTANCE = new Passivate();
+
+        private Passivate() {
+        }
+    }
+
     /**
      * Message class for creating a UserActor.
      */
@@ -191,6 +587,13 @@ public class SupervisorActor extends AbstractActor {
             this.sessionManager = sessionManager;
             this.session = session;
         }
+
+        /**
+         * @return The message attaching the WebSocket of this message to the session's UserActor
+         */
+        UserActor.Connect connect() {
+            return new UserActor.Connect(sessionId, out, session != null ? session.data() : Map.of());
+        }
     }
 
     /**
@@ -1,37 +1,69 @@
 package actors;
 
+import akka.Done;
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.actor.ReceiveTimeout;
+import akka.actor.Status;
+import akka.pattern.Patterns;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import models.SearchPage;
+import models.VideoSummary;
 import models.YouTubeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import play.libs.Json;
 import play.mvc.Http;
+import utils.SeenIdSet;
 import utils.SessionManager;
 
-import java.util.HashSet;
+import java.time.Duration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 /**
  * UserActor is responsible for handling user-specific operations, such as searching for videos on YouTube,
  * managing session data, and processing readability scores for the search results.
- * It communicates with YouTubeService to fetch video details and ReadabilityActor to calculate readability scores.
+ * It communicates with YouTubeService to fetch video details, and sends each page to an analysis actor, usually the
+ * SupervisorActor routing it to its readability and sentiment pools, which reply to this actor.
+ * Queries searched in live mode, with {@code "live": true}, are subscribed to at the QueryHub, and videos
+ * that appear later are pushed to the client as they are found; videos the session has already been sent
+ * are never sent again. Live mode is opt-in per search since every watched query is polled from the API quota.
+ *
+ * <p>A UserActor serves a session rather than one WebSocket: the socket of the session attaches itself with
+ * {@link Connect}, sends the client's requests as {@link ClientMessage}s and leaves with {@link Disconnect}.
+ * The latest socket to connect is sent the results; while none is connected they are dropped, and the
+ * queries are no longer watched, until the actor is passivated or the session connects again.</p>
  *
  * <p>Author: Priyadarshine Kumar 40293041</p>
  */
 public class UserActor extends AbstractActor {
 
-    private final Http.Session session;
-    private final ActorRef out;
+    private static final Logger LOG = LoggerFactory.getLogger(UserActor.class);
+
+    /** The number of most recent queries the client shows, and so the most watched for new videos */
+    public static final int MAX_WATCHED_QUERIES = 10;
+
+    private Http.Session session;
+    private ActorRef out;
     private final YouTubeService youTubeService;
     private final SessionManager sessionManager;
-    private final Set<String> fetchedVideoIds = new HashSet<>();
+    private final SeenIdSet fetchedVideoIds = new SeenIdSet();
+    private final Set<String> watchedQueries = new LinkedHashSet<>();
     private boolean isFirstSearch = true;
 
-    // Add ReadabilityActor to be passed as part of UserActor props
-    private final ActorRef readabilityActor;
-    private final ActorRef sentimentActor;
+    // Scores the readability and sentiment of the pages
+    private final ActorRef analysisActor;
+    private final ActorRef queryHub;
+    private final Duration idleTimeout;
 
     /**
      * Factory method to create the UserActor with the required parameters.
@@ -40,11 +72,30 @@ public class UserActor extends AbstractActor {
      * @param youTubeService The YouTubeService instance for interacting with YouTube
      * @param sessionManager The SessionManager instance for managing session data
      * @param session The HTTP session for the user
-     * @param readabilityActor The ReadabilityActor instance for processing video descriptions
+     * @param analysisActor The actor scoring the readability and sentiment of the pages, usually the SupervisorActor
+     * @param queryHub The QueryHub publishing new videos of the queries the user watches
+     * @return A Props instance for creating the UserActor
+     */
+    public static Props props(ActorRef out, YouTubeService youTubeService, SessionManager sessionManager, Http.Session session,
+                              ActorRef analysisActor, ActorRef queryHub) {
+        return Props.create(UserActor.class, () -> new UserActor(out, youTubeService, sessionManager, session, analysisActor, queryHub, null));
+    }
+
+    /**
+     * Factory method to create a UserActor that asks its parent to stop it once idle.
+     *
+     * @param out The ActorRef to send messages back to the client
+     * @param youTubeService The YouTubeService instance for interacting with YouTube
+     * @param sessionManager The SessionManager instance for managing session data
+     * @param session The HTTP session for the user
+     * @param analysisActor The actor scoring the readability and sentiment of the pages, usually the SupervisorActor
+     * @param queryHub The QueryHub publishing new videos of the queries the user watches
+     * @param idleTimeout How long the actor may go without a message before it is passivated
      * @return A Props instance for creating the UserActor
      */
-    public static Props props(ActorRef out, YouTubeService youTubeService, SessionManager sessionManager, Http.Session session, ActorRef readabilityActor) {
-        return Props.create(UserActor.class, () -> new UserActor(out, youTubeService, sessionManager, session, readabilityActor));
+    public static Props props(ActorRef out, YouTubeService youTubeService, SessionManager sessionManager, Http.Session session,
+                              ActorRef analysisActor, ActorRef queryHub, Duration idleTimeout) {
+        return Props.create(UserActor.class, () -> new UserActor(out, youTubeService, sessionManager, session, analysisActor, queryHub, idleTimeout));
     }
 
     /**
@@ -54,15 +105,37 @@ public class UserActor extends AbstractActor {
      * @param youTubeService The YouTubeService instance for interacting with YouTube
      * @param sessionManager The SessionManager instance for managing session data
      * @param session The HTTP session for the user
-     * @param readabilityActor The ReadabilityActor instance for processing video descriptions
+     * @param analysisActor The actor scoring the readability and sentiment of the pages, usually the SupervisorActor
+     * @param queryHub The QueryHub publishing new videos of the queries the user watches
+     * @param idleTimeout How long the actor may go without a message before it is passivated, or null to keep it
      */
-    private UserActor(ActorRef out, YouTubeService youTubeService, SessionManager sessionManager, Http.Session session, ActorRef readabilityActor) {
+    private UserActor(ActorRef out, YouTubeService youTubeService, SessionManager sessionManager, Http.Session session,
+                      ActorRef analysisActor, ActorRef queryHub, Duration idleTimeout) {
         this.out = out;
         this.youTubeService = youTubeService;
         this.sessionManager = sessionManager;
-        this.session = session;
-        this.readabilityActor = readabilityActor; // Initialize ReadabilityActor
-        this.sentimentActor = getContext().actorOf(Props.create(SentimentActor.class), "sentimentActor");
+        // A session's actor started without one gets the HTTP session with the first socket to connect
+        this.session = session != null ? session : new Http.Session(Map.of());
+        this.analysisActor = analysisActor;
+        this.queryHub = queryHub;
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public void preStart() {
+        if (idleTimeout != null) {
+            getContext().setReceiveTimeout(idleTimeout);
+        }
+    }
+
+    /**
+     * Closes the socket still attached when the actor is stopped, so the client's next search opens a new one.
+     */
+    @Override
+    public void postStop() {
+        if (out != null) {
+            out.tell(new Status.Success(Done.getInstance()), self());
+        }
     }
 
 
@@ -76,62 +149,196 @@ public class UserActor extends AbstractActor {
     @Override
     public Receive createReceive() {
         return receiveBuilder()
-                .match(JsonNode.class, message -> {
-                    if (message.has("type") && "search".equals(message.get("type").asText())) {
-                        String query = message.get("query").asText();
-                        handleSearch(query);
-                    }
-                    // Handle readability response
-                    if (message.has("fkGrade") && message.has("readingEase")) {
-                        // Update the item with readability scores
-                        handleReadabilityScores(message);
-                    }
+                .match(JsonNode.class, this::handleClientMessage)
+                .match(ClientMessage.class, message -> handleClientMessage(message.message))
+                .match(Connect.class, this::handleConnect)
+                .match(Disconnect.class, this::handleDisconnect)
+                .match(SearchResult.class, result -> handleSearchPage(result.page, result.live))
+                .match(ReadabilityActor.PageReadability.class, this::handlePageReadability)
+                .match(SentimentActor.PageSentiment.class, this::handlePageSentiment)
+                .match(QueryHub.LiveResults.class, this::handleLiveResults)
+                .match(ReceiveTimeout.class, timeout -> SupervisorActor.passivate(getContext()))
+                .match(Status.Failure.class, failure -> {
+                    Throwable e = failure.cause();
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    send(Json.newObject().put("error", cause.getMessage()));
                 })
                 .build();
     }
 
+    /**
+     * Handles a message from the client: a search request, possibly in live mode, or readability scores.
+     *
+     * @param message The JSON message sent over the WebSocket
+     */
+    private void handleClientMessage(JsonNode message) {
+        if (message.has("type") && "search".equals(message.get("type").asText())) {
+            String query = message.get("query").asText();
+            handleSearch(query, message.path("live").asBoolean(false));
+        }
+        // Handle readability response
+        if (message.has("fkGrade") && message.has("readingEase")) {
+            // Update the item with readability scores
+            handleReadabilityScores(message);
+        }
+    }
+
+    /**
+     * Attaches the socket of the session, which from now on is sent the results in place of any earlier one.
+     *
+     * @param connect The socket and the HTTP session it was opened with
+     */
+    private void handleConnect(Connect connect) {
+        if (out != null && !out.equals(connect.out)) {
+            out.tell(new Status.Success(Done.getInstance()), self());
+        }
+        out = connect.out;
+        session = new Http.Session(connect.session);
+    }
+
+    /**
+     * Detaches the socket of the session if it is still the attached one, and stops watching its queries,
+     * so that nothing is polled for a session no one is looking at.
+     *
+     * @param disconnect The socket that closed
+     */
+    private void handleDisconnect(Disconnect disconnect) {
+        if (out == null || !out.equals(disconnect.out)) {
+            return;
+        }
+        out = null;
+        for (String query : watchedQueries) {
+            queryHub.tell(new QueryHub.Unsubscribe(query, self()), self());
+        }
+        watchedQueries.clear();
+    }
+
+    /**
+     * Sends a frame to the attached socket, if there is one.
+     *
+     * @param frame The JSON frame
+     */
+    private void send(JsonNode frame) {
+        if (out != null) {
+            out.tell(frame, self());
+        }
+    }
+
     /**
      * Handles the search request by performing a YouTube search using the provided query.
-     * It processes the results, sends descriptions to the ReadabilityActor, and responds back to the client.
+     * The resulting page, or the failure, is sent back to this actor.
      *
      * @param query The search query to be used for fetching videos from YouTube
+     * @param live Whether the query is then watched for new videos
      */
-    private void handleSearch(String query) {
+    private void handleSearch(String query, boolean live) {
         // Update session data using SessionManager
         String updatedSessionData = sessionManager.prepareSessionData(session, query);
-        System.out.println("Updated session data: " + updatedSessionData + " | Added query: " + query);
-
-        // Perform YouTube search
-        youTubeService.fetchVideos(query, 10).thenAccept(results -> {
-            if (results != null && results.has("items")) {
-                JsonNode items = results.get("items");
-
-                // Extract descriptions from video items
-                List<String> descriptions = items.findValuesAsText("description");
-
-                // Send descriptions to ReadabilityActor for processing
-                readabilityActor.tell(descriptions, self());
-                sentimentActor.tell(descriptions, self());
-                // Filter for unique video results
-                items.forEach(item -> {
-                    String videoId = item.path("id").path("videoId").asText();
-                    if (!fetchedVideoIds.contains(videoId)) {
-                        fetchedVideoIds.add(videoId);
-                    }
-                });
-
-                // Send the initial response back to the client
-                JsonNode response = Json.newObject()
-                        .put("firstResponse", isFirstSearch)
-                        .put("query", query)
-                        .set("items", items);
-
-                isFirstSearch = false;
-                out.tell(response, self());
-            }
-        }).exceptionally(e -> {
-            out.tell(Json.newObject().put("error", e.getMessage()), self());
-            return null;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Search query={} history={}", query, updatedSessionData);
+        }
+
+        // Perform YouTube search; the page comes back to this actor so the session state is only touched here
+        Patterns.pipe(youTubeService.fetchSearchPage(query, 10).thenApply(page -> new SearchResult(page, live)),
+                        getContext().getDispatcher())
+                .to(self());
+    }
+
+    /**
+     * Handles the page of a search: shares it with the analysis actor, responds back
+     * to the client and, in live mode, starts watching the query for new videos.
+     *
+     * @param page The page of videos matching the query
+     * @param live Whether the client asked for new videos of the query to be pushed
+     */
+    private void handleSearchPage(SearchPage page, boolean live) {
+        String query = page.getQuery();
+
+        // Share the immutable page for readability and sentiment scoring instead of copying its descriptions out
+        analysisActor.tell(page, self());
+
+        // Remember the videos sent, so live updates only push new ones
+        for (VideoSummary video : page.getVideos()) {
+            fetchedVideoIds.add(video.getVideoId());
+        }
+
+        // Send the initial response back to the client
+        JsonNode response = Json.newObject()
+                .put("firstResponse", isFirstSearch)
+                .put("query", query)
+                .set("items", page.itemsToJson());
+
+        isFirstSearch = false;
+        send(response);
+
+        pushStatistics(query, page);
+        if (live) {
+            watch(query);
+        }
+    }
+
+    /**
+     * Watches the query for new videos. Only the latest {@value #MAX_WATCHED_QUERIES} queries are watched,
+     * as many as the client shows.
+     *
+     * @param query The search query
+     */
+    private void watch(String query) {
+        // Track the normalized query, as the hub does, so two spellings of a search count once
+        String key = QueryHub.key(query);
+        watchedQueries.remove(key);
+        watchedQueries.add(key);
+        queryHub.tell(new QueryHub.Subscribe(query, self()), self());
+        if (watchedQueries.size() > MAX_WATCHED_QUERIES) {
+            String oldest = watchedQueries.iterator().next();
+            watchedQueries.remove(oldest);
+            queryHub.tell(new QueryHub.Unsubscribe(oldest, self()), self());
+        }
+    }
+
+    /**
+     * Sends the videos of a live update the client has not been sent yet, if there are any,
+     * and acknowledges the update so the hub sends the next one. Live updates come without statistics:
+     * fetching them for every update would spend a {@code videos.list} call per watched query and poll.
+     *
+     * @param update The latest page of a watched query
+     */
+    private void handleLiveResults(QueryHub.LiveResults update) {
+        getSender().tell(QueryHub.Ack.INSTANCE, self());
+        List<VideoSummary> newVideos = update.page.getVideos().stream()
+                .filter(video -> fetchedVideoIds.add(video.getVideoId()))
+                .collect(Collectors.toList());
+        if (newVideos.isEmpty()) {
+            return;
+        }
+        SearchPage delta = new SearchPage(update.page.getQuery(), newVideos, null);
+        JsonNode response = Json.newObject()
+                .put("live", true)
+                .put("query", delta.getQuery())
+                .set("items", delta.itemsToJson());
+        send(response);
+    }
+
+    /**
+     * Fetches the statistics of the videos on the page and sends them to the client in a follow-up frame,
+     * so the results are shown without waiting for them. If they cannot be fetched, no frame is sent.
+     *
+     * @param query The search query of the page
+     * @param page The page of videos already sent to the client
+     */
+    private void pushStatistics(String query, SearchPage page) {
+        List<String> videoIds = page.getVideos().stream().map(VideoSummary::getVideoId).collect(Collectors.toList());
+        // The statistics arrive off the actor's thread, so they go to the socket attached now
+        ActorRef client = out;
+        if (client == null) {
+            return;
+        }
+        ActorRef self = self();
+        youTubeService.fetchVideoStatistics(videoIds).thenAccept(statistics -> {
+            ObjectNode response = Json.newObject().put("query", query);
+            ObjectNode byVideo = response.putObject("statistics");
+            statistics.forEach((videoId, video) -> byVideo.set(videoId, video.toJson()));
+            client.tell(response, self);
         });
     }
 
@@ -147,22 +354,132 @@ public class UserActor extends AbstractActor {
                 .put("readingEase", scores.get("readingEase").asDouble());
 
         // Add readability scores to the video items (can loop over the items to add to each)
-        out.tell(response, self());
+        send(response);
     }
 
     /**
-            * Handles the sentiment analysis scores and adds the sentiment result to the response.
+     * Sends the readability of a page to the client: the grades of each video and their average,
+     * shown in the header of the query.
      *
-             * @param sentiment The JsonNode containing the sentiment analysis result
+     * @param readability The scores of the videos of a page
      */
-    private void handleSentimentScores(JsonNode sentiment) {
-        System.out.println("Sentiment Scores: " + sentiment);
+    private void handlePageReadability(ReadabilityActor.PageReadability readability) {
+        ObjectNode response = Json.newObject()
+                .put("query", readability.query)
+                .put("avgFleschKincaidGrade", readability.average.getFkGrade())
+                .put("avgFleschReadingEase", readability.average.getReadingEase());
+        ObjectNode byVideo = response.putObject("readability");
+        readability.byVideo.forEach((videoId, score) -> byVideo.set(videoId, score.toJson()));
+        send(response);
+    }
+
+    /**
+     * Sends the sentiment of a page to the client: the score of each video, and the score and
+     * emoticon of the page, shown in the header of the query.
+     *
+     * @param sentiment The scores of the videos of a page
+     */
+    private void handlePageSentiment(SentimentActor.PageSentiment sentiment) {
+        ObjectNode response = Json.newObject()
+                .put("query", sentiment.query)
+                .put("averageSentiment", sentiment.finalSentiment)
+                .put("sentimentScore", sentiment.average);
+        ObjectNode byVideo = response.putObject("sentiment");
+        sentiment.byVideo.forEach(byVideo::put);
+        send(response);
+    }
 
-        // Create a combined response that includes both readability and sentiment data
-        JsonNode combinedResponse = Json.newObject()
-                .put("sentiment", sentiment.get("sentiment").asDouble()); // Assuming sentiment is a numeric value
+    /**
+     * A message for the UserActor of a session. When the UserActors are sharded, it is routed to the
+     * session's UserActor by its session ID, on whichever node that actor runs.
+     */
+    public interface SessionMessage extends ClusterSerializable {
+        String getSessionId();
+    }
+
+    /**
+     * Attaches the WebSocket of a session to its UserActor.
+     */
+    public static class Connect implements SessionMessage {
+        public final String sessionId;
+        public final ActorRef out;
+        public final Map<String, String> session;
+
+        /**
+         * @param sessionId The session ID
+         * @param out The ActorRef sending frames to the WebSocket
+         * @param session The data of the HTTP session the WebSocket was opened with
+         */
+        @JsonCreator
+        public Connect(@JsonProperty("sessionId") String sessionId, @JsonProperty("out") ActorRef out,
+                       @JsonProperty("session") Map<String, String> session) {
+            this.sessionId = sessionId;
+            this.out = out;
+            this.session = session != null ? session : Map.of();
+        }
+
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+    }
+
+    /**
+     * A message the client of a session sent over its WebSocket.
+     */
+    public static class ClientMessage implements SessionMessage {
+        public final String sessionId;
+        public final JsonNode message;
+
+        /**
+         * @param sessionId The session ID
+         * @param message The JSON message
+         */
+        @JsonCreator
+        public ClientMessage(@JsonProperty("sessionId") String sessionId, @JsonProperty("message") JsonNode message) {
+            this.sessionId = sessionId;
+            this.message = message;
+        }
+
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+    }
+
+    /**
+     * Sent when the WebSocket of a session closes.
+     */
+    public static class Disconnect implements SessionMessage {
+        public final String sessionId;
+        public final ActorRef out;
+
+        /**
+         * @param sessionId The session ID
+         * @param out The ActorRef that was sending frames to the closed WebSocket
+         */
+        @JsonCreator
+        public Disconnect(@JsonProperty("sessionId") String sessionId, @JsonProperty("out") ActorRef out) {
+            this.sessionId = sessionId;
+            this.out = out;
+        }
+
+        @Override
+        public String getSessionId() {
+            return sessionId;
+        }
+    }
+
+    /**
+     * The page of a search this actor performed, kept apart from pages shared with it by other actors.
+     */
+    private static class SearchResult {
+        final SearchPage page;
+        final boolean live;
 
-        // Send the combined response to the client
-        out.tell(combinedResponse, self());
+        SearchResult(SearchPage page, boolean live) {
+            this.page = page;
+            this.live = live;
+        }
     }
 }
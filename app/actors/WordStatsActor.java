@@ -3,13 +3,18 @@ package actors;
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.routing.ConsistentHashingRouter;
 import com.fasterxml.jackson.databind.JsonNode;
+import models.SearchPage;
 import models.YouTubeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.CanonicalRequest;
+import utils.QuotaScheduler;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import java.util.*;
-import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 
@@ -24,6 +29,8 @@ import java.util.concurrent.CompletionStage;
 
 public class WordStatsActor extends AbstractActor {
 
+    private static final Logger LOG = LoggerFactory.getLogger(WordStatsActor.class);
+
     // Instance of YouTubeService for API calls
     private final YouTubeService youTubeService;
 
@@ -63,14 +70,16 @@ public class WordStatsActor extends AbstractActor {
         String query = message.query;
         ActorRef originalSender = message.originalSender;
 
-        CompletionStage<JsonNode> videosStage = youTubeService.fetchVideos(query, 50);
-        videosStage.thenApply(videosResponse -> {
+        // Word statistics are batch work, so they may not spend the quota reserved for interactive searches
+        CompletionStage<SearchPage> videosStage = youTubeService.fetchSearchPage(query, 50, QuotaScheduler.Priority.BACKGROUND);
+        // The page arrives on an HTTP client thread; counting its words is CPU work for the analytics dispatcher
+        videosStage.thenApplyAsync(videosResponse -> {
                     if (videosResponse == null) {
                         return new WordStatsResponse(query, Collections.emptyMap(), originalSender);
                     }
                     Map<String, Long> wordCalculation = calculateWordFrequency(videosResponse);
                     return new WordStatsResponse(query, wordCalculation, originalSender);
-                })
+                }, ActorDispatchers.executor(getContext().getSystem(), ActorDispatchers.ANALYTICS))
                 .exceptionally(ex -> {
                     return new WordStatsResponse(query, Collections.emptyMap(), originalSender);
                 })
@@ -89,8 +98,9 @@ public class WordStatsActor extends AbstractActor {
 
     /**
      * Message class to request for word stat action on fetched videos.
+     * In a consistent-hashing pool, the requests for one query, however spelled, go to the same actor.
      */
-    public static class FetchWordStatsResponse {
+    public static class FetchWordStatsResponse implements ConsistentHashingRouter.ConsistentHashable {
         public final String query;
         public final ActorRef originalSender;
 
@@ -104,6 +114,11 @@ public class WordStatsActor extends AbstractActor {
             this.query = query;
             this.originalSender = originalSender;
         }
+
+        @Override
+        public Object consistentHashKey() {
+            return CanonicalRequest.normalizeQuery(query);
+        }
     }
 
     /**
@@ -130,14 +145,12 @@ public class WordStatsActor extends AbstractActor {
     }
 
     public static Map<String, Long> calculateWordFrequency(JsonNode json) {
-        Logger logger = Logger.getLogger(WordStatsActor.class.getName());
-
         if (json == null || !json.has("items")) {
-            logger.warning("JsonNode is null or does not contain 'items'");
+            LOG.warn("JsonNode is null or does not contain 'items'");
             return new LinkedHashMap<>();
         }
 
-        return StreamSupport.stream(json.path("items").spliterator(), false)
+        return countWords(StreamSupport.stream(json.path("items").spliterator(), false)
                 .map(item -> {
                     StringBuilder text = new StringBuilder();
                     if (item.has("snippet")) {
@@ -146,13 +159,28 @@ public class WordStatsActor extends AbstractActor {
                             text.append(snippet.path("title").asText("")).append(" ")
                                     .append(snippet.path("description").asText(""));
                         } else {
-                            logger.warning("Snippet is null for item: " + item);
+                            LOG.warn("Snippet is null for item={}", item);
                         }
                     } else {
-                        logger.warning("Item does not contain 'snippet': " + item);
+                        LOG.warn("Item has no snippet item={}", item);
                     }
                     return text.toString();
-                })
+                }));
+    }
+
+    /**
+     * Counts the words in the titles and descriptions of a page of videos, most frequent first.
+     *
+     * @param page The page of videos
+     * @return The words and their counts, ordered by decreasing count
+     */
+    public static Map<String, Long> calculateWordFrequency(SearchPage page) {
+        return countWords(page.getVideos().stream()
+                .map(video -> video.getTitle() + " " + video.getDescription()));
+    }
+
+    private static Map<String, Long> countWords(Stream<String> texts) {
+        return texts
                 .filter(text -> !text.trim().isEmpty())
                 .flatMap(text -> Arrays.stream(text.toLowerCase()
                         .replaceAll("[^a-zA-Z\\s]", " ")
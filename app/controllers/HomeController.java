@@ -2,11 +2,19 @@ package controllers;
 
 import actors.ChannelProfileActor;
 import actors.WordStatsActor;
+import akka.Done;
+import akka.NotUsed;
 import akka.actor.ActorSystem;
+import akka.actor.Status;
+import akka.japi.Pair;
+import akka.stream.CompletionStrategy;
 import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
 import akka.pattern.Patterns;
 import akka.actor.ActorRef;
-import play.libs.streams.ActorFlow;
 import play.mvc.Controller;
 import play.mvc.Result;
 import play.mvc.WebSocket;
@@ -19,9 +27,8 @@ import utils.SessionManager;
 import javax.inject.Named;
 import javax.inject.Inject;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
@@ -36,6 +43,9 @@ import java.util.concurrent.CompletionStage;
 
 public class HomeController extends Controller {
 
+    /** The most frames kept for a client that reads slower than it is sent results; the oldest are dropped first */
+    static final int CLIENT_BUFFER = 64;
+
     final ActorSystem actorSystem;
     final Materializer materializer;
     private final YouTubeService youTubeService;
@@ -69,8 +79,10 @@ public class HomeController extends Controller {
 
     /**
      * WebSocket endpoint for searching YouTube videos. It creates a WebSocket connection
-     * where the client can send search queries and receive video results. It interacts with
-     * the SupervisorActor to create a UserActor for managing the user's session.
+     * where the client can send search queries and receive video results. The socket is attached to
+     * the UserActor of the session, which the SupervisorActor creates or finds, so the actor serving
+     * the socket is the one whose lifecycle the SupervisorActor manages. The client's messages are sent
+     * to it, and its frames come back through the ActorRef of the socket's outgoing stream.
      *
      * @return A WebSocket instance that handles the search communication
      */
@@ -80,35 +92,47 @@ public class HomeController extends Controller {
             Http.Session session = request.session();
             String sessionId = session.getOptional("id").orElse("anonymous-" + System.currentTimeMillis());
 
+            // The outgoing stream is started first, so its ActorRef can be handed to the UserActor
+            Pair<ActorRef, Source<JsonNode, NotUsed>> toClient = Source.<JsonNode>actorRef(
+                    message -> message instanceof Status.Success
+                            ? Optional.of(CompletionStrategy.draining()) : Optional.empty(),
+                    message -> message instanceof Status.Failure
+                            ? Optional.of(((Status.Failure) message).cause()) : Optional.empty(),
+                    CLIENT_BUFFER, OverflowStrategy.dropHead())
+                    .preMaterialize(materializer);
+            ActorRef out = toClient.first();
+
             return Patterns.ask(
                     supervisorActor,
-                    new SupervisorActor.CreateUserActorMessage(sessionId, null, youTubeService, sessionManager, session),
+                    new SupervisorActor.CreateUserActorMessage(sessionId, out, youTubeService, sessionManager, session),
                     Duration.ofSeconds(5)
             ).thenApply(response -> {
                 if (response instanceof ActorRef) {
-                    ActorRef userActorRef = (ActorRef) response;
-
-                    akka.stream.javadsl.Flow<JsonNode, JsonNode, ?> flow = ActorFlow.actorRef(
-                            out -> UserActor.props(out, youTubeService, sessionManager, session, userActorRef),
-                            actorSystem,
-                            materializer
-                    );
-
-                    return play.libs.F.Either.<Result, akka.stream.javadsl.Flow<JsonNode, JsonNode, ?>>Right(flow);
+                    ActorRef userActor = (ActorRef) response;
+                    UserActor.Disconnect disconnect = new UserActor.Disconnect(sessionId, out);
+                    Sink<JsonNode, NotUsed> fromClient = Flow.<JsonNode>create()
+                            .<Object>map(message -> new UserActor.ClientMessage(sessionId, message))
+                            .to(Sink.actorRef(userActor, disconnect, error -> disconnect));
+
+                    return play.libs.F.Either.<Result, Flow<JsonNode, JsonNode, ?>>Right(
+                            Flow.fromSinkAndSource(fromClient, toClient.second()));
                 } else {
-                    return play.libs.F.Either.<Result, akka.stream.javadsl.Flow<JsonNode, JsonNode, ?>>Left(
+                    out.tell(new Status.Success(Done.getInstance()), ActorRef.noSender());
+                    return play.libs.F.Either.<Result, Flow<JsonNode, JsonNode, ?>>Left(
                             forbidden("Supervisor failed to create a UserActor.")
                     );
                 }
-            }).exceptionally(e ->
-                    play.libs.F.Either.<Result, akka.stream.javadsl.Flow<JsonNode, JsonNode, ?>>Left(
-                            forbidden("WebSocket error: " + e.getMessage())
-                    )
-            );
+            }).exceptionally(e -> {
+                out.tell(new Status.Success(Done.getInstance()), ActorRef.noSender());
+                return play.libs.F.Either.<Result, Flow<JsonNode, JsonNode, ?>>Left(
+                        forbidden("WebSocket error: " + e.getMessage())
+                );
+            });
         });
     }
     /**
      * Handles the channel profile request by fetching channel details and videos via the SupervisorActor.
+     * While the YouTube API is saturated the request is turned away with 503 at once.
      *
      * <p>Author: Saranraj Sivakumar 40306771</p>
      *
@@ -117,28 +141,23 @@ public class HomeController extends Controller {
      */
 
     public CompletionStage<Result> channelProfile(String channelId) {
+        if (youTubeService.isOverloaded()) {
+            return CompletableFuture.completedFuture(serviceUnavailable());
+        }
         return Patterns.ask(supervisorActor, new SupervisorActor.FetchChannelProfileMessage(channelId, youTubeService), Duration.ofSeconds(60))
                 .thenApply(response -> {
                     if (response instanceof ChannelProfileActor.ChannelProfileResponse) {
                         ChannelProfileActor.ChannelProfileResponse channelResponse = (ChannelProfileActor.ChannelProfileResponse) response;
 
-                        if (channelResponse.profile == null || !channelResponse.profile.has("items") || channelResponse.profile.path("items").isEmpty()) {
+                        if (channelResponse.profile == null) {
                             return internalServerError("Error: Unable to fetch valid channel profile data.");
                         }
 
-                        if (channelResponse.videos == null || !channelResponse.videos.has("items") || channelResponse.videos.path("items").isEmpty()) {
+                        if (channelResponse.profile.getVideos().isEmpty()) {
                             return internalServerError("Error: Unable to fetch videos for the channel.");
                         }
 
-                        JsonNode channelData = channelResponse.profile.path("items").get(0);
-                        if (channelData == null || channelData.isMissingNode()) {
-                            return internalServerError("Error: Missing channel data.");
-                        }
-
-                        List<JsonNode> videosList = new ArrayList<>();
-                        channelResponse.videos.path("items").forEach(videosList::add);
-
-                        return ok(views.html.channelprofile.render(channelData, videosList));
+                        return ok(views.html.channelprofile.render(channelResponse.profile));
                     } else {
                         return internalServerError("Error: Unexpected response from SupervisorActor.");
                     }
@@ -147,6 +166,9 @@ public class HomeController extends Controller {
     }
 
     public CompletionStage<Result> showWordFrequency(String query) {
+        if (youTubeService.isOverloaded()) {
+            return CompletableFuture.completedFuture(serviceUnavailable());
+        }
         return Patterns.ask(supervisorActor, new SupervisorActor.FetchWordStatsMessage(query, youTubeService), Duration.ofSeconds(60))
                 .thenApply(response -> {
                     if (response instanceof WordStatsActor.WordStatsResponse) {
@@ -175,6 +197,16 @@ public class HomeController extends Controller {
                 .exceptionally(ex -> internalServerError("An unexpected error occurred while processing the channel profile."));
     }
 
+    /**
+     * Response for requests shed because the YouTube API is saturated.
+     *
+     * @return A 503 result asking the client to retry shortly
+     */
+    private Result serviceUnavailable() {
+        return status(SERVICE_UNAVAILABLE, "The YouTube API is busy, please try again shortly.")
+                .withHeader(RETRY_AFTER, "1");
+    }
+
     /**
      * Index page rendering. This method is responsible for rendering the home page
      * of the application.
@@ -182,6 +214,7 @@ public class HomeController extends Controller {
      * @return A CompletionStage that represents the result of rendering the index page
      */
     public CompletionStage<Result> index() {
-        return CompletableFuture.supplyAsync(() -> ok(views.html.index.render("TubeLytics - YouTube Search")));
+        // Rendering the page is cheap, so it is done on Play's thread rather than on the common pool
+        return CompletableFuture.completedFuture(ok(views.html.index.render("TubeLytics - YouTube Search")));
     }
 }
@@ -0,0 +1,103 @@
+package controllers;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import play.libs.Json;
+import play.mvc.Controller;
+import play.mvc.Result;
+import utils.ActorMetrics;
+import utils.AdaptiveLimiter;
+import utils.Bulkhead;
+import utils.QueryCache;
+import utils.QuotaScheduler;
+import utils.YouTubeHttpClient;
+
+import javax.inject.Inject;
+import java.util.Map;
+
+/**
+ * MetricsController: Exposes the runtime metrics of the outbound YouTube API calls, of the
+ * query cache and of the actors as JSON, for dashboards and load tests.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public class MetricsController extends Controller {
+
+    private final YouTubeHttpClient httpClient;
+    private final QueryCache queryCache;
+    private final ActorMetrics actorMetrics;
+
+    /**
+     * @param httpClient The shared YouTube API client, holding the limiter and bulkheads
+     * @param queryCache The query cache
+     * @param actorMetrics The counts of the actors kept by the SupervisorActor
+     */
+    @Inject
+    public MetricsController(YouTubeHttpClient httpClient, QueryCache queryCache, ActorMetrics actorMetrics) {
+        this.httpClient = httpClient;
+        this.queryCache = queryCache;
+        this.actorMetrics = actorMetrics;
+    }
+
+    /**
+     * @return The current metrics as JSON
+     */
+    public Result metrics() {
+        return ok(snapshot());
+    }
+
+    /**
+     * Collects the current metrics.
+     *
+     * @return The limiter, bulkhead, quota, cache and actor metrics
+     */
+    ObjectNode snapshot() {
+        ObjectNode metrics = Json.newObject();
+
+        AdaptiveLimiter limiter = httpClient.getLimiter();
+        metrics.putObject("limiter")
+                .put("limit", limiter.getLimit())
+                .put("inFlight", limiter.getInFlight())
+                .put("rejected", limiter.getRejected())
+                .put("dropped", limiter.getDropped());
+
+        ObjectNode bulkheads = metrics.putObject("bulkheads");
+        for (Map.Entry<String, Bulkhead> entry : httpClient.getBulkheads().entrySet()) {
+            Bulkhead bulkhead = entry.getValue();
+            bulkheads.putObject(entry.getKey())
+                    .put("maxConcurrent", bulkhead.getMaxConcurrent())
+                    .put("inFlight", bulkhead.getInFlight())
+                    .put("queued", bulkhead.getQueued())
+                    .put("rejected", bulkhead.getRejected())
+                    .put("timedOut", bulkhead.getTimedOut())
+                    .put("averageWaitMillis", bulkhead.getAverageWait().toMillis());
+        }
+
+        QuotaScheduler quota = httpClient.getQuota();
+        metrics.putObject("quota")
+                .put("available", quota.getAvailable())
+                .put("spent", quota.getSpent())
+                .put("deniedInteractive", quota.getDenied(QuotaScheduler.Priority.INTERACTIVE))
+                .put("deniedBackground", quota.getDenied(QuotaScheduler.Priority.BACKGROUND))
+                .put("low", quota.isLow());
+
+        CacheStats stats = queryCache.stats();
+        metrics.putObject("cache")
+                .put("size", queryCache.estimatedSize())
+                .put("hitRate", stats.hitRate())
+                .put("evictions", stats.evictionCount())
+                .put("staleHits", queryCache.staleHits())
+                .put("coalescedRequests", queryCache.coalescedRequests())
+                .put("backgroundRefreshes", queryCache.backgroundRefreshes());
+
+        ObjectNode actors = metrics.putObject("actors");
+        for (ActorMetrics.Registry registry : actorMetrics.getRegistries().values()) {
+            actors.putObject(registry.getName())
+                    .put("live", registry.getLive())
+                    .put("created", registry.getCreated())
+                    .put("passivated", registry.getPassivated())
+                    .put("evicted", registry.getEvicted());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,102 @@
+package models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * ChannelProfile: Immutable profile of a YouTube channel with its latest videos,
+ * as shown on the channel profile page.
+ *
+ * <p>Author: Saranraj Sivakumar 40306771</p>
+ */
+public final class ChannelProfile {
+
+    private final String channelId;
+    private final String title;
+    private final String description;
+    private final String publishedAt;
+    private final String subscriberCount;
+    private final String videoCount;
+    private final String viewCount;
+    private final List<VideoSummary> videos;
+
+    /**
+     * @param channelId The ID of the YouTube channel
+     * @param title The channel title
+     * @param description The channel description
+     * @param publishedAt The channel creation date, as returned by the API
+     * @param subscriberCount The number of subscribers, as returned by the API
+     * @param videoCount The number of videos, as returned by the API
+     * @param viewCount The total number of views, as returned by the API
+     * @param videos The latest videos of the channel
+     */
+    public ChannelProfile(String channelId, String title, String description, String publishedAt,
+                          String subscriberCount, String videoCount, String viewCount, List<VideoSummary> videos) {
+        this.channelId = channelId;
+        this.title = title;
+        this.description = description;
+        this.publishedAt = publishedAt;
+        this.subscriberCount = subscriberCount;
+        this.videoCount = videoCount;
+        this.viewCount = viewCount;
+        this.videos = List.copyOf(videos);
+    }
+
+    /**
+     * Builds the profile from a {@code channels.list} response and the channel's videos.
+     *
+     * @param channelId The ID of the YouTube channel
+     * @param channels The {@code channels.list} response
+     * @param videos The latest videos of the channel
+     * @return The profile, or null if the response holds no channel
+     */
+    public static ChannelProfile from(String channelId, JsonNode channels, List<VideoSummary> videos) {
+        JsonNode channel = channels == null ? null : channels.path("items").path(0);
+        if (channel == null || channel.isMissingNode()) {
+            return null;
+        }
+        JsonNode snippet = channel.path("snippet");
+        JsonNode statistics = channel.path("statistics");
+        return new ChannelProfile(channel.path("id").asText(channelId),
+                snippet.path("title").asText(""),
+                snippet.path("description").asText(""),
+                snippet.path("publishedAt").asText(""),
+                statistics.path("subscriberCount").asText(""),
+                statistics.path("videoCount").asText(""),
+                statistics.path("viewCount").asText(""),
+                videos);
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getPublishedAt() {
+        return publishedAt;
+    }
+
+    public String getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    public String getVideoCount() {
+        return videoCount;
+    }
+
+    public String getViewCount() {
+        return viewCount;
+    }
+
+    public List<VideoSummary> getVideos() {
+        return videos;
+    }
+}
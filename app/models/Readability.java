@@ -0,0 +1,84 @@
+package models;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Collection;
+
+/**
+ * Readability: Immutable Flesch-Kincaid Grade Level and Flesch Reading Ease score of a text.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class Readability {
+
+    private final double fkGrade;
+    private final double readingEase;
+
+    /**
+     * @param fkGrade The Flesch-Kincaid Grade Level
+     * @param readingEase The Flesch Reading Ease Score
+     */
+    public Readability(double fkGrade, double readingEase) {
+        this.fkGrade = fkGrade;
+        this.readingEase = readingEase;
+    }
+
+    /**
+     * Averages the scores of several texts, such as the videos of a page.
+     *
+     * @param scores The scores to average
+     * @return The average scores, or zero scores if there are none
+     */
+    public static Readability average(Collection<Readability> scores) {
+        if (scores.isEmpty()) {
+            return new Readability(0, 0);
+        }
+        double fkGrade = 0;
+        double readingEase = 0;
+        for (Readability score : scores) {
+            fkGrade += score.fkGrade;
+            readingEase += score.readingEase;
+        }
+        return new Readability(fkGrade / scores.size(), readingEase / scores.size());
+    }
+
+    public double getFkGrade() {
+        return fkGrade;
+    }
+
+    public double getReadingEase() {
+        return readingEase;
+    }
+
+    /**
+     * @return The scores as sent to the web client
+     */
+    public ObjectNode toJson() {
+        return JsonNodeFactory.instance.objectNode()
+                .put("fkGrade", fkGrade)
+                .put("readingEase", readingEase);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Readability)) {
+            return false;
+        }
+        Readability that = (Readability) o;
+        return Double.compare(fkGrade, that.fkGrade) == 0 && Double.compare(readingEase, that.readingEase) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(fkGrade) + Double.hashCode(readingEase);
+    }
+
+    @Override
+    public String toString() {
+        return "Readability{fkGrade=" + fkGrade + ", readingEase=" + readingEase + "}";
+    }
+}
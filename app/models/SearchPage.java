@@ -0,0 +1,117 @@
+package models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * SearchPage: Immutable page of search results for one query. It is built once when the
+ * response is parsed and then shared as is between the actors that analyse it.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class SearchPage {
+
+    private final String query;
+    private final List<VideoSummary> videos;
+    private final List<String> descriptions;
+    private final String nextPageToken;
+
+    /**
+     * @param query The search query the page answers
+     * @param videos The videos of the page, in response order
+     * @param nextPageToken The token of the following page, or null if this is the last page
+     */
+    @JsonCreator
+    public SearchPage(@JsonProperty("query") String query, @JsonProperty("videos") List<VideoSummary> videos,
+                      @JsonProperty("nextPageToken") String nextPageToken) {
+        this.query = query;
+        this.videos = List.copyOf(videos);
+        List<String> descriptions = new ArrayList<>(videos.size());
+        for (VideoSummary video : this.videos) {
+            descriptions.add(video.getDescription());
+        }
+        this.descriptions = Collections.unmodifiableList(descriptions);
+        this.nextPageToken = nextPageToken;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<VideoSummary> getVideos() {
+        return videos;
+    }
+
+    /**
+     * @return The descriptions of the videos, in page order
+     */
+    @JsonIgnore
+    public List<String> getDescriptions() {
+        return descriptions;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return videos.isEmpty();
+    }
+
+    /**
+     * Cuts the page down to its first videos. The {@code nextPageToken} of a cut page would skip
+     * the videos cut off, so it is dropped.
+     *
+     * @param maxResults The most videos to keep
+     * @return This page if it holds no more videos, otherwise a page of its first videos
+     */
+    public SearchPage limit(int maxResults) {
+        return videos.size() <= maxResults ? this : new SearchPage(query, videos.subList(0, maxResults), null);
+    }
+
+    /**
+     * Renders the videos as the {@code items} array sent to the web client.
+     *
+     * @return The videos in the shape of YouTube search result items
+     */
+    public ArrayNode itemsToJson() {
+        ArrayNode items = JsonNodeFactory.instance.arrayNode(videos.size());
+        for (VideoSummary video : videos) {
+            items.add(video.toJson());
+        }
+        return items;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchPage)) {
+            return false;
+        }
+        SearchPage that = (SearchPage) o;
+        return Objects.equals(query, that.query)
+                && videos.equals(that.videos)
+                && Objects.equals(nextPageToken, that.nextPageToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, videos, nextPageToken);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchPage{query='" + query + "', videos=" + videos.size() + ", nextPageToken='" + nextPageToken + "'}";
+    }
+}
@@ -0,0 +1,114 @@
+package models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Objects;
+
+/**
+ * VideoStatistics: Immutable view, like and comment counts and duration of a video,
+ * projected from a {@code videos.list} item with the {@code statistics} and {@code contentDetails} parts.
+ * Counts the owner has hidden are reported as {@value #HIDDEN}.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class VideoStatistics {
+
+    /** Count of a statistic the video owner has hidden */
+    public static final long HIDDEN = -1;
+
+    private final String videoId;
+    private final long viewCount;
+    private final long likeCount;
+    private final long commentCount;
+    private final String duration;
+
+    /**
+     * @param videoId The ID of the video
+     * @param viewCount The number of views
+     * @param likeCount The number of likes
+     * @param commentCount The number of comments
+     * @param duration The ISO 8601 duration, e.g. {@code PT4M13S}
+     */
+    public VideoStatistics(String videoId, long viewCount, long likeCount, long commentCount, String duration) {
+        this.videoId = videoId;
+        this.viewCount = viewCount;
+        this.likeCount = likeCount;
+        this.commentCount = commentCount;
+        this.duration = duration;
+    }
+
+    /**
+     * Builds the statistics from one item of a {@code videos.list} response.
+     *
+     * @param item The response item
+     * @return The statistics of the video
+     */
+    public static VideoStatistics from(JsonNode item) {
+        JsonNode statistics = item.path("statistics");
+        return new VideoStatistics(item.path("id").asText(""),
+                statistics.path("viewCount").asLong(HIDDEN),
+                statistics.path("likeCount").asLong(HIDDEN),
+                statistics.path("commentCount").asLong(HIDDEN),
+                item.path("contentDetails").path("duration").asText(""));
+    }
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public long getViewCount() {
+        return viewCount;
+    }
+
+    public long getLikeCount() {
+        return likeCount;
+    }
+
+    public long getCommentCount() {
+        return commentCount;
+    }
+
+    public String getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return The statistics as sent to the web client
+     */
+    public ObjectNode toJson() {
+        return JsonNodeFactory.instance.objectNode()
+                .put("viewCount", viewCount)
+                .put("likeCount", likeCount)
+                .put("commentCount", commentCount)
+                .put("duration", duration);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof VideoStatistics)) {
+            return false;
+        }
+        VideoStatistics that = (VideoStatistics) o;
+        return viewCount == that.viewCount
+                && likeCount == that.likeCount
+                && commentCount == that.commentCount
+                && videoId.equals(that.videoId)
+                && duration.equals(that.duration);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(videoId, viewCount, likeCount, commentCount, duration);
+    }
+
+    @Override
+    public String toString() {
+        return "VideoStatistics{videoId='" + videoId + "', viewCount=" + viewCount + ", likeCount=" + likeCount
+                + ", commentCount=" + commentCount + ", duration='" + duration + "'}";
+    }
+}
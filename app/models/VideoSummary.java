@@ -0,0 +1,133 @@
+package models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Objects;
+
+/**
+ * VideoSummary: Immutable projection of one YouTube search result, holding only the fields
+ * the application reads (video id, title, description, channel and thumbnails).
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class VideoSummary {
+
+    private final String videoId;
+    private final String title;
+    private final String description;
+    private final String channelId;
+    private final String channelTitle;
+    private final String publishedAt;
+    private final String thumbnailUrl;
+    private final String mediumThumbnailUrl;
+
+    /**
+     * @param videoId The YouTube video id
+     * @param title The video title
+     * @param description The video description
+     * @param channelId The id of the channel that published the video
+     * @param channelTitle The title of the channel that published the video
+     * @param publishedAt The publication timestamp, as returned by the API
+     * @param thumbnailUrl The URL of the default (120x90) thumbnail
+     * @param mediumThumbnailUrl The URL of the medium (320x180) thumbnail
+     */
+    @JsonCreator
+    public VideoSummary(@JsonProperty("videoId") String videoId, @JsonProperty("title") String title,
+                        @JsonProperty("description") String description, @JsonProperty("channelId") String channelId,
+                        @JsonProperty("channelTitle") String channelTitle, @JsonProperty("publishedAt") String publishedAt,
+                        @JsonProperty("thumbnailUrl") String thumbnailUrl,
+                        @JsonProperty("mediumThumbnailUrl") String mediumThumbnailUrl) {
+        this.videoId = videoId;
+        this.title = title;
+        this.description = description;
+        this.channelId = channelId;
+        this.channelTitle = channelTitle;
+        this.publishedAt = publishedAt;
+        this.thumbnailUrl = thumbnailUrl;
+        this.mediumThumbnailUrl = mediumThumbnailUrl;
+    }
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public String getChannelTitle() {
+        return channelTitle;
+    }
+
+    public String getPublishedAt() {
+        return publishedAt;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public String getMediumThumbnailUrl() {
+        return mediumThumbnailUrl;
+    }
+
+    /**
+     * Renders the video in the shape of a YouTube search result item, as sent to the web client.
+     *
+     * @return The video as {@code {"id": {"videoId": ...}, "snippet": {...}}}
+     */
+    public ObjectNode toJson() {
+        ObjectNode item = JsonNodeFactory.instance.objectNode();
+        item.putObject("id").put("videoId", videoId);
+        ObjectNode snippet = item.putObject("snippet")
+                .put("publishedAt", publishedAt)
+                .put("channelId", channelId)
+                .put("title", title)
+                .put("description", description);
+        ObjectNode thumbnails = snippet.putObject("thumbnails");
+        thumbnails.putObject("default").put("url", thumbnailUrl);
+        thumbnails.putObject("medium").put("url", mediumThumbnailUrl);
+        snippet.put("channelTitle", channelTitle);
+        return item;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof VideoSummary)) {
+            return false;
+        }
+        VideoSummary that = (VideoSummary) o;
+        return Objects.equals(videoId, that.videoId)
+                && Objects.equals(title, that.title)
+                && Objects.equals(description, that.description)
+                && Objects.equals(channelId, that.channelId)
+                && Objects.equals(channelTitle, that.channelTitle)
+                && Objects.equals(publishedAt, that.publishedAt)
+                && Objects.equals(thumbnailUrl, that.thumbnailUrl)
+                && Objects.equals(mediumThumbnailUrl, that.mediumThumbnailUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(videoId, title, description, channelId, channelTitle, publishedAt, thumbnailUrl, mediumThumbnailUrl);
+    }
+
+    @Override
+    public String toString() {
+        return "VideoSummary{videoId='" + videoId + "', title='" + title + "', channelId='" + channelId + "'}";
+    }
+}
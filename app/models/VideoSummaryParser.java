@@ -0,0 +1,165 @@
+package models;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * VideoSummaryParser: Streams a YouTube {@code search.list} or {@code videos.list} response with
+ * Jackson's {@link JsonParser} and projects each item into a {@link VideoSummary}.
+ * Only the projected fields are materialized; every other value is skipped without building a tree.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class VideoSummaryParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private VideoSummaryParser() {
+    }
+
+    /**
+     * Parses the {@code items} array of a response.
+     *
+     * @param body The response body
+     * @return The projected videos, in response order; empty if the response has no items
+     * @throws IOException If the body is not valid JSON
+     */
+    public static List<VideoSummary> parseItems(InputStream body) throws IOException {
+        return parsePage(null, body).getVideos();
+    }
+
+    /**
+     * Parses a search response into a page of videos, keeping the token of the following page.
+     *
+     * @param query The search query the response answers
+     * @param body The response body
+     * @return The page; empty if the response has no items
+     * @throws IOException If the body is not valid JSON
+     */
+    public static SearchPage parsePage(String query, InputStream body) throws IOException {
+        List<VideoSummary> videos = new ArrayList<>();
+        String nextPageToken = null;
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new SearchPage(query, videos, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        videos.add(readItem(parser));
+                    }
+                } else if ("nextPageToken".equals(field)) {
+                    nextPageToken = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new SearchPage(query, videos, nextPageToken);
+    }
+
+    /**
+     * Reads one item object; the parser is positioned on its START_OBJECT and left on its END_OBJECT.
+     */
+    private static VideoSummary readItem(JsonParser parser) throws IOException {
+        String videoId = "";
+        Snippet snippet = new Snippet();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("id".equals(field)) {
+                // search.list nests the id as {"videoId": ...}, videos.list has a plain string
+                videoId = value == JsonToken.START_OBJECT ? readField(parser, "videoId") : parser.getValueAsString("");
+            } else if ("snippet".equals(field) && value == JsonToken.START_OBJECT) {
+                readSnippet(parser, snippet);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new VideoSummary(videoId, snippet.title, snippet.description, snippet.channelId, snippet.channelTitle,
+                snippet.publishedAt, snippet.thumbnailUrl, snippet.mediumThumbnailUrl);
+    }
+
+    private static void readSnippet(JsonParser parser, Snippet snippet) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "title":
+                    snippet.title = parser.getValueAsString("");
+                    break;
+                case "description":
+                    snippet.description = parser.getValueAsString("");
+                    break;
+                case "channelId":
+                    snippet.channelId = parser.getValueAsString("");
+                    break;
+                case "channelTitle":
+                    snippet.channelTitle = parser.getValueAsString("");
+                    break;
+                case "publishedAt":
+                    snippet.publishedAt = parser.getValueAsString("");
+                    break;
+                case "thumbnails":
+                    if (value == JsonToken.START_OBJECT) {
+                        readThumbnails(parser, snippet);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readThumbnails(JsonParser parser, Snippet snippet) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String size = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("default".equals(size) && value == JsonToken.START_OBJECT) {
+                snippet.thumbnailUrl = readField(parser, "url");
+            } else if ("medium".equals(size) && value == JsonToken.START_OBJECT) {
+                snippet.mediumThumbnailUrl = readField(parser, "url");
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads one string field of an object and skips the rest of it.
+     */
+    private static String readField(JsonParser parser, String name) throws IOException {
+        String result = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                result = parser.getValueAsString("");
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mutable holder for the snippet fields while an item is being read.
+     */
+    private static final class Snippet {
+        private String title = "";
+        private String description = "";
+        private String channelId = "";
+        private String channelTitle = "";
+        private String publishedAt = "";
+        private String thumbnailUrl = "";
+        private String mediumThumbnailUrl = "";
+    }
+}
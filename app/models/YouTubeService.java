@@ -1,64 +1,412 @@
 package models;
 
+import akka.NotUsed;
+import akka.japi.Pair;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.Source;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.typesafe.config.Config;
+import play.inject.ApplicationLifecycle;
+import utils.Bulkhead;
+import utils.CanonicalRequest;
+import utils.MicroBatcher;
 import utils.QueryCache;
+import utils.QuotaScheduler;
+import utils.YouTubeHttpClient;
 
 import javax.inject.Inject;
-import java.net.URI;
+import javax.inject.Singleton;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
 
 /**
  * YouTubeService: Handles interactions with the YouTube API and provides utility methods for fetching data.
  * It fetches video details from the YouTube API and caches the results for repeated queries.
+ * Channel lookups arriving close together are merged into one {@code channels.list} call.
  *
  * <p>Author: Priyadarshine Kumar 40293041</p>
  * <p>Author: Saranraj Sivakumar 40306771</p>
  */
+@Singleton
 public class YouTubeService {
 
+    /** The most IDs one {@code channels.list} or {@code videos.list} call accepts */
+    public static final int MAX_IDS_PER_REQUEST = 50;
+    /** The most results one {@code search.list} page holds */
+    public static final int MAX_SEARCH_RESULTS = 50;
+    public static final Duration DEFAULT_CHANNEL_BATCH_WINDOW = Duration.ofMillis(10);
+    public static final Duration DEFAULT_STATISTICS_TTL = Duration.ofMinutes(10);
+    public static final long DEFAULT_STATISTICS_MAX_SIZE = 10_000;
+
     private static final String BASE_URL = "https://www.googleapis.com/youtube/v3/";
+    private static final String CHANNEL_BATCH_CONFIG = "tubelytics.youtube.batch.channels";
+    private static final String STATISTICS_TTL_CONFIG = "tubelytics.youtube.statistics.ttl";
+    private static final String STATISTICS_MAX_SIZE_CONFIG = "tubelytics.youtube.statistics.max-size";
     private final String apiKey;
-    private final HttpClient httpClient;
+    private final YouTubeHttpClient httpClient;
     private final ObjectMapper objectMapper;
     private final QueryCache queryCache;
+    private final MicroBatcher<String, JsonNode> channelBatcher;
+    private final Cache<String, VideoStatistics> statisticsCache;
 
     /**
      * Constructor to initialize the YouTubeService with required dependencies.
      *
      * @param config The configuration object for API key and other settings
      * @param queryCache The cache to store previously fetched query results
+     * @param httpClient The shared client, with timeouts and per-endpoint bulkheads, used for API calls
+     * @param lifecycle The application lifecycle, used to stop the batchers on shutdown
      */
     @Inject
-    public YouTubeService(Config config, QueryCache queryCache) {
+    public YouTubeService(Config config, QueryCache queryCache, YouTubeHttpClient httpClient, ApplicationLifecycle lifecycle) {
+        this(config, queryCache, httpClient);
+        lifecycle.addStopHook(() -> {
+            shutdown();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Constructor to initialize the YouTubeService with required dependencies, without a stop hook;
+     * the caller stops its batchers with {@link #shutdown()}.
+     *
+     * @param config The configuration object for API key and other settings
+     * @param queryCache The cache to store previously fetched query results
+     * @param httpClient The shared client, with timeouts and per-endpoint bulkheads, used for API calls
+     */
+    public YouTubeService(Config config, QueryCache queryCache, YouTubeHttpClient httpClient) {
         this.apiKey = config.getString("youtube.api.key");
-        this.httpClient = HttpClient.newHttpClient();
+        this.httpClient = httpClient;
         this.objectMapper = new ObjectMapper();
         this.queryCache = queryCache;
+        boolean batchConfigured = config.hasPath(CHANNEL_BATCH_CONFIG);
+        this.channelBatcher = new MicroBatcher<>("channels",
+                batchConfigured ? config.getDuration(CHANNEL_BATCH_CONFIG + ".window") : DEFAULT_CHANNEL_BATCH_WINDOW,
+                batchConfigured ? Math.min(MAX_IDS_PER_REQUEST, config.getInt(CHANNEL_BATCH_CONFIG + ".max-size")) : MAX_IDS_PER_REQUEST,
+                this::fetchChannelDetails);
+        this.statisticsCache = Caffeine.newBuilder()
+                .maximumSize(config.hasPath(STATISTICS_MAX_SIZE_CONFIG) ? config.getLong(STATISTICS_MAX_SIZE_CONFIG) : DEFAULT_STATISTICS_MAX_SIZE)
+                .expireAfterWrite(config.hasPath(STATISTICS_TTL_CONFIG) ? config.getDuration(STATISTICS_TTL_CONFIG) : DEFAULT_STATISTICS_TTL)
+                .build();
+    }
+
+    /**
+     * Stops the timer thread of the channel batcher. Lookups still pending are sent at once.
+     */
+    public void shutdown() {
+        channelBatcher.shutdown();
     }
 
     /**
      * Fetches video details from the YouTube API based on the query string.
-     * If the query has been previously fetched, it returns the cached result.
+     * If the request has been previously fetched, it returns the cached result.
+     * Results are cached under the request URL without the API key, so the same key
+     * identifies the response in memory and in the persistent cache tier.
      *
      * @param query The search query string
      * @param maxResults The maximum number of results to fetch
      * @return A CompletionStage containing the JSON response with video details
      */
     public CompletionStage<JsonNode> fetchVideos(String query, int maxResults) {
-        return queryCache.getOrElseUpdate(query, () -> {
-            String url = BASE_URL + "search?part=snippet&maxResults=" + maxResults + "&q=" + encodeQuery(query) + "&key=" + apiKey;
-            return sendRequest(url);
+        String request = searchRequest(query, maxResults);
+        return getOrFetch(request, () -> sendRawRequest(request + "&key=" + apiKey))
+                .thenApply(QueryCache.CachedItem::getValue)
+                .exceptionally(this::errorResponse);
+    }
+
+    /**
+     * Fetches the videos matching the query as a typed {@link SearchPage}, for a user waiting on the answer.
+     *
+     * @param query The search query string
+     * @param maxResults The maximum number of results to fetch
+     * @return A CompletionStage containing the page of videos, failed with a
+     *         {@link YouTubeApiException} if the request or parsing failed
+     */
+    public CompletionStage<SearchPage> fetchSearchPage(String query, int maxResults) {
+        return fetchSearchPage(query, maxResults, QuotaScheduler.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Fetches the videos matching the query as a typed {@link SearchPage}.
+     * The cached response is streamed straight from its bytes into the page,
+     * without building a JSON tree. A smaller page is cut from a fresh cached page of
+     * {@value #MAX_SEARCH_RESULTS} results when there is one; such a page has no {@code nextPageToken}.
+     * Cached and stale results are served whatever the priority, and refreshed in the background;
+     * only a call to the API is paid from the quota, and background calls may not touch its reserve.
+     *
+     * @param query The search query string
+     * @param maxResults The maximum number of results to fetch
+     * @param priority How urgently the page is needed
+     * @return A CompletionStage containing the page of videos, failed with a
+     *         {@link YouTubeApiException} if the request or parsing failed, or with a
+     *         {@link QuotaScheduler.QuotaExceededException} if the quota does not cover the call
+     */
+    public CompletionStage<SearchPage> fetchSearchPage(String query, int maxResults, QuotaScheduler.Priority priority) {
+        if (maxResults < MAX_SEARCH_RESULTS) {
+            // A fresh full page of the same search holds the answer already; search.list costs the same either way
+            QueryCache.CachedItem fullPage = queryCache.getIfFresh(searchRequest(query, MAX_SEARCH_RESULTS));
+            if (fullPage != null) {
+                try {
+                    return CompletableFuture.completedFuture(parsePage(query, fullPage).limit(maxResults));
+                } catch (YouTubeApiException e) {
+                    // Fall back to fetching the page as requested
+                }
+            }
+        }
+        return fetchSearchPage(query, maxResults, null, priority);
+    }
+
+    /**
+     * Fetches one page of the videos matching the query, see {@link #fetchSearchPage(String, int, QuotaScheduler.Priority)}.
+     *
+     * @param query The search query string
+     * @param maxResults The maximum number of results on the page
+     * @param pageToken The {@code nextPageToken} of the previous page, or null for the first page
+     * @param priority How urgently the page is needed
+     * @return A CompletionStage containing the page of videos
+     */
+    public CompletionStage<SearchPage> fetchSearchPage(String query, int maxResults, String pageToken,
+                                                       QuotaScheduler.Priority priority) {
+        String request = searchRequest(query, maxResults, pageToken);
+        return getOrFetch(request, () -> sendRawRequest(request + "&key=" + apiKey, priority))
+                .thenApply(item -> parsePage(query, item));
+    }
+
+    /**
+     * Serves the response to a request from the cache, or fetches it with the given block.
+     * Stale and hot entries are refreshed at background priority, since nobody waits for them.
+     * While the quota is low, any copy still held in memory or on disk is served as is, stale or not,
+     * leaving what is left of the quota to requests nothing is cached for.
+     */
+    private CompletionStage<QueryCache.CachedItem> getOrFetch(String request, Callable<CompletionStage<byte[]>> fetch) {
+        if (isQuotaLow()) {
+            QueryCache.CachedItem cached = queryCache.getIfCached(request);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        return queryCache.getOrElseUpdateRaw(request, fetch,
+                () -> sendRawRequest(request + "&key=" + apiKey, QuotaScheduler.Priority.BACKGROUND));
+    }
+
+    /**
+     * Tells whether the daily quota has fallen into the reserve kept for interactive searches,
+     * so background work such as live polling can stand down instead of being refused call by call.
+     *
+     * @return Whether only interactive API calls are currently paid for
+     */
+    public boolean isQuotaLow() {
+        QuotaScheduler quota = httpClient.getQuota();
+        return quota != null && quota.isLow();
+    }
+
+    /**
+     * Fetches the first page of the videos matching the query from the API, even when the cache
+     * holds a fresh or stale page, and caches the new page for the searches that follow.
+     * For callers that must see the latest results, such as the polls of live queries.
+     *
+     * @param query The search query string
+     * @param maxResults The maximum number of results on the page
+     * @param priority How urgently the page is needed
+     * @return A CompletionStage containing the page of videos, failed with a
+     *         {@link YouTubeApiException} if the request or parsing failed, or with a
+     *         {@link QuotaScheduler.QuotaExceededException} if the quota does not cover the call
+     */
+    public CompletionStage<SearchPage> refreshSearchPage(String query, int maxResults, QuotaScheduler.Priority priority) {
+        String request = searchRequest(query, maxResults);
+        return queryCache.refreshRaw(request, () -> sendRawRequest(request + "&key=" + apiKey, priority))
+                .thenApply(item -> parsePage(query, item));
+    }
+
+    /**
+     * Streams the videos matching the query, following {@code nextPageToken} from page to page.
+     * Pages are fetched only as downstream demands videos, with at most one page fetched ahead,
+     * so callers can pull hundreds of results without holding them all in memory; bound the
+     * stream with {@code take} since a popular query has far more results than anybody reads.
+     * The stream fails if a page cannot be fetched.
+     *
+     * @param query The search query string
+     * @param pageSize The number of results per page, at most {@value #MAX_SEARCH_RESULTS}
+     * @param priority How urgently the videos are needed
+     * @return A Source of the videos, ending after the last page
+     */
+    public Source<VideoSummary, NotUsed> streamSearch(String query, int pageSize, QuotaScheduler.Priority priority) {
+        // The state is the token of the next page to fetch, empty once the last page has been fetched
+        return Source.<Optional<String>, SearchPage>unfoldAsync(Optional.of(""), next -> {
+                    if (next.isEmpty()) {
+                        return CompletableFuture.completedFuture(Optional.<Pair<Optional<String>, SearchPage>>empty());
+                    }
+                    String pageToken = next.get().isEmpty() ? null : next.get();
+                    return fetchSearchPage(query, pageSize, pageToken, priority)
+                            .thenApply(page -> Optional.of(Pair.create(nextState(page), page)));
+                })
+                .buffer(1, OverflowStrategy.backpressure())
+                .mapConcat(SearchPage::getVideos);
+    }
+
+    private static Optional<String> nextState(SearchPage page) {
+        String token = page.getNextPageToken();
+        return token == null || token.isEmpty() || page.isEmpty() ? Optional.empty() : Optional.of(token);
+    }
+
+    /**
+     * Fetches the latest videos of a channel as {@link VideoSummary} projections.
+     * <p>Author: Saranraj Sivakumar 40306771</p>
+     * @param channelId The ID of the YouTube channel
+     * @param maxResults The maximum number of videos to fetch
+     * @return A CompletionStage containing the videos, failed with a
+     *         {@link YouTubeApiException} if the request or parsing failed
+     */
+    public CompletionStage<List<VideoSummary>> fetchChannelVideoSummaries(String channelId, int maxResults) {
+        return sendRawRequest(channelVideosRequest(channelId, maxResults))
+                .thenApply(body -> parsePage(channelId, new ByteArrayInputStream(body)).getVideos());
+    }
+
+    /**
+     * Fetches the profile of a channel together with its latest videos.
+     * <p>Author: Saranraj Sivakumar 40306771</p>
+     * @param channelId The ID of the YouTube channel
+     * @param maxVideos The maximum number of videos to fetch
+     * @return A CompletionStage containing the profile, failed with a
+     *         {@link YouTubeApiException} if the channel could not be fetched
+     */
+    public CompletionStage<ChannelProfile> fetchChannelProfile(String channelId, int maxVideos) {
+        return fetchChannelDetails(channelId).thenCombine(fetchChannelVideoSummaries(channelId, maxVideos),
+                (details, videos) -> {
+                    ChannelProfile profile = ChannelProfile.from(channelId, details, videos);
+                    if (profile == null) {
+                        throw new YouTubeApiException("Failed to fetch channel details.");
+                    }
+                    return profile;
+                });
+    }
+
+    /**
+     * Fetches the view, like and comment counts and durations of videos, which search results lack.
+     * Statistics are cached per video, for longer than search results since they change slowly.
+     * They are small and many, so they have a cache of their own, bounded by the number of videos,
+     * rather than crowding search responses out of the query cache. The videos not in the cache
+     * are fetched {@value #MAX_IDS_PER_REQUEST} per {@code videos.list} call.
+     * The calls are background work, so they never spend the quota reserved for searches.
+     *
+     * @param videoIds The IDs of the videos
+     * @return A CompletionStage containing the statistics by video ID, in the order of the IDs;
+     *         videos the API does not know are left out
+     */
+    public CompletionStage<Map<String, VideoStatistics>> fetchVideoStatistics(List<String> videoIds) {
+        Map<String, VideoStatistics> statistics = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String videoId : new LinkedHashSet<>(videoIds)) {
+            VideoStatistics cached = statisticsCache.getIfPresent(videoId);
+            if (cached != null) {
+                statistics.put(videoId, cached);
+            } else {
+                statistics.put(videoId, null);
+                missing.add(videoId);
+            }
+        }
+
+        List<CompletableFuture<List<VideoStatistics>>> batches = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i += MAX_IDS_PER_REQUEST) {
+            batches.add(fetchStatisticsBatch(missing.subList(i, Math.min(missing.size(), i + MAX_IDS_PER_REQUEST)))
+                    .toCompletableFuture());
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            for (CompletableFuture<List<VideoStatistics>> batch : batches) {
+                batch.join().forEach(video -> statistics.replace(video.getVideoId(), video));
+            }
+            statistics.values().removeIf(Objects::isNull);
+            return statistics;
+        });
+    }
+
+    /**
+     * Fetches the statistics of up to {@value #MAX_IDS_PER_REQUEST} videos with one {@code videos.list} call,
+     * caching each video on its own.
+     */
+    private CompletionStage<List<VideoStatistics>> fetchStatisticsBatch(List<String> videoIds) {
+        String ids = videoIds.stream().map(this::encodeQuery).collect(Collectors.joining(","));
+        String url = BASE_URL + "videos?part=statistics,contentDetails&id=" + ids + "&key=" + apiKey;
+
+        return sendRawRequest(url, QuotaScheduler.Priority.BACKGROUND).thenApply(body -> {
+            JsonNode response;
+            try {
+                response = objectMapper.readTree(body);
+            } catch (IOException e) {
+                throw new YouTubeApiException("Error parsing API response.");
+            }
+            List<VideoStatistics> statistics = new ArrayList<>();
+            for (JsonNode item : response.path("items")) {
+                VideoStatistics video = VideoStatistics.from(item);
+                statisticsCache.put(video.getVideoId(), video);
+                statistics.add(video);
+            }
+            return statistics;
         });
     }
 
+    /**
+     * Tells whether calls to the YouTube API are currently being shed, so callers can turn
+     * requests away at the boundary before queueing work that needs the API.
+     *
+     * @return Whether a new API request would be rejected by the concurrency limiter
+     */
+    public boolean isOverloaded() {
+        return httpClient.isSaturated();
+    }
+
+    /**
+     * Builds the canonical search request URL, without the API key, used as the cache key.
+     *
+     * @param query The search query string
+     * @param maxResults The maximum number of results to fetch
+     * @return The search request URL without the API key
+     */
+    public String searchRequest(String query, int maxResults) {
+        return searchRequest(query, maxResults, null);
+    }
+
+    /**
+     * Builds the canonical search request URL of one page, without the API key, used as the cache key.
+     * The query is normalized, so searches differing only in case, spacing or Unicode form share
+     * one cache entry and one upstream call.
+     *
+     * @param query The search query string
+     * @param maxResults The maximum number of results on the page
+     * @param pageToken The token of the page, or null for the first page
+     * @return The search request URL without the API key
+     */
+    public String searchRequest(String query, int maxResults, String pageToken) {
+        return CanonicalRequest.to(BASE_URL + "search")
+                .param("part", "snippet")
+                .param("maxResults", maxResults)
+                .param("q", CanonicalRequest.normalizeQuery(query))
+                .param("pageToken", pageToken)
+                .build();
+    }
+
     /**
      * Encodes the query string to ensure it is safe for URLs by converting it to ASCII string format.
      *
@@ -76,39 +424,141 @@ public class YouTubeService {
      * @return A CompletionStage containing the JSON response with the results of the request
      */
     public CompletionStage<JsonNode> sendRequest(String url) {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .build();
+        return sendRawRequest(url)
+                .thenApply(body -> {
+                    try {
+                        return objectMapper.readTree(body);
+                    } catch (Exception e) {
+                        return JsonNodeFactory.instance.objectNode().put("error", "Error parsing API response.");
+                    }
+                })
+                .exceptionally(this::errorResponse);
+    }
+
+    /**
+     * Sends an HTTP GET request to the specified URL and returns the raw UTF-8 response body,
+     * without decoding it into a String or a JSON tree.
+     *
+     * @param url The API endpoint URL
+     * @return A CompletionStage containing the response body, failed with a
+     *         {@link YouTubeApiException} if the API did not answer with 200, or with a
+     *         {@link Bulkhead.BulkheadFullException}, {@link YouTubeHttpClient.LimitExceededException} or
+     *         {@link QuotaScheduler.QuotaExceededException} if the request was shed
+     */
+    public CompletionStage<byte[]> sendRawRequest(String url) {
+        return sendRawRequest(url, QuotaScheduler.Priority.INTERACTIVE);
+    }
 
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+    /**
+     * Sends an HTTP GET request with the given priority and returns the raw UTF-8 response body.
+     *
+     * @param url The API endpoint URL
+     * @param priority How urgently the response is needed
+     * @return A CompletionStage containing the response body, failed as {@link #sendRawRequest(String)}
+     */
+    public CompletionStage<byte[]> sendRawRequest(String url, QuotaScheduler.Priority priority) {
+        return httpClient.get(url, priority)
                 .thenApply(response -> {
-                    if (response.statusCode() == 200) {
-                        try {
-                            return objectMapper.readTree(response.body());
-                        } catch (Exception e) {
-                            return JsonNodeFactory.instance.objectNode().put("error", "Error parsing API response.");
-                        }
-                    } else {
-                        return JsonNodeFactory.instance.objectNode().put("error", "API returned error code: " + response.statusCode());
+                    if (response.statusCode() != 200) {
+                        throw new YouTubeApiException("API returned error code: " + response.statusCode());
                     }
-                })
-                .exceptionally(e -> JsonNodeFactory.instance.objectNode().put("error", "Error during YouTube API request."));
+                    return response.body();
+                });
+    }
+
+    /**
+     * Streams a response body into a page of videos.
+     *
+     * @param query The query, or channel ID, the response answers
+     * @param body The response body
+     * @return The page of videos
+     */
+    private SearchPage parsePage(String query, InputStream body) {
+        try {
+            return VideoSummaryParser.parsePage(query, body);
+        } catch (IOException e) {
+            throw new YouTubeApiException("Error parsing API response.");
+        }
+    }
+
+    /**
+     * Streams a cached response into a page of videos.
+     *
+     * @param query The query the response answers
+     * @param item The cached response
+     * @return The page of videos
+     */
+    private SearchPage parsePage(String query, QueryCache.CachedItem item) {
+        try (InputStream body = item.openStream()) {
+            return VideoSummaryParser.parsePage(query, body);
+        } catch (IOException e) {
+            throw new YouTubeApiException("Error parsing API response.");
+        }
+    }
+
+    /**
+     * Turns a failed request into the JSON error object returned to callers.
+     *
+     * @param error The failure of the request
+     * @return A JSON object with an {@code error} field describing the failure
+     */
+    private JsonNode errorResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof YouTubeApiException) {
+            return JsonNodeFactory.instance.objectNode().put("error", cause.getMessage());
+        }
+        if (cause instanceof QuotaScheduler.QuotaExceededException) {
+            return JsonNodeFactory.instance.objectNode().put("error", "YouTube API quota is used up, please try again later.");
+        }
+        if (cause instanceof Bulkhead.BulkheadFullException || cause instanceof YouTubeHttpClient.LimitExceededException) {
+            return JsonNodeFactory.instance.objectNode().put("error", "YouTube API is busy, please try again shortly.");
+        }
+        return JsonNodeFactory.instance.objectNode().put("error", "Error during YouTube API request.");
     }
 
     /**
      * Fetches channel details using the YouTube API.
+     * Concurrent lookups are merged into one {@code channels.list} call of up to
+     * {@value #MAX_IDS_PER_REQUEST} channels, which costs the same quota as a single lookup.
      * <p>Author: Saranraj Sivakumar 40306771</p>
      * @param channelId The ID of the YouTube channel
      * @return A CompletionStage containing the JSON response with channel details
      */
     public CompletionStage<JsonNode> fetchChannelDetails(String channelId) {
-        String url = BASE_URL + "channels?part=snippet,statistics&id=" + encodeQuery(channelId) + "&key=" + apiKey;
+        return channelBatcher.load(channelId);
+    }
+
+    /**
+     * Fetches the details of several channels with one {@code channels.list} call.
+     *
+     * @param channelIds The IDs of the YouTube channels, at most {@value #MAX_IDS_PER_REQUEST}
+     * @return A CompletionStage containing, for each channel ID, a JSON response with the
+     *         {@code items} of that channel only, or a JSON error object if the call failed
+     */
+    public CompletionStage<Map<String, JsonNode>> fetchChannelDetails(List<String> channelIds) {
+        String ids = channelIds.stream().map(this::encodeQuery).collect(Collectors.joining(","));
+        String url = BASE_URL + "channels?part=snippet,statistics&id=" + ids + "&key=" + apiKey;
 
         return sendRequest(url).thenApply(response -> {
+            Map<String, JsonNode> details = new HashMap<>();
             if (response.has("error")) {
-                return JsonNodeFactory.instance.objectNode().put("error", "Failed to fetch channel details.");
+                JsonNode error = JsonNodeFactory.instance.objectNode().put("error", "Failed to fetch channel details.");
+                channelIds.forEach(channelId -> details.put(channelId, error));
+                return details;
             }
-            return response;
+            for (String channelId : channelIds) {
+                ObjectNode channel = JsonNodeFactory.instance.objectNode();
+                channel.putArray("items");
+                details.put(channelId, channel);
+            }
+            // The items come back in no particular order, so each is handed to the channel it describes
+            for (JsonNode item : response.path("items")) {
+                JsonNode channel = details.get(item.path("id").asText());
+                if (channel != null) {
+                    ((ObjectNode) channel).withArray("items").add(item);
+                }
+            }
+            return details;
         });
     }
 
@@ -120,13 +570,31 @@ public class YouTubeService {
      * @return A CompletionStage containing the JSON response with the videos
      */
     public CompletionStage<JsonNode> fetchChannelVideos(String channelId, int maxResults) {
-        String url = BASE_URL + "search?part=snippet&channelId=" + encodeQuery(channelId) + "&maxResults=" + maxResults + "&order=date&type=video&key=" + apiKey;
-
-        return sendRequest(url).thenApply(response -> {
+        return sendRequest(channelVideosRequest(channelId, maxResults)).thenApply(response -> {
             if (response.has("error")) {
                 return JsonNodeFactory.instance.objectNode().put("error", "Failed to fetch channel videos.");
             }
             return response;
         });
     }
+
+    /**
+     * Builds the request URL for the latest videos of a channel, including the API key.
+     *
+     * @param channelId The ID of the YouTube channel
+     * @param maxResults The maximum number of videos to fetch
+     * @return The request URL
+     */
+    private String channelVideosRequest(String channelId, int maxResults) {
+        return BASE_URL + "search?part=snippet&channelId=" + encodeQuery(channelId) + "&maxResults=" + maxResults + "&order=date&type=video&key=" + apiKey;
+    }
+
+    /**
+     * Thrown when the YouTube API answers with a status other than 200.
+     */
+    public static class YouTubeApiException extends RuntimeException {
+        public YouTubeApiException(String message) {
+            super(message);
+        }
+    }
 }
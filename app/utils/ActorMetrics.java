@@ -0,0 +1,98 @@
+package utils;
+
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ActorMetrics: Counts the child actors the SupervisorActor keeps per kind (sessions, channel profiles,
+ * word statistics, ...), so a registry that keeps growing shows on the metrics endpoint.
+ * The counts are written by the actor and read from any thread.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+@Singleton
+public class ActorMetrics {
+
+    private final Map<String, Registry> registries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the counts of one kind of actor, starting them on first use.
+     *
+     * @param name The name of the registry, e.g. {@code channelProfileActor}
+     * @return The counts of the registry
+     */
+    public Registry registry(String name) {
+        return registries.computeIfAbsent(name, Registry::new);
+    }
+
+    /**
+     * @return The counts of every registry, by name
+     */
+    public Map<String, Registry> getRegistries() {
+        return Collections.unmodifiableMap(new TreeMap<>(registries));
+    }
+
+    /**
+     * The counts of one kind of actor.
+     */
+    public static class Registry {
+        private final String name;
+        private final AtomicInteger live = new AtomicInteger();
+        private final LongAdder created = new LongAdder();
+        private final LongAdder passivated = new LongAdder();
+        private final LongAdder evicted = new LongAdder();
+
+        Registry(String name) {
+            this.name = name;
+        }
+
+        /** Records an actor started. */
+        public void created() {
+            live.incrementAndGet();
+            created.increment();
+        }
+
+        /** Records an actor terminated, for whatever reason. */
+        public void terminated() {
+            live.decrementAndGet();
+        }
+
+        /** Records an actor stopped after being idle. */
+        public void passivated() {
+            passivated.increment();
+        }
+
+        /** Records an actor stopped to keep the registry within its bound. */
+        public void evicted() {
+            evicted.increment();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The number of actors started and not yet terminated
+         */
+        public int getLive() {
+            return live.get();
+        }
+
+        public long getCreated() {
+            return created.sum();
+        }
+
+        public long getPassivated() {
+            return passivated.sum();
+        }
+
+        public long getEvicted() {
+            return evicted.sum();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AdaptiveLimiter: Limits the number of outbound requests in flight, adjusting the limit from
+ * the observed round-trip times in the manner of TCP Vegas.
+ *
+ * <p>The lowest RTT seen is taken as the no-load latency. From each sample the limiter estimates
+ * how many requests are queueing upstream, {@code limit * (1 - minRtt / rtt)}: while that queue is
+ * short the limit grows, once it gets long the limit shrinks, and a dropped request (timeout,
+ * throttling or server error) cuts the limit multiplicatively. Requests beyond the limit are
+ * rejected at once, so load is shed before latency collapses. The baseline RTT is re-probed
+ * periodically so the limiter follows a lasting change of the upstream latency.</p>
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public class AdaptiveLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 2;
+    public static final int DEFAULT_MAX_LIMIT = 200;
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int PROBE_INTERVAL = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private long minRtt = Long.MAX_VALUE;
+    private int inFlight;
+    private long samples;
+    private long rejected;
+    private long dropped;
+
+    /**
+     * Constructor to initialize the limiter with the default limits.
+     */
+    public AdaptiveLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * @param initialLimit The limit to start from
+     * @param minLimit The lowest the limit may fall to
+     * @param maxLimit The highest the limit may grow to
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limiter bounds: " + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Takes a slot for one request if the limit allows it.
+     *
+     * @return The permit, which must be completed once the request has finished, or null if the request must be shed
+     */
+    public synchronized Permit tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected++;
+            return null;
+        }
+        inFlight++;
+        return new Permit(inFlight);
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        inFlight--;
+        if (++samples % PROBE_INTERVAL == 0) {
+            minRtt = rttNanos;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        minRtt = Math.min(minRtt, rttNanos);
+
+        double queue = limit * (1 - (double) minRtt / rttNanos);
+        double step = Math.max(1, Math.log10(limit));
+        if (queue < 3 * step) {
+            // Only grow while the limit is actually being used
+            if (inFlightAtStart * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + step);
+            }
+        } else if (queue > 6 * step) {
+            limit = Math.max(minLimit, limit - step);
+        }
+    }
+
+    private synchronized void onDropped() {
+        inFlight--;
+        dropped++;
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+    private synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    /**
+     * @return The number of requests currently allowed in flight
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return The number of requests currently in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return Whether the next request would be shed
+     */
+    public synchronized boolean isSaturated() {
+        return inFlight >= (int) limit;
+    }
+
+    /**
+     * @return The number of requests shed because the limit was reached
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return The number of requests that timed out or were refused by the upstream
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Slot of one request in flight. Exactly one of its methods takes effect; later calls are ignored.
+     */
+    public class Permit {
+        private final int inFlightAtStart;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Records a successful request and its round-trip time.
+         *
+         * @param rttNanos The round-trip time of the request in nanoseconds
+         */
+        public void onSuccess(long rttNanos) {
+            if (completed.compareAndSet(false, true)) {
+                onSample(rttNanos, inFlightAtStart);
+            }
+        }
+
+        /**
+         * Records a request that timed out or was refused because the upstream is overloaded.
+         */
+        public void onDropped() {
+            if (completed.compareAndSet(false, true)) {
+                AdaptiveLimiter.this.onDropped();
+            }
+        }
+
+        /**
+         * Frees the slot without using the request as a sample, e.g. when it never reached the upstream.
+         */
+        public void onIgnored() {
+            if (completed.compareAndSet(false, true)) {
+                AdaptiveLimiter.this.onIgnored();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package utils;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead: Caps the number of concurrent asynchronous calls to one upstream endpoint.
+ * Calls beyond the cap wait in a bounded queue for at most a maximum time; once the queue is full,
+ * or the wait runs out, they fail fast with a {@link BulkheadFullException} instead of piling up.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final ArrayDeque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+    private int inFlight;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong queuedTotal = new AtomicLong();
+    private final AtomicLong waitNanosTotal = new AtomicLong();
+
+    /**
+     * @param name The name of the endpoint, used in error messages
+     * @param maxConcurrent The maximum number of calls running at once
+     * @param maxQueued The maximum number of calls waiting for a slot
+     * @param maxWait How long a call may wait for a slot before it is rejected
+     */
+    public Bulkhead(String name, int maxConcurrent, int maxQueued, Duration maxWait) {
+        if (maxConcurrent < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("Invalid bulkhead limits for " + name);
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Runs the call once a slot is free, and frees the slot when the call completes.
+     *
+     * @param call Starts the call
+     * @param <T> The result type of the call
+     * @return The result of the call, failed with a {@link BulkheadFullException} if it was rejected
+     */
+    public <T> CompletionStage<T> execute(Supplier<CompletionStage<T>> call) {
+        return acquire().thenCompose(ignored -> {
+            CompletionStage<T> result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                release();
+                throw e;
+            }
+            return result.whenComplete((value, error) -> release());
+        });
+    }
+
+    private CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> waiter;
+        synchronized (this) {
+            if (inFlight < maxConcurrent) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (waiting.size() >= maxQueued) {
+                rejected.incrementAndGet();
+                return CompletableFuture.failedFuture(new BulkheadFullException(name + " queue is full"));
+            }
+            waiter = new CompletableFuture<>();
+            waiting.add(waiter);
+        }
+        queuedTotal.incrementAndGet();
+        long queuedAt = System.nanoTime();
+        return waiter
+                .orTimeout(maxWait.toNanos(), TimeUnit.NANOSECONDS)
+                .handle((ignored, error) -> {
+                    waitNanosTotal.addAndGet(System.nanoTime() - queuedAt);
+                    if (error == null) {
+                        return null;
+                    }
+                    synchronized (this) {
+                        waiting.remove(waiter);
+                    }
+                    if (error instanceof TimeoutException) {
+                        timedOut.incrementAndGet();
+                        rejected.incrementAndGet();
+                        throw new BulkheadFullException(name + " wait exceeded " + maxWait.toMillis() + "ms");
+                    }
+                    throw new CompletionException(error);
+                });
+    }
+
+    /**
+     * Hands the slot to the longest waiting call, or frees it if nobody waits.
+     */
+    private void release() {
+        CompletableFuture<Void> next;
+        synchronized (this) {
+            do {
+                next = waiting.poll();
+            } while (next != null && next.isDone());
+            if (next == null) {
+                inFlight--;
+                return;
+            }
+        }
+        // The waiter may time out between the poll and here; then pass the slot on again
+        if (!next.complete(null)) {
+            release();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return The number of calls currently holding a slot
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return The number of calls currently waiting for a slot
+     */
+    public synchronized int getQueued() {
+        return waiting.size();
+    }
+
+    /**
+     * @return The number of calls rejected because the queue was full or their wait ran out
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return The number of calls rejected because their wait ran out
+     */
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return The average time calls spent waiting for a slot, over all calls that had to wait
+     */
+    public Duration getAverageWait() {
+        long queued = queuedTotal.get();
+        return queued == 0 ? Duration.ZERO : Duration.ofNanos(waitNanosTotal.get() / queued);
+    }
+
+    /**
+     * Thrown when a call is rejected because its endpoint is saturated.
+     */
+    public static class BulkheadFullException extends RuntimeException {
+        public BulkheadFullException(String message) {
+            super(message);
+        }
+    }
+}
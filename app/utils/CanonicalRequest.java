@@ -0,0 +1,75 @@
+package utils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * CanonicalRequest: Builds the canonical URL of a YouTube API request, used both as the cache key
+ * and, with the API key appended, as the request sent. Parameters are sorted by name, so the same
+ * request always gives the same key, and search queries are normalized so that spellings the API
+ * treats alike share one cache entry and one upstream call.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public final class CanonicalRequest {
+
+    private final String endpointUrl;
+    private final Map<String, String> params = new TreeMap<>();
+
+    private CanonicalRequest(String endpointUrl) {
+        this.endpointUrl = endpointUrl;
+    }
+
+    /**
+     * Starts a request to an endpoint.
+     *
+     * @param endpointUrl The endpoint URL without parameters, e.g. {@code https://www.googleapis.com/youtube/v3/search}
+     * @return The request builder
+     */
+    public static CanonicalRequest to(String endpointUrl) {
+        return new CanonicalRequest(endpointUrl);
+    }
+
+    /**
+     * Adds a parameter; a null value leaves the parameter out.
+     *
+     * @param name The parameter name
+     * @param value The parameter value, not yet URL-encoded
+     * @return This builder
+     */
+    public CanonicalRequest param(String name, Object value) {
+        if (value != null) {
+            params.put(name, String.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * @return The URL with all parameters URL-encoded and sorted by name
+     */
+    public String build() {
+        return endpointUrl + "?" + params.entrySet().stream()
+                .map(param -> param.getKey() + "=" + URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+
+    /**
+     * Normalizes a search query: the {@code +} the web client puts between words is read as a space,
+     * compatibility characters are folded by Unicode NFKC (full-width letters, ligatures, ...),
+     * case is folded and runs of whitespace collapse into one space.
+     *
+     * @param query The search query as typed
+     * @return The normalized query
+     */
+    public static String normalizeQuery(String query) {
+        String normalized = Normalizer.normalize(query.replace('+', ' '), Normalizer.Form.NFKC);
+        // Upper- then lower-casing folds characters without a one-to-one lower case, such as ß to ss
+        normalized = normalized.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        return normalized.trim().replaceAll("\\s+", " ");
+    }
+}
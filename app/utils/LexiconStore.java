@@ -0,0 +1,124 @@
+package utils;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * LexiconStore: Holds the current sentiment lexicon, read from a file and read again whenever
+ * the file changes. The new lexicon is compiled on a background thread and then swapped in at
+ * once, so scoring never waits for a reload: a text is scored with whichever lexicon was current
+ * when its scoring started.
+ *
+ * <p>Until the file is found, and whenever it fails to parse, the lexicon in use is kept; at
+ * startup that is the one shipped with the application.</p>
+ *
+ * <p>Author: Lokesh Kommalapati (40301947)</p>
+ */
+@Singleton
+public class LexiconStore implements Supplier<SentimentLexicon> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LexiconStore.class);
+
+    private final Path path;
+    private final ScheduledExecutorService watcher;
+    private volatile SentimentLexicon current = SentimentLexicon.builtIn();
+    private long loadedModified = -1;
+    private long loadedSize = -1;
+
+    /**
+     * Constructor used by Guice, reading the file and check interval from application.conf.
+     *
+     * @param config The application configuration
+     * @param lifecycle Stops watching the file when the application stops
+     */
+    @Inject
+    public LexiconStore(Config config, ApplicationLifecycle lifecycle) {
+        this(Paths.get(config.getString("tubelytics.sentiment.lexicon")),
+                config.getDuration("tubelytics.sentiment.reload-interval"));
+        lifecycle.addStopHook(() -> {
+            close();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Reads the lexicon file and starts checking it for changes.
+     *
+     * @param path The lexicon file
+     * @param reloadInterval How often the file is checked for changes
+     */
+    public LexiconStore(Path path, Duration reloadInterval) {
+        this.path = path;
+        reload();
+        this.watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sentiment-lexicon-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = reloadInterval.toMillis();
+        watcher.scheduleWithFixedDelay(this::reload, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return The current lexicon
+     */
+    @Override
+    public SentimentLexicon get() {
+        return current;
+    }
+
+    /**
+     * Reads the file again if it was modified since it was last read, and swaps the new
+     * lexicon in if it parses.
+     *
+     * @return Whether a new lexicon was swapped in
+     */
+    public synchronized boolean reload() {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // No file (yet): keep the lexicon in use
+            return false;
+        }
+        long modified = attributes.lastModifiedTime().toMillis();
+        if (modified == loadedModified && attributes.size() == loadedSize) {
+            return false;
+        }
+        try {
+            current = SentimentLexicon.load(path);
+            LOG.info("Sentiment lexicon loaded path={} terms={}", path, current.size());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Keeping the sentiment lexicon in use, cannot read path={}: {}", path, e.getMessage());
+            return false;
+        } finally {
+            // A broken file is not read again until it changes
+            loadedModified = modified;
+            loadedSize = attributes.size();
+        }
+    }
+
+    /**
+     * Stops checking the file for changes.
+     */
+    public void close() {
+        watcher.shutdownNow();
+    }
+}
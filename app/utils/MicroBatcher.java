@@ -0,0 +1,158 @@
+package utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * MicroBatcher: Merges single-key lookups that arrive close together into one batch call.
+ * The first pending key opens a short window; the batch is sent once the window closes or
+ * the maximum batch size is reached, whichever comes first, and each waiter is completed
+ * with the value of its own key. Waiters for the same key share one slot in the batch.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class MicroBatcher<K, V> {
+
+    private final String name;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Function<List<K>, CompletionStage<Map<K, V>>> batchCall;
+    private final ScheduledExecutorService scheduler;
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> flushTimer;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * @param name The name of the batcher, used to name its timer thread
+     * @param window How long the first key of a batch waits for others to join it
+     * @param maxBatchSize The maximum number of distinct keys in one batch call
+     * @param batchCall Looks up a batch of keys; keys missing from its result complete with null
+     */
+    public MicroBatcher(String name, Duration window, int maxBatchSize,
+                        Function<List<K>, CompletionStage<Map<K, V>>> batchCall) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size for " + name + ": " + maxBatchSize);
+        }
+        this.name = name;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchCall = batchCall;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds the key to the current batch.
+     *
+     * @param key The key to look up
+     * @return A CompletionStage completed with the value of the key once its batch has been answered
+     */
+    public CompletionStage<V> load(K key) {
+        requests.incrementAndGet();
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> result;
+        synchronized (this) {
+            result = pending.get(key);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                pending.put(key, result);
+                if (pending.size() >= maxBatchSize) {
+                    full = takePending();
+                } else if (pending.size() == 1) {
+                    flushTimer = scheduler.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return result;
+    }
+
+    /**
+     * Sends the current batch without waiting for its window to close.
+     */
+    public void flush() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        send(batch);
+    }
+
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (flushTimer != null) {
+            flushTimer.cancel(false);
+            flushTimer = null;
+        }
+        return batch;
+    }
+
+    private void send(Map<K, CompletableFuture<V>> batch) {
+        batches.incrementAndGet();
+        CompletionStage<Map<K, V>> response;
+        try {
+            response = batchCall.apply(Collections.unmodifiableList(new ArrayList<>(batch.keySet())));
+        } catch (RuntimeException e) {
+            batch.values().forEach(waiter -> waiter.completeExceptionally(e));
+            return;
+        }
+        response.whenComplete((values, error) -> batch.forEach((key, waiter) -> {
+            if (error != null) {
+                waiter.completeExceptionally(error);
+            } else {
+                waiter.complete(values.get(key));
+            }
+        }));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of keys requested
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of batch calls sent
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Stops the timer thread. Keys still pending are sent at once.
+     */
+    public void shutdown() {
+        flush();
+        scheduler.shutdown();
+    }
+}
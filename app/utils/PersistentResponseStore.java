@@ -0,0 +1,399 @@
+package utils;
+
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PersistentResponseStore: Second cache tier below {@link QueryCache} that keeps raw YouTube
+ * responses in a memory-mapped, append-only segment file, so the cache is warm again after a restart.
+ *
+ * <p>Each record is laid out as {@code [key length][value length][written at][expires at][key][value]}.
+ * The key length is written last and acts as the commit marker of the record. An in-memory index maps
+ * each key to the position of its latest record, and is rebuilt by scanning the file on startup.
+ * Responses are handed out as read-only views of the mapping, so they are parsed without being
+ * copied onto the heap first. Superseded and expired records are dropped by a background compaction
+ * that rewrites the live records into a fresh segment. Writes never wait for a compaction: a response
+ * that does not fit, or arrives while the segment is being rewritten, is simply not persisted.</p>
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+@Singleton
+public class PersistentResponseStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentResponseStore.class);
+
+    private static final int HEADER_BYTES = 24;
+
+    private final Path path;
+    private final int capacity;
+    private final ConcurrentHashMap<String, Entry> index = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor;
+    private volatile MappedByteBuffer segment;
+    private volatile boolean compacting;
+    private boolean compactionRequested;
+    private int tail;
+    private final AtomicLong deadBytes = new AtomicLong();
+
+    /**
+     * Constructor used by Guice, reading the segment location, size and compaction interval
+     * from the {@code tubelytics.cache.persistent} section of application.conf.
+     *
+     * @param config The application configuration
+     * @param lifecycle The application lifecycle, used to flush the segment on shutdown
+     */
+    @Inject
+    public PersistentResponseStore(Config config, ApplicationLifecycle lifecycle) {
+        this(config.getBoolean("tubelytics.cache.persistent.enabled")
+                        ? Paths.get(config.getString("tubelytics.cache.persistent.path"))
+                        : null,
+                config.getBytes("tubelytics.cache.persistent.size"),
+                config.getDuration("tubelytics.cache.persistent.compaction-interval"));
+        lifecycle.addStopHook(() -> {
+            close();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Constructor to open, or create, the segment file at the given path.
+     * If the file cannot be opened the store stays empty and every lookup misses.
+     *
+     * @param path The segment file, or null to disable the store
+     * @param size The size of the segment file in bytes
+     * @param compactionInterval How often to check whether the segment needs compacting
+     */
+    public PersistentResponseStore(Path path, long size, Duration compactionInterval) {
+        this.path = path;
+        this.capacity = (int) Math.min(size, Integer.MAX_VALUE);
+        this.compactor = path != null ? Executors.newSingleThreadScheduledExecutor() : null;
+
+        if (path != null) {
+            try {
+                open();
+            } catch (IOException e) {
+                LOG.warn("Cannot open the persistent response store path={}, running without it", path, e);
+                segment = null;
+            }
+            long interval = compactionInterval.toMillis();
+            compactor.scheduleWithFixedDelay(this::compactIfFragmented, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return A store that never holds anything, for use when persistence is turned off
+     */
+    public static PersistentResponseStore disabled() {
+        return new PersistentResponseStore(null, 0, Duration.ZERO);
+    }
+
+    /**
+     * Looks up the latest unexpired response stored for the key.
+     *
+     * @param key The normalized request URL
+     * @return The stored entry, or null if there is none or it has expired
+     */
+    public Entry get(String key) {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            // No longer in the index, so the compaction check has to count the record as dead
+            if (index.remove(key, entry)) {
+                deadBytes.addAndGet(entry.length());
+            }
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Appends a response to the segment and points the index at it.
+     * If the segment is full the response is not stored and a compaction is started in the background,
+     * making room for later responses; a response arriving during a compaction is not stored either.
+     *
+     * @param key The normalized request URL
+     * @param value The raw response body
+     * @param writtenAt When the response was fetched, in epoch milliseconds
+     * @param expiresAt When the response must no longer be served, in epoch milliseconds
+     * @return Whether the response was stored
+     */
+    public boolean put(String key, byte[] value, long writtenAt, long expiresAt) {
+        return put(key, ByteBuffer.wrap(value), writtenAt, expiresAt);
+    }
+
+    /**
+     * Appends the remaining bytes of a buffer as a response, see {@link #put(String, byte[], long, long)}.
+     *
+     * @param key The normalized request URL
+     * @param value The raw response body
+     * @param writtenAt When the response was fetched, in epoch milliseconds
+     * @param expiresAt When the response must no longer be served, in epoch milliseconds
+     * @return Whether the response was stored
+     */
+    public boolean put(String key, ByteBuffer value, long writtenAt, long expiresAt) {
+        if (segment == null || compacting) {
+            // Skipped rather than waiting on the store lock until the segment is rewritten
+            return false;
+        }
+        synchronized (this) {
+            return append(key, value, writtenAt, expiresAt);
+        }
+    }
+
+    /**
+     * Writes the record at the tail of the segment, holding the store lock.
+     */
+    private boolean append(String key, ByteBuffer value, long writtenAt, long expiresAt) {
+        if (segment == null) {
+            return false;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int valueLength = value.remaining();
+        int length = HEADER_BYTES + keyBytes.length + valueLength;
+        if (tail + (long) length > capacity) {
+            requestCompaction();
+            return false;
+        }
+
+        MappedByteBuffer buffer = segment;
+        buffer.putInt(tail + 4, valueLength);
+        buffer.putLong(tail + 8, writtenAt);
+        buffer.putLong(tail + 16, expiresAt);
+        ByteBuffer body = buffer.duplicate();
+        body.position(tail + HEADER_BYTES);
+        body.put(keyBytes);
+        body.put(value.duplicate());
+        // Commit the record last so a torn write is never picked up by the startup scan
+        buffer.putInt(tail, keyBytes.length);
+
+        Entry previous = index.put(key, new Entry(buffer, tail, keyBytes.length, valueLength, writtenAt, expiresAt));
+        if (previous != null) {
+            deadBytes.addAndGet(previous.length());
+        }
+        tail += length;
+        return true;
+    }
+
+    /**
+     * Starts a compaction on the background thread, unless one is already waiting to run.
+     * Compacting rewrites and syncs the whole segment, far too slow for the thread that completed a request.
+     */
+    private void requestCompaction() {
+        if (!compactionRequested && !compactor.isShutdown()) {
+            compactionRequested = true;
+            compactor.execute(this::compact);
+        }
+    }
+
+    /**
+     * @return The number of live responses in the index
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return The bytes taken by superseded or dropped expired records, reclaimed by the next compaction
+     */
+    public long deadBytes() {
+        return deadBytes.get();
+    }
+
+    /**
+     * Rewrites the live records into a fresh segment file and atomically replaces the current one.
+     * Entries handed out before the compaction stay readable through the old mapping.
+     */
+    public synchronized void compact() {
+        compactionRequested = false;
+        if (segment == null) {
+            return;
+        }
+        compacting = true;
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        long now = System.currentTimeMillis();
+        try {
+            MappedByteBuffer buffer = map(compacted, true);
+            Map<String, Entry> live = new HashMap<>();
+            int position = 0;
+            for (Map.Entry<String, Entry> indexed : index.entrySet()) {
+                Entry entry = indexed.getValue();
+                if (entry.isExpired(now)) {
+                    continue;
+                }
+                ByteBuffer record = entry.segment.duplicate();
+                record.position(entry.offset);
+                record.limit(entry.offset + entry.length());
+                ByteBuffer target = buffer.duplicate();
+                target.position(position);
+                target.put(record);
+                live.put(indexed.getKey(), entry.movedTo(buffer, position));
+                position += entry.length();
+            }
+            buffer.force();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            segment = buffer;
+            tail = position;
+            deadBytes.set(0);
+            index.putAll(live);
+            index.keySet().removeIf(key -> !live.containsKey(key));
+        } catch (IOException e) {
+            LOG.warn("Compacting the persistent response store failed path={}", path, e);
+        } finally {
+            compacting = false;
+        }
+    }
+
+    /**
+     * Flushes the segment to disk and stops the background compaction.
+     */
+    public synchronized void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Compacts the segment once more than half of it is taken by superseded or expired records.
+     */
+    private synchronized void compactIfFragmented() {
+        long now = System.currentTimeMillis();
+        long expiredBytes = 0;
+        for (Entry entry : index.values()) {
+            if (entry.isExpired(now)) {
+                expiredBytes += entry.length();
+            }
+        }
+        if (deadBytes.get() + expiredBytes > tail / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Maps the segment file and rebuilds the index from the committed records in it.
+     */
+    private void open() throws IOException {
+        MappedByteBuffer buffer = map(path, false);
+        long now = System.currentTimeMillis();
+        int position = 0;
+        while (position + HEADER_BYTES <= capacity) {
+            int keyLength = buffer.getInt(position);
+            int valueLength = buffer.getInt(position + 4);
+            if (keyLength <= 0 || valueLength < 0
+                    || (long) position + HEADER_BYTES + keyLength + valueLength > capacity) {
+                break;
+            }
+            Entry entry = new Entry(buffer, position, keyLength, valueLength,
+                    buffer.getLong(position + 8), buffer.getLong(position + 16));
+
+            byte[] keyBytes = new byte[keyLength];
+            ByteBuffer key = buffer.duplicate();
+            key.position(position + HEADER_BYTES);
+            key.get(keyBytes);
+
+            if (entry.isExpired(now)) {
+                deadBytes.addAndGet(entry.length());
+            } else {
+                Entry previous = index.put(new String(keyBytes, StandardCharsets.UTF_8), entry);
+                if (previous != null) {
+                    deadBytes.addAndGet(previous.length());
+                }
+            }
+            position += entry.length();
+        }
+        segment = buffer;
+        tail = position;
+    }
+
+    /**
+     * Maps a segment file of the configured capacity, creating its directory and the file if needed.
+     * The mapping stays valid after the channel is closed.
+     */
+    private MappedByteBuffer map(Path file, boolean truncate) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        StandardOpenOption[] options = truncate
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    /**
+     * Location of a stored response inside a mapped segment.
+     */
+    public static class Entry {
+        private final MappedByteBuffer segment;
+        private final int offset;
+        private final int keyLength;
+        private final int valueLength;
+        private final long writtenAt;
+        private final long expiresAt;
+
+        Entry(MappedByteBuffer segment, int offset, int keyLength, int valueLength, long writtenAt, long expiresAt) {
+            this.segment = segment;
+            this.offset = offset;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+            this.writtenAt = writtenAt;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return A read-only view of the response body, backed directly by the mapped file
+         */
+        public ByteBuffer getBody() {
+            ByteBuffer body = segment.asReadOnlyBuffer();
+            body.position(offset + HEADER_BYTES + keyLength);
+            body.limit(offset + length());
+            return body.slice();
+        }
+
+        public long getWrittenAt() {
+            return writtenAt;
+        }
+
+        public boolean isExpired(long currentTime) {
+            return currentTime >= expiresAt;
+        }
+
+        int length() {
+            return HEADER_BYTES + keyLength + valueLength;
+        }
+
+        Entry movedTo(MappedByteBuffer target, int position) {
+            return new Entry(target, position, keyLength, valueLength, writtenAt, expiresAt);
+        }
+    }
+}
@@ -1,106 +1,562 @@
 package utils;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import play.libs.Json;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Custom cache implementation for storing query results with expiry.
- * It stores query results and automatically cleans up expired entries.
+ * Entries are held in a bounded Caffeine cache (W-TinyLFU admission and eviction) as raw UTF-8
+ * JSON bytes, gzip-compressed above a size threshold, and the cache is bounded by their total size.
+ * Callers get a freshly parsed tree, or stream the bytes themselves through {@link #getOrElseUpdateRaw}.
+ *
+ * <p>Each entry has a soft and a hard time-to-live. Until the soft TTL passes the entry is fresh.
+ * Between the soft and the hard TTL it is stale: it is still served immediately while a single
+ * background refresh replaces it. Only after the hard TTL does a caller wait for the upstream.
+ * Frequently read entries are also refreshed shortly before they become stale.</p>
+ *
+ * <p>Successful results are also written to a {@link PersistentResponseStore}. After a restart an
+ * entry missing from memory is restored from there as stale, so it is served at once and refreshed,
+ * only a few restored entries at a time.</p>
  *
  * <p>Author: Priyadarshine Kumar 40293041</p>
  * <p>Author: Saranraj Sivakumar 40306771</p>
  */
+@Singleton
 public class QueryCache {
 
-    private final ConcurrentHashMap<String, CachedItem> cache;
-    private final long expiryDurationMillis;
-    public final ScheduledExecutorService cleaner;
+    private static final Logger LOG = LoggerFactory.getLogger(QueryCache.class);
+
+    public static final Duration DEFAULT_SOFT_TTL = Duration.ofMillis(2800);
+    public static final Duration DEFAULT_HARD_TTL = Duration.ofSeconds(60);
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 64L * 1024 * 1024;
+    public static final int DEFAULT_REFRESH_AHEAD_HITS = 3;
+    public static final Duration DEFAULT_REFRESH_AHEAD_WINDOW = Duration.ofMillis(700);
+    public static final long DEFAULT_COMPRESS_ABOVE = 4 * 1024;
+    public static final int DEFAULT_RESTORED_REFRESHES = 4;
 
+    private final Cache<String, CachedItem> cache;
+    private final Duration softTtl;
+    private final Duration hardTtl;
+    private final int refreshAheadHits;
+    private final Duration refreshAheadWindow;
+    private final PersistentResponseStore persistentStore;
+    private final Duration persistentTtl;
+    private final long compressAbove;
+    private final Semaphore restoredRefreshes;
+    private final ConcurrentHashMap<String, CompletableFuture<CachedItem>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong backgroundRefreshes = new AtomicLong();
+    public final ScheduledExecutorService cleaner;
 
     /**
-     * Constructor to initialize the QueryCache with a default expiry time of 10 seconds.
-     * It also starts a background task that periodically cleans expired cache items.
+     * Constructor to initialize the QueryCache with the default time-to-live and weight limit.
+     * Entries expire as soon as they go stale, so this cache never serves a stale result.
      */
     public QueryCache() {
-        this.cache = new ConcurrentHashMap<>();
-        this.expiryDurationMillis = 2800; // Cache expiry set to 10 seconds
-        this.cleaner = Executors.newScheduledThreadPool(1);
+        this(DEFAULT_SOFT_TTL, DEFAULT_SOFT_TTL, DEFAULT_MAXIMUM_WEIGHT);
+    }
+
+    /**
+     * Constructor used by Guice, reading the expiry times, weight limit, refresh-ahead and
+     * persistence settings from the {@code tubelytics.cache} section of application.conf.
+     *
+     * @param config The application configuration
+     * @param persistentStore The on-disk tier kept below this cache
+     */
+    @Inject
+    public QueryCache(Config config, PersistentResponseStore persistentStore) {
+        this(config.getDuration("tubelytics.cache.soft-ttl"),
+                config.getDuration("tubelytics.cache.hard-ttl"),
+                config.getBytes("tubelytics.cache.maximum-weight"),
+                config.getInt("tubelytics.cache.refresh-ahead.hits"),
+                config.getDuration("tubelytics.cache.refresh-ahead.window"),
+                persistentStore,
+                config.getDuration("tubelytics.cache.persistent.ttl"),
+                config.getBytes("tubelytics.cache.compress-above"),
+                config.getInt("tubelytics.cache.persistent.max-concurrent-refreshes"));
+    }
+
+    /**
+     * Constructor to initialize the QueryCache with explicit expiry times and weight limit,
+     * using the default refresh-ahead settings.
+     *
+     * @param softTtl How long an entry is served as fresh
+     * @param hardTtl How long an entry may be served at all, stale or not
+     * @param maximumWeight The maximum total size, in bytes, of the serialized cached results
+     */
+    public QueryCache(Duration softTtl, Duration hardTtl, long maximumWeight) {
+        this(softTtl, hardTtl, maximumWeight, DEFAULT_REFRESH_AHEAD_HITS, DEFAULT_REFRESH_AHEAD_WINDOW);
+    }
+
+    /**
+     * Constructor to initialize the QueryCache with every setting given explicitly and no persistent tier.
+     *
+     * @param softTtl How long an entry is served as fresh
+     * @param hardTtl How long an entry may be served at all, stale or not
+     * @param maximumWeight The maximum total size, in bytes, of the serialized cached results
+     * @param refreshAheadHits How many reads make an entry hot enough to refresh ahead of time
+     * @param refreshAheadWindow How long before going stale a hot entry is refreshed
+     */
+    public QueryCache(Duration softTtl, Duration hardTtl, long maximumWeight, int refreshAheadHits, Duration refreshAheadWindow) {
+        this(softTtl, hardTtl, maximumWeight, refreshAheadHits, refreshAheadWindow, PersistentResponseStore.disabled(), Duration.ZERO,
+                DEFAULT_COMPRESS_ABOVE);
+    }
+
+    /**
+     * Constructor to initialize the QueryCache with every setting given explicitly, on top of
+     * a persistent tier. Entries past their hard TTL are removed by a single background thread
+     * that is only woken up when the next entry is due, instead of sweeping the whole cache.
+     *
+     * @param softTtl How long an entry is served as fresh
+     * @param hardTtl How long an entry may be served at all, stale or not
+     * @param maximumWeight The maximum total size, in bytes, of the serialized cached results
+     * @param refreshAheadHits How many reads make an entry hot enough to refresh ahead of time
+     * @param refreshAheadWindow How long before going stale a hot entry is refreshed
+     * @param persistentStore The on-disk tier kept below this cache
+     * @param persistentTtl How long a result is kept in the on-disk tier
+     * @param compressAbove The body size, in bytes, from which results are stored gzip-compressed
+     */
+    public QueryCache(Duration softTtl, Duration hardTtl, long maximumWeight, int refreshAheadHits, Duration refreshAheadWindow,
+                      PersistentResponseStore persistentStore, Duration persistentTtl, long compressAbove) {
+        this(softTtl, hardTtl, maximumWeight, refreshAheadHits, refreshAheadWindow, persistentStore, persistentTtl, compressAbove,
+                DEFAULT_RESTORED_REFRESHES);
+    }
 
-        // Periodically clean expired entries
-        cleaner.scheduleAtFixedRate(this::cleanUp, expiryDurationMillis, expiryDurationMillis, TimeUnit.MILLISECONDS);
+    /**
+     * Constructor to initialize the QueryCache with every setting given explicitly, on top of
+     * a persistent tier, including how many restored entries may be refreshed at once.
+     *
+     * @param softTtl How long an entry is served as fresh
+     * @param hardTtl How long an entry may be served at all, stale or not
+     * @param maximumWeight The maximum total size, in bytes, of the serialized cached results
+     * @param refreshAheadHits How many reads make an entry hot enough to refresh ahead of time
+     * @param refreshAheadWindow How long before going stale a hot entry is refreshed
+     * @param persistentStore The on-disk tier kept below this cache
+     * @param persistentTtl How long a result is kept in the on-disk tier, and may be served stale once restored
+     * @param compressAbove The body size, in bytes, from which results are stored gzip-compressed
+     * @param maxRestoredRefreshes How many refreshes of restored entries may run at the same time
+     */
+    public QueryCache(Duration softTtl, Duration hardTtl, long maximumWeight, int refreshAheadHits, Duration refreshAheadWindow,
+                      PersistentResponseStore persistentStore, Duration persistentTtl, long compressAbove, int maxRestoredRefreshes) {
+        this.softTtl = softTtl;
+        this.hardTtl = hardTtl;
+        this.refreshAheadHits = refreshAheadHits;
+        this.refreshAheadWindow = refreshAheadWindow;
+        this.persistentStore = persistentStore;
+        this.persistentTtl = persistentTtl;
+        this.compressAbove = compressAbove;
+        this.restoredRefreshes = new Semaphore(maxRestoredRefreshes);
+        this.cleaner = Executors.newScheduledThreadPool(1);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((String key, CachedItem item) -> key.getBytes(StandardCharsets.UTF_8).length + item.getHeapWeight())
+                .expireAfter(new PerEntryExpiry())
+                .scheduler(Scheduler.forScheduledExecutorService(cleaner))
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
     }
 
     /**
-     * Store the result for a query in the cache.
+     * Store the result for a query in the cache using the default time-to-live.
      *
      * @param key The query string.
      * @param value The JSON result to store.
      */
     public void put(String key, JsonNode value) {
-        long expiryTime = System.currentTimeMillis() + expiryDurationMillis;
-        System.out.println("Adding item to cache with key: " + key );
-        cache.put(key, new CachedItem(value, expiryTime));
+        put(key, value, softTtl);
+    }
+
+    /**
+     * Store the result for a query in the cache with its own time-to-live.
+     * The entry is fresh for {@code entryTtl} and can be served stale until the
+     * hard TTL of the cache, or {@code entryTtl} if that is longer.
+     *
+     * @param key The query string.
+     * @param value The JSON result to store.
+     * @param entryTtl How long the entry stays fresh.
+     */
+    public void put(String key, JsonNode value, Duration entryTtl) {
+        put(key, serialize(value), entryTtl);
+    }
+
+    /**
+     * Store the raw UTF-8 JSON body for a query in the cache with its own time-to-live.
+     * Bodies larger than the compression threshold are kept gzip-compressed.
+     *
+     * @param key The query string.
+     * @param body The JSON body to store.
+     * @param entryTtl How long the entry stays fresh.
+     * @return The stored entry
+     */
+    public CachedItem put(String key, byte[] body, Duration entryTtl) {
+        long now = System.currentTimeMillis();
+        long freshUntil = now + entryTtl.toMillis();
+        long expiryTime = now + Math.max(entryTtl.toMillis(), hardTtl.toMillis());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Caching response key={} bytes={} ttl={}", key, body.length, entryTtl);
+        }
+        CachedItem item = new CachedItem(ByteBuffer.wrap(encode(body)), freshUntil, expiryTime);
+        cache.put(key, item);
+        return item;
     }
 
     /**
-     * Retrieve a result from the cache if it hasn't expired.
+     * Retrieve a result from the cache if it hasn't expired, whether it is fresh or stale.
+     * Every call parses the stored bytes into a new tree, so callers never share a mutable tree.
+     * Callers that must not see a stale result use {@link #getIfFresh} instead.
      *
      * @param key The query string.
      * @return The cached JSON result, or null if not found or expired.
      */
     public JsonNode get(String key) {
-        CachedItem item = cache.get(key);
+        CachedItem item = cache.getIfPresent(key);
 
         return item != null ? item.getValue() : null;
     }
 
+    /**
+     * Retrieve the raw entry for a key from the memory tier if it is still fresh, without loading
+     * or refreshing it, e.g. to derive a smaller result from a larger one already cached.
+     *
+     * @param key The query string.
+     * @return The cached entry, or null if not found, stale or expired.
+     */
+    public CachedItem getIfFresh(String key) {
+        CachedItem item = cache.getIfPresent(key);
+
+        return item != null && !item.isStale(System.currentTimeMillis()) ? item : null;
+    }
+
+    /**
+     * Retrieve the raw entry for a key from memory or, failing that, the persistent tier, whether it is
+     * fresh or stale, without loading or refreshing it; e.g. to answer from any copy at hand when
+     * calling the upstream has to be avoided.
+     *
+     * @param key The query string.
+     * @return The cached entry, or null if neither tier holds an unexpired one.
+     */
+    public CachedItem getIfCached(String key) {
+        CachedItem item = cache.getIfPresent(key);
+
+        return item != null ? item : restorePersisted(key);
+    }
+
     /**
      * Fetch a result from the cache or compute it using the provided Callable.
-     * If the result is not cached or expired, it calls the block to compute it.
+     * Results whose JSON carries an {@code error} field, and the empty object returned when the
+     * block itself throws, are handed to the caller but not cached.
      *
      * @param key The query string.
      * @param block The computation block to execute if the result is not in the cache or expired.
      * @return A CompletionStage containing the result.
+     * @see #getOrElseUpdateRaw(String, Callable)
      */
     public CompletionStage<JsonNode> getOrElseUpdate(String key, Callable<CompletionStage<JsonNode>> block) {
-        JsonNode cachedResult = this.get(key);
-
-        if (cachedResult != null) {
-            // If result is already cached, return it
-            return CompletableFuture.supplyAsync(() -> cachedResult);
-        } else {
+        return getOrElseUpdateRaw(key, () -> {
+            CompletionStage<JsonNode> result;
             try {
-                // Fetch the result and cache it
-                return block.call().thenApplyAsync(result -> {
-                    this.put(key, result);
-                    return result;
-                });
+                result = block.call();
             } catch (Exception e) {
-                e.printStackTrace();
+                LOG.warn("Fetching the response failed key={}", key, e);
                 // Return an empty JSON object in case of failure
-                return CompletableFuture.supplyAsync(Json::newObject);
+                return CompletableFuture.failedFuture(new UncachedResult(Json.newObject()));
+            }
+            return result.thenApply(QueryCache::cacheableBody);
+        }).thenApply(CachedItem::getValue).exceptionally(QueryCache::uncachedValue);
+    }
+
+    /**
+     * Fetch the raw JSON body for a key from the cache or fetch it using the provided Callable,
+     * which also refreshes stale and hot entries, see {@link #getOrElseUpdateRaw(String, Callable, Callable)}.
+     *
+     * @param key The query string.
+     * @param block The block fetching the raw JSON body if it is not in the cache or expired.
+     * @return A CompletionStage containing the cached entry, to be parsed or streamed by the caller.
+     */
+    public CompletionStage<CachedItem> getOrElseUpdateRaw(String key, Callable<CompletionStage<byte[]>> block) {
+        return getOrElseUpdateRaw(key, block, block);
+    }
+
+    /**
+     * Fetch the raw JSON body for a key from the cache or fetch it using the provided Callables.
+     * A fresh entry is returned as is. A stale entry is returned immediately and one background
+     * call to the refresh block replaces it. Only a missing or hard-expired entry makes the caller wait
+     * for the block. Hot entries close to going stale are refreshed in the background as well.
+     * A block that fails leaves the cache untouched and its failure is passed to the caller.
+     *
+     * @param key The query string.
+     * @param block The block fetching the raw JSON body if it is not in the cache or expired.
+     * @param refreshBlock The block fetching the raw JSON body in the background, for a stale or hot entry;
+     *                     nobody waits for it, so it may run at a lower priority than the block.
+     * @return A CompletionStage containing the cached entry, to be parsed or streamed by the caller.
+     */
+    public CompletionStage<CachedItem> getOrElseUpdateRaw(String key, Callable<CompletionStage<byte[]>> block,
+                                                          Callable<CompletionStage<byte[]>> refreshBlock) {
+        CachedItem item = cache.getIfPresent(key);
+
+        if (item == null) {
+            item = restorePersisted(key);
+            if (item == null) {
+                return load(key, block);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        int hits = item.recordHit();
+        if (item.isStale(now)) {
+            // Serve the stale result right away and revalidate it in the background
+            staleHits.incrementAndGet();
+            if (item.isMapped()) {
+                refreshRestored(key, refreshBlock);
+            } else {
+                refresh(key, refreshBlock);
             }
+        } else if (hits >= refreshAheadHits && item.isStale(now + refreshAheadWindow.toMillis())) {
+            // Hot entry about to go stale, refresh it before anyone sees it stale
+            refresh(key, refreshBlock);
+        }
+
+        // A hit is already at hand, so it completes on the caller's thread instead of hopping to the common pool
+        return CompletableFuture.completedFuture(item);
+    }
+
+    /**
+     * Fetch the raw JSON body for a key using the provided Callable, whatever the cache holds,
+     * and cache the result for the callers of {@link #getOrElseUpdateRaw}. A call already running
+     * for the key is joined instead of starting another one. A block that fails leaves the cache
+     * untouched and its failure is passed to the caller.
+     *
+     * @param key The query string.
+     * @param block The block fetching the raw JSON body.
+     * @return A CompletionStage containing the newly cached entry.
+     */
+    public CompletionStage<CachedItem> refreshRaw(String key, Callable<CompletionStage<byte[]>> block) {
+        return load(key, block);
+    }
+
+    /**
+     * Starts a background call to the block for the key, unless one is already running.
+     */
+    private void refresh(String key, Callable<CompletionStage<byte[]>> block) {
+        if (!inFlight.containsKey(key)) {
+            backgroundRefreshes.incrementAndGet();
+            load(key, block);
         }
     }
 
     /**
-     * Periodically clean expired items from the cache.
+     * Starts a background call to the block for a restored key, unless one is already running or
+     * too many restored keys are being refreshed already. Right after a restart nearly every lookup
+     * hits a restored entry, so without a bound a warm cache would still refresh them all at once;
+     * an entry that gets no slot stays served from disk and is retried on its next lookup.
+     */
+    private void refreshRestored(String key, Callable<CompletionStage<byte[]>> block) {
+        if (inFlight.containsKey(key) || !restoredRefreshes.tryAcquire()) {
+            return;
+        }
+        backgroundRefreshes.incrementAndGet();
+        load(key, block).whenComplete((item, error) -> restoredRefreshes.release());
+    }
+
+    /**
+     * Calls the block for the key and caches a successful result.
+     * Concurrent loads of the same key share a single call to the block: the first
+     * caller registers its pending result and every later caller joins it until it completes.
+     * Failed results are handed to the waiting callers but are never cached.
+     */
+    private CompletionStage<CachedItem> load(String key, Callable<CompletionStage<byte[]>> block) {
+        CompletableFuture<CachedItem> pending = new CompletableFuture<>();
+        CompletableFuture<CachedItem> inFlight = this.inFlight.putIfAbsent(key, pending);
+        if (inFlight != null) {
+            // Another caller is already fetching this key, join its result
+            coalescedRequests.incrementAndGet();
+            return inFlight;
+        }
+
+        try {
+            // Fetch the result and cache it
+            block.call().whenComplete((body, error) -> {
+                CachedItem item = null;
+                Throwable failure = error;
+                try {
+                    if (error == null) {
+                        item = this.put(key, body, softTtl);
+                        persist(key, item);
+                    }
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    // Always release the key, or every later caller would join a result that never comes
+                    this.inFlight.remove(key, pending);
+                    if (failure != null) {
+                        pending.completeExceptionally(failure);
+                    } else {
+                        pending.complete(item);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            this.inFlight.remove(key, pending);
+            pending.completeExceptionally(e);
+        }
+        return pending;
+    }
+
+    /**
+     * Loads the entry for the key from the persistent tier into memory.
+     * The entry keeps pointing at the mapped file, so restoring it adds no copy of the body to the heap
+     * and it is not weighed against the memory bound. Both its freshness and its expiry are counted
+     * from when it was originally fetched, so an entry kept across a restart is normally stale and gets
+     * refreshed on first use. It may be served stale for as long as the persistent tier keeps it,
+     * and one older than that is not restored at all but fetched again.
+     */
+    private CachedItem restorePersisted(String key) {
+        PersistentResponseStore.Entry entry = persistentStore.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long writtenAt = entry.getWrittenAt();
+        long expiryTime = writtenAt + Math.max(softTtl.toMillis(), Math.max(hardTtl.toMillis(), persistentTtl.toMillis()));
+        if (System.currentTimeMillis() > expiryTime) {
+            return null;
+        }
+        CachedItem restored = new CachedItem(entry.getBody(), writtenAt + softTtl.toMillis(), expiryTime, true);
+        cache.put(key, restored);
+        return restored;
+    }
+
+    /**
+     * Writes a successful result through to the persistent tier, in the same encoding as in memory.
+     * The result is already cached in memory, so a failed write is only logged.
+     */
+    private void persist(String key, CachedItem item) {
+        long now = System.currentTimeMillis();
+        try {
+            persistentStore.put(key, item.getData(), now, now + persistentTtl.toMillis());
+        } catch (RuntimeException e) {
+            LOG.warn("Persisting the response failed key={}", key, e);
+        }
+    }
+
+    /**
+     * Compresses a body with gzip when it is above the compression threshold and actually shrinks.
+     */
+    private byte[] encode(byte[] body) {
+        if (body.length < compressAbove) {
+            return body;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            return body;
+        }
+        return compressed.size() < body.length ? compressed.toByteArray() : body;
+    }
+
+    private static byte[] serialize(JsonNode value) {
+        try {
+            return Json.mapper().writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serializes a block result for caching, or rejects it when it is an error result.
+     */
+    private static byte[] cacheableBody(JsonNode result) {
+        if (result == null || result.has("error")) {
+            throw new UncachedResult(result);
+        }
+        return serialize(result);
+    }
+
+    /**
+     * Hands an uncached result back to the caller, and passes any other failure on.
+     */
+    private static JsonNode uncachedValue(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof UncachedResult) {
+            return ((UncachedResult) cause).value;
+        }
+        throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+    }
+
+    /**
+     * @return The number of callers that joined an already running fetch instead of starting their own
+     */
+    public long coalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * @return The number of lookups answered with a stale entry while it was being revalidated
+     */
+    public long staleHits() {
+        return staleHits.get();
+    }
+
+    /**
+     * @return The number of background refreshes started, for stale or hot entries
+     */
+    public long backgroundRefreshes() {
+        return backgroundRefreshes.get();
+    }
+
+    /**
+     * Run any pending expiry and eviction work immediately.
      */
     public void cleanUp() {
-        long currentTime = System.currentTimeMillis();
-        cache.entrySet().removeIf(entry -> {
-            boolean expired = entry.getValue().isExpired(currentTime);
-            if (expired) {
-                System.out.println("Cleaning up expired cache for key: " + entry.getKey());
-            }
-            return expired;
-        });
+        cache.cleanUp();
+    }
+
+    /**
+     * @return The approximate number of entries currently in the cache
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * @return The hit, miss and eviction counters recorded since the cache was created
+     */
+    public CacheStats stats() {
+        return cache.stats();
     }
 
     /**
@@ -111,23 +567,122 @@ public class QueryCache {
     }
 
     /**
-     * Inner class representing a cached item with an expiry timestamp.
+     * Caffeine expiry policy that honours the hard expiry timestamp stored in each entry.
      */
-    public static class CachedItem {
+    private static class PerEntryExpiry implements Expiry<String, CachedItem> {
+        @Override
+        public long expireAfterCreate(String key, CachedItem item, long currentTime) {
+            return item.remainingNanos(System.currentTimeMillis());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedItem item, long currentTime, long currentDuration) {
+            return item.remainingNanos(System.currentTimeMillis());
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedItem item, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * Result produced by a block that is returned to its callers but must not be cached.
+     */
+    private static class UncachedResult extends RuntimeException {
         private final JsonNode value;
-        private final long expiryTime;
 
-        public CachedItem(JsonNode value, long expiryTime) {
+        UncachedResult(JsonNode value) {
+            super(null, null, false, false);
             this.value = value;
+        }
+    }
+
+    /**
+     * Inner class representing a cached item with its freshness and expiry timestamps.
+     * The JSON body is kept as compact UTF-8 bytes, possibly gzip-compressed, and is only
+     * parsed or streamed when a caller asks for it.
+     */
+    public static class CachedItem {
+        private final ByteBuffer data;
+        private final long freshUntil;
+        private final long expiryTime;
+        private final boolean mapped;
+        private final AtomicInteger hits = new AtomicInteger();
+
+        public CachedItem(ByteBuffer data, long freshUntil, long expiryTime) {
+            this(data, freshUntil, expiryTime, false);
+        }
+
+        CachedItem(ByteBuffer data, long freshUntil, long expiryTime, boolean mapped) {
+            this.data = data.asReadOnlyBuffer();
+            this.freshUntil = freshUntil;
             this.expiryTime = expiryTime;
+            this.mapped = mapped;
         }
 
+        /**
+         * @return A new tree parsed from the stored body
+         */
         public JsonNode getValue() {
-            return value;
+            try (InputStream in = openStream()) {
+                return Json.mapper().readTree(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return A stream over the uncompressed JSON body, for streaming parsers
+         * @throws IOException If the compressed body cannot be read
+         */
+        public InputStream openStream() throws IOException {
+            ByteBuffer body = data.duplicate();
+            InputStream in = new ByteBufferBackedInputStream(body);
+            boolean gzipped = body.remaining() >= 2
+                    && body.get(body.position()) == (byte) 0x1f && body.get(body.position() + 1) == (byte) 0x8b;
+            return gzipped ? new GZIPInputStream(in) : in;
+        }
+
+        /**
+         * @return A read-only view of the stored, possibly compressed, body
+         */
+        public ByteBuffer getData() {
+            return data.duplicate();
+        }
+
+        public int getWeight() {
+            return data.remaining();
+        }
+
+        /**
+         * @return The heap taken by the body, none for a body restored from the mapped file
+         */
+        int getHeapWeight() {
+            return mapped ? 0 : getWeight();
+        }
+
+        /**
+         * @return Whether the body was restored from the persistent tier and is read from the mapped file
+         */
+        public boolean isMapped() {
+            return mapped;
+        }
+
+        public boolean isStale(long currentTime) {
+            return currentTime > freshUntil;
         }
 
         public boolean isExpired(long currentTime) {
             return currentTime > expiryTime;
         }
+
+        int recordHit() {
+            return hits.incrementAndGet();
+        }
+
+        long remainingNanos(long currentTime) {
+            return Duration.ofMillis(Math.max(0, expiryTime - currentTime)).toNanos();
+        }
     }
 }
@@ -0,0 +1,193 @@
+package utils;
+
+import com.typesafe.config.Config;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * QuotaScheduler: Keeps outbound calls within the daily unit quota of the YouTube Data API.
+ * Every call is priced by its endpoint ({@code search.list} costs far more than {@code channels.list})
+ * and paid from a token bucket that holds one day's budget and refills continuously over the day.
+ *
+ * <p>Interactive calls may spend the whole bucket, while background calls must leave a reserve
+ * untouched, so searches from the web client keep working after batch work such as word statistics
+ * has used its share. A call that cannot be paid is rejected at once; callers then fall back to
+ * cached and stale responses.</p>
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+@Singleton
+public class QuotaScheduler {
+
+    public static final long DEFAULT_DAILY_BUDGET = 10_000;
+    public static final long DEFAULT_BACKGROUND_RESERVE = 2_000;
+    public static final Map<String, Long> DEFAULT_PRICES = Map.of(
+            "search", 100L, "channels", 1L, "videos", 1L, YouTubeHttpClient.DEFAULT_ENDPOINT, 1L);
+
+    private static final long NANOS_PER_DAY = Duration.ofDays(1).toNanos();
+
+    /**
+     * How urgently a call is needed.
+     */
+    public enum Priority {
+        /** Directly requested by a user waiting for the answer */
+        INTERACTIVE,
+        /** Batch or speculative work that may be dropped when the budget runs low */
+        BACKGROUND
+    }
+
+    private final long dailyBudget;
+    private final long backgroundReserve;
+    private final Map<String, Long> prices;
+    private final LongSupplier clock;
+    private double tokens;
+    private long lastRefill;
+    private long spent;
+    private long deniedInteractive;
+    private long deniedBackground;
+
+    /**
+     * Constructor to initialize the scheduler with the default budget and prices.
+     */
+    public QuotaScheduler() {
+        this(DEFAULT_DAILY_BUDGET, DEFAULT_BACKGROUND_RESERVE, DEFAULT_PRICES);
+    }
+
+    /**
+     * Constructor used by Guice, reading the budget, reserve and prices
+     * from the {@code tubelytics.youtube.quota} section of application.conf.
+     *
+     * @param config The application configuration
+     */
+    @Inject
+    public QuotaScheduler(Config config) {
+        this(config.getLong("tubelytics.youtube.quota.daily-budget"),
+                config.getLong("tubelytics.youtube.quota.background-reserve"),
+                prices(config.getConfig("tubelytics.youtube.quota.prices")));
+    }
+
+    /**
+     * @param dailyBudget The number of quota units available per day
+     * @param backgroundReserve The units background calls must leave for interactive ones
+     * @param prices The units each endpoint costs; must contain {@value YouTubeHttpClient#DEFAULT_ENDPOINT}
+     */
+    public QuotaScheduler(long dailyBudget, long backgroundReserve, Map<String, Long> prices) {
+        this(dailyBudget, backgroundReserve, prices, System::nanoTime);
+    }
+
+    QuotaScheduler(long dailyBudget, long backgroundReserve, Map<String, Long> prices, LongSupplier clock) {
+        if (!prices.containsKey(YouTubeHttpClient.DEFAULT_ENDPOINT)) {
+            throw new IllegalArgumentException("A '" + YouTubeHttpClient.DEFAULT_ENDPOINT + "' price is required");
+        }
+        this.dailyBudget = dailyBudget;
+        this.backgroundReserve = backgroundReserve;
+        this.prices = Collections.unmodifiableMap(new HashMap<>(prices));
+        this.clock = clock;
+        this.tokens = dailyBudget;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /**
+     * Pays for one call to the endpoint if the budget allows it.
+     *
+     * @param endpoint The endpoint name, such as {@code search}
+     * @param priority How urgently the call is needed
+     * @return Whether the call was paid for and may be sent
+     */
+    public synchronized boolean tryAcquire(String endpoint, Priority priority) {
+        refill();
+        long cost = priceOf(endpoint);
+        long floor = priority == Priority.BACKGROUND ? backgroundReserve : 0;
+        if (tokens - cost < floor) {
+            if (priority == Priority.BACKGROUND) {
+                deniedBackground++;
+            } else {
+                deniedInteractive++;
+            }
+            return false;
+        }
+        tokens -= cost;
+        spent += cost;
+        return true;
+    }
+
+    /**
+     * Gives back the units of a paid call that never reached the API.
+     *
+     * @param endpoint The endpoint name
+     */
+    public synchronized void refund(String endpoint) {
+        long cost = priceOf(endpoint);
+        tokens = Math.min(dailyBudget, tokens + cost);
+        spent -= cost;
+    }
+
+    /**
+     * @param endpoint The endpoint name
+     * @return The units one call to the endpoint costs
+     */
+    public long priceOf(String endpoint) {
+        Long price = prices.get(endpoint);
+        return price != null ? price : prices.get(YouTubeHttpClient.DEFAULT_ENDPOINT);
+    }
+
+    /**
+     * @return Whether the budget has fallen into the reserve, so only interactive calls are sent
+     */
+    public synchronized boolean isLow() {
+        refill();
+        return tokens < backgroundReserve;
+    }
+
+    /**
+     * @return The units currently available
+     */
+    public synchronized long getAvailable() {
+        refill();
+        return (long) tokens;
+    }
+
+    /**
+     * @return The units spent since startup
+     */
+    public synchronized long getSpent() {
+        return spent;
+    }
+
+    /**
+     * @param priority The priority of the calls
+     * @return The number of calls of that priority rejected for lack of budget
+     */
+    public synchronized long getDenied(Priority priority) {
+        return priority == Priority.BACKGROUND ? deniedBackground : deniedInteractive;
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(dailyBudget, tokens + (double) dailyBudget * (now - lastRefill) / NANOS_PER_DAY);
+        lastRefill = now;
+    }
+
+    private static Map<String, Long> prices(Config config) {
+        Map<String, Long> prices = new HashMap<>();
+        for (String endpoint : config.root().keySet()) {
+            prices.put(endpoint, config.getLong(endpoint));
+        }
+        return prices;
+    }
+
+    /**
+     * Thrown when a call is rejected because the quota budget does not cover it.
+     */
+    public static class QuotaExceededException extends RuntimeException {
+        public QuotaExceededException(String message) {
+            super(message);
+        }
+    }
+}
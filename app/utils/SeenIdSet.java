@@ -0,0 +1,96 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SeenIdSet: Compact set of the IDs a session has already been sent.
+ * Each ID is kept as a 64-bit fingerprint in an open-addressing table of primitive longs,
+ * about 16 bytes per ID instead of the hundred or so of a {@code HashSet<String>}.
+ * Two different IDs may share a fingerprint, but at 64 bits that is negligible for
+ * the few thousand IDs a session sees.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+public class SeenIdSet {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private long[] slots = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds the ID to the set.
+     *
+     * @param id The ID
+     * @return Whether the ID was not in the set yet
+     */
+    public boolean add(String id) {
+        long fingerprint = fingerprint(id);
+        int slot = find(slots, fingerprint);
+        if (slots[slot] == fingerprint) {
+            return false;
+        }
+        slots[slot] = fingerprint;
+        // Keep the table at most half full so probe sequences stay short
+        if (++size * 2 > slots.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @param id The ID
+     * @return Whether the ID is in the set
+     */
+    public boolean contains(String id) {
+        long fingerprint = fingerprint(id);
+        return slots[find(slots, fingerprint)] == fingerprint;
+    }
+
+    /**
+     * @return The number of IDs in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] grown = new long[slots.length * 2];
+        for (long fingerprint : slots) {
+            if (fingerprint != 0) {
+                grown[find(grown, fingerprint)] = fingerprint;
+            }
+        }
+        slots = grown;
+    }
+
+    /**
+     * Finds the slot holding the fingerprint, or the empty slot where it belongs.
+     */
+    private static int find(long[] table, long fingerprint) {
+        int mask = table.length - 1;
+        int slot = (int) fingerprint & mask;
+        while (table[slot] != 0 && table[slot] != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, followed by the MurmurHash3 finalizer to spread the low bits.
+     * Zero marks an empty slot, so it is never returned.
+     */
+    static long fingerprint(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+}
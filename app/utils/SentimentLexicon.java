@@ -0,0 +1,228 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * SentimentLexicon: Immutable weighted sentiment lexicon, compiled into a {@link TermMatcher}
+ * with the score of each term in a primitive array indexed by term.
+ *
+ * <p>The lexicon is read from AFINN-style lines of a term and its score, separated by a tab,
+ * from about -5 for the saddest words to 5 for the happiest. Two kinds of rule words are
+ * declared the same way:</p>
+ * <ul>
+ *     <li>{@code @negation<TAB>not} flips and dampens the score of a term up to
+ *     {@value #NEGATION_WINDOW} words after it, as in "not good";</li>
+ *     <li>{@code @intensifier<TAB>very<TAB>1.3} multiplies the score of the term right after it,
+ *     as in "very good", or damps it with a factor below 1, as in "slightly sad".</li>
+ * </ul>
+ * Blank lines and lines starting with {@code #} are skipped.
+ *
+ * <p>A text is scored with a {@link Scorer}, which sums the scores of the terms found and
+ * normalizes the sum into (-1, 1) the way VADER's compound score does.</p>
+ *
+ * <p>Author: Lokesh Kommalapati (40301947)</p>
+ */
+public final class SentimentLexicon {
+
+    /** The most words between a negation and the term it negates */
+    public static final int NEGATION_WINDOW = 3;
+
+    /** What a negated score is multiplied by: "not good" is less bad than "bad" */
+    public static final double NEGATION_SCALAR = -0.74;
+
+    /** How quickly the normalized score approaches -1 or 1 as the sum grows */
+    private static final double NORMALIZATION_ALPHA = 15;
+
+    /** The classpath resource of the lexicon shipped with the application */
+    public static final String BUILT_IN_RESOURCE = "sentiment-lexicon.tsv";
+
+    private static final byte TERM = 0;
+    private static final byte NEGATION = 1;
+    private static final byte INTENSIFIER = 2;
+
+    private static volatile SentimentLexicon builtIn;
+
+    private final TermMatcher matcher;
+    // By term index: the kind of the term, and its score or, for an intensifier, its factor
+    private final byte[] kinds;
+    private final double[] weights;
+
+    private SentimentLexicon(List<String> terms, byte[] kinds, double[] weights) {
+        this.matcher = new TermMatcher(terms);
+        this.kinds = kinds;
+        this.weights = weights;
+    }
+
+    /**
+     * Compiles a lexicon from its lines.
+     *
+     * @param lines The lines of a lexicon file
+     * @return The lexicon
+     * @throws IllegalArgumentException If a line is not a term or rule with a valid score
+     */
+    public static SentimentLexicon parse(List<String> lines) {
+        List<String> terms = new ArrayList<>(lines.size());
+        byte[] kinds = new byte[lines.size()];
+        double[] weights = new double[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            int term = terms.size();
+            try {
+                if (fields[0].equals("@negation") && fields.length == 2) {
+                    kinds[term] = NEGATION;
+                    terms.add(fields[1]);
+                } else if (fields[0].equals("@intensifier") && fields.length == 3) {
+                    kinds[term] = INTENSIFIER;
+                    weights[term] = Double.parseDouble(fields[2]);
+                    terms.add(fields[1]);
+                } else if (!fields[0].startsWith("@") && fields.length == 2) {
+                    kinds[term] = TERM;
+                    weights[term] = Double.parseDouble(fields[1]);
+                    terms.add(fields[0]);
+                } else {
+                    throw new IllegalArgumentException("Invalid lexicon line " + (i + 1) + ": " + line);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid score on lexicon line " + (i + 1) + ": " + line, e);
+            }
+        }
+        return new SentimentLexicon(terms, Arrays.copyOf(kinds, terms.size()), Arrays.copyOf(weights, terms.size()));
+    }
+
+    /**
+     * Reads and compiles a lexicon file.
+     *
+     * @param path The lexicon file, in UTF-8
+     * @return The lexicon
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If a line is not a term or rule with a valid score
+     */
+    public static SentimentLexicon load(Path path) throws IOException {
+        return parse(Files.readAllLines(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The lexicon shipped with the application, read once from the classpath
+     */
+    public static SentimentLexicon builtIn() {
+        SentimentLexicon lexicon = builtIn;
+        if (lexicon == null) {
+            InputStream resource = SentimentLexicon.class.getClassLoader().getResourceAsStream(BUILT_IN_RESOURCE);
+            if (resource == null) {
+                throw new IllegalStateException("Missing sentiment lexicon resource " + BUILT_IN_RESOURCE);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8))) {
+                lexicon = parse(reader.lines().collect(Collectors.toList()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            builtIn = lexicon;
+        }
+        return lexicon;
+    }
+
+    /**
+     * @return The number of terms and rule words of the lexicon
+     */
+    public int size() {
+        return kinds.length;
+    }
+
+    /**
+     * Scores texts against a lexicon, reusing its state between texts so scoring allocates nothing.
+     * A Scorer is not thread-safe; each actor keeps its own.
+     */
+    public static final class Scorer implements TermMatcher.Visitor {
+        private SentimentLexicon lexicon;
+        private CharSequence text;
+        private double sum;
+        private int hits;
+        private int negationEnd;
+        private int intensifierEnd;
+        private double intensifierFactor;
+
+        /**
+         * Scores a text: the sum of the scores of its terms, each negated or intensified by the rule
+         * words before it, normalized into (-1, 1). A text without any term scores 0.
+         *
+         * @param lexicon The lexicon to score with
+         * @param text The text to score
+         * @return The score of the text
+         */
+        public double score(SentimentLexicon lexicon, CharSequence text) {
+            this.lexicon = lexicon;
+            this.text = text;
+            sum = 0;
+            hits = 0;
+            negationEnd = -1;
+            intensifierEnd = -1;
+            lexicon.matcher.scan(text, this);
+            this.text = null;
+            return sum / Math.sqrt(sum * sum + NORMALIZATION_ALPHA);
+        }
+
+        /**
+         * @return The number of terms found in the last text scored, not counting rule words
+         */
+        public int hits() {
+            return hits;
+        }
+
+        @Override
+        public void match(int term, int start, int end) {
+            switch (lexicon.kinds[term]) {
+                case NEGATION:
+                    negationEnd = end;
+                    break;
+                case INTENSIFIER:
+                    intensifierEnd = end;
+                    intensifierFactor = lexicon.weights[term];
+                    break;
+                default:
+                    double score = lexicon.weights[term];
+                    if (intensifierEnd >= 0 && wordsBetween(intensifierEnd, start, 1) == 0) {
+                        score *= intensifierFactor;
+                    }
+                    if (negationEnd >= 0 && wordsBetween(negationEnd, start, NEGATION_WINDOW) < NEGATION_WINDOW) {
+                        score *= NEGATION_SCALAR;
+                    }
+                    sum += score;
+                    hits++;
+            }
+        }
+
+        /**
+         * @param from The end of a match
+         * @param to The start of a later match
+         * @param limit The count at which to stop counting
+         * @return The number of words of the text in between, at most the limit
+         */
+        private int wordsBetween(int from, int to, int limit) {
+            int words = 0;
+            boolean inWord = false;
+            for (int i = from; i < to && words < limit; i++) {
+                boolean wordChar = Character.isLetterOrDigit(text.charAt(i));
+                if (wordChar && !inWord) {
+                    words++;
+                }
+                inWord = wordChar;
+            }
+            return words;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package utils;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import play.libs.Json;
 import play.mvc.Http;
 
@@ -16,6 +18,8 @@ import java.util.List;
  */
 public class SessionManager {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SessionManager.class);
+
     public static final String SESSION_RESULTS_KEY = "searchResults";
     public static final int MAX_SEARCH_HISTORY = 10;
 
@@ -30,8 +34,6 @@ public class SessionManager {
     public String prepareSessionData(Http.Session session, String query) {
         List<String> searchHistory = getSearchHistory(session);
 
-        // Log current session data before modification
-        System.out.println("Current session data: " + searchHistory);
         searchHistory.add(0, query);
 
 //        // Ensure the history does not exceed the maximum size
@@ -42,7 +44,9 @@ public class SessionManager {
         // Serialize the updated search history to a string
         String serializedData = Json.stringify(Json.toJson(searchHistory));
 
-        // Log the updated session data
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Session history updated query={} history={}", query, serializedData);
+        }
 
         // Update the session with the new serialized data
         session = session.adding(SESSION_RESULTS_KEY, serializedData);
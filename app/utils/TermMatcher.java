@@ -0,0 +1,228 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * TermMatcher: Finds every term of a lexicon in a text in one pass, with an Aho-Corasick automaton
+ * compiled once from the terms. The scan costs the same however many terms there are, where
+ * looking each term up with {@code String.contains} costs the text once per term.
+ *
+ * <p>Matching ignores case. A term starting or ending with a letter or digit only matches whole
+ * words, so "down" is not found in "download"; emoticons and emoji such as ":)" match anywhere.
+ * Emoji variation selectors (U+FE0F) are ignored, so "☹️" and "☹" are the same term.</p>
+ *
+ * <p>The automaton is kept in flat primitive arrays and is immutable, so one matcher can be shared
+ * by any number of threads, and a scan allocates nothing.</p>
+ *
+ * <p>Author: Lokesh Kommalapati (40301947)</p>
+ */
+public final class TermMatcher {
+
+    /** Emoji presentation selector, written after some symbols to show them as emoji */
+    private static final char VARIATION_SELECTOR = '\uFE0F';
+
+    /**
+     * Receives the terms found in a text.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param term The index of the term in the lexicon the matcher was built from
+         * @param start The index in the text of the first char of the match
+         * @param end The index in the text after the last char of the match
+         */
+        void match(int term, int start, int end);
+    }
+
+    // Node n has the children edgeTargets[edgeStart[n]..edgeStart[n + 1]), sorted by edgeChars
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] fail;
+    // Node n ends the terms outputTerms[outputStart[n]..outputStart[n + 1]), its own and those of its suffixes
+    private final int[] outputStart;
+    private final int[] outputTerms;
+    private final int[] termLength;
+    private final boolean[] wholeWordStart;
+    private final boolean[] wholeWordEnd;
+
+    /**
+     * Compiles the automaton of a lexicon. Empty terms never match.
+     *
+     * @param terms The terms, found as the index they have in this list
+     */
+    public TermMatcher(List<String> terms) {
+        int termCount = terms.size();
+        termLength = new int[termCount];
+        wholeWordStart = new boolean[termCount];
+        wholeWordEnd = new boolean[termCount];
+
+        // Build the trie of the normalized terms
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(new ArrayList<>());
+        for (int term = 0; term < termCount; term++) {
+            String normalized = normalize(terms.get(term));
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            termLength[term] = normalized.length();
+            wholeWordStart[term] = isWordChar(normalized.charAt(0));
+            wholeWordEnd[term] = isWordChar(normalized.charAt(normalized.length() - 1));
+            int node = 0;
+            for (int i = 0; i < normalized.length(); i++) {
+                Integer child = children.get(node).get(normalized.charAt(i));
+                if (child == null) {
+                    child = children.size();
+                    children.get(node).put(normalized.charAt(i), child);
+                    children.add(new TreeMap<>());
+                    outputs.add(new ArrayList<>());
+                }
+                node = child;
+            }
+            outputs.get(node).add(term);
+        }
+
+        // Link each node to its longest proper suffix in the trie, breadth first so the suffix is linked already
+        int nodeCount = children.size();
+        fail = new int[nodeCount];
+        Queue<Integer> queue = new ArrayDeque<>(children.get(0).values());
+        while (!queue.isEmpty()) {
+            int node = queue.remove();
+            for (Map.Entry<Character, Integer> edge : children.get(node).entrySet()) {
+                int child = edge.getValue();
+                if (node != 0) {
+                    int suffix = fail[node];
+                    while (suffix != 0 && !children.get(suffix).containsKey(edge.getKey())) {
+                        suffix = fail[suffix];
+                    }
+                    fail[child] = children.get(suffix).getOrDefault(edge.getKey(), 0);
+                }
+                outputs.get(child).addAll(outputs.get(fail[child]));
+                queue.add(child);
+            }
+        }
+
+        // Flatten the trie and the outputs into arrays
+        edgeStart = new int[nodeCount + 1];
+        edgeChars = new char[nodeCount - 1];
+        edgeTargets = new int[nodeCount - 1];
+        outputStart = new int[nodeCount + 1];
+        int edges = 0;
+        int outputCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            edgeStart[node] = edges;
+            for (Map.Entry<Character, Integer> edge : children.get(node).entrySet()) {
+                edgeChars[edges] = edge.getKey();
+                edgeTargets[edges++] = edge.getValue();
+            }
+            outputStart[node] = outputCount;
+            outputCount += outputs.get(node).size();
+        }
+        edgeStart[nodeCount] = edges;
+        outputStart[nodeCount] = outputCount;
+        outputTerms = new int[outputCount];
+        for (int node = 0; node < nodeCount; node++) {
+            int at = outputStart[node];
+            for (int term : outputs.get(node)) {
+                outputTerms[at++] = term;
+            }
+        }
+    }
+
+    /**
+     * Scans the text once and reports every match of a term, in the order the matches end.
+     * Overlapping matches of different terms are all reported.
+     *
+     * @param text The text to scan
+     * @param visitor Receives the matches
+     */
+    public void scan(CharSequence text, Visitor visitor) {
+        int state = 0;
+        boolean skippedSelector = false;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c == VARIATION_SELECTOR) {
+                skippedSelector = true;
+                continue;
+            }
+            c = Character.toLowerCase(c);
+            int next = child(state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = child(state, c);
+            }
+            state = next < 0 ? 0 : next;
+            for (int o = outputStart[state]; o < outputStart[state + 1]; o++) {
+                int term = outputTerms[o];
+                int end = i + 1;
+                int start = skippedSelector ? start(text, end, termLength[term]) : end - termLength[term];
+                if (wholeWordStart[term] && start > 0 && isWordChar(text.charAt(start - 1))) {
+                    continue;
+                }
+                if (wholeWordEnd[term] && end < n && isWordChar(text.charAt(end))) {
+                    continue;
+                }
+                visitor.match(term, start, end);
+            }
+        }
+    }
+
+    /**
+     * Finds where a match starts in a text that has variation selectors, which the match skipped
+     * and which do not count in the length of its term.
+     *
+     * @param text The text scanned
+     * @param end The index in the text after the last char of the match
+     * @param length The length of the normalized term
+     * @return The index in the text of the first char of the match
+     */
+    private static int start(CharSequence text, int end, int length) {
+        int start = end;
+        for (int remaining = length; remaining > 0; ) {
+            if (text.charAt(--start) != VARIATION_SELECTOR) {
+                remaining--;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * @return The number of nodes of the automaton, about the number of chars of the terms
+     */
+    public int size() {
+        return fail.length;
+    }
+
+    /**
+     * @param state A node of the automaton
+     * @param c A lowercase char
+     * @return The child of the node along the char, or -1 if there is none
+     */
+    private int child(int state, char c) {
+        int found = Arrays.binarySearch(edgeChars, edgeStart[state], edgeStart[state + 1], c);
+        return found < 0 ? -1 : edgeTargets[found];
+    }
+
+    private static String normalize(String term) {
+        StringBuilder normalized = new StringBuilder(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c != VARIATION_SELECTOR) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+}
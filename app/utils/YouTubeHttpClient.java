@@ -0,0 +1,289 @@
+package utils;
+
+import com.typesafe.config.Config;
+import play.inject.ApplicationLifecycle;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * YouTubeHttpClient: Shared HTTP client for the YouTube Data API. It multiplexes requests over
+ * HTTP/2 on a dedicated executor, applies connect and request timeouts, and runs every request
+ * through the {@link Bulkhead} of its endpoint ({@code search}, {@code channels}, ...), so a slow
+ * endpoint can neither pile up unbounded pending requests nor starve the others.
+ * Across all endpoints an {@link AdaptiveLimiter} bounds the requests in flight and sheds
+ * requests beyond its limit, which follows the observed latency of the API. Before it is queued,
+ * each request is paid for from the daily unit quota by the {@link QuotaScheduler}.
+ *
+ * <p>Author: Priyadarshine Kumar 40293041</p>
+ */
+@Singleton
+public class YouTubeHttpClient {
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    public static final int DEFAULT_EXECUTOR_THREADS = 4;
+    public static final String DEFAULT_ENDPOINT = "default";
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration requestTimeout;
+    private final Map<String, Bulkhead> bulkheads;
+    private final AdaptiveLimiter limiter;
+    private final QuotaScheduler quota;
+
+    /**
+     * Constructor to initialize the client with the default timeouts and a single default bulkhead.
+     */
+    public YouTubeHttpClient() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, DEFAULT_EXECUTOR_THREADS,
+                Map.of(DEFAULT_ENDPOINT, new Bulkhead(DEFAULT_ENDPOINT, 8, 32, Duration.ofSeconds(2))),
+                new AdaptiveLimiter(), new QuotaScheduler());
+    }
+
+    /**
+     * Constructor used by Guice, reading the timeouts, executor size, bulkheads and limiter bounds
+     * from the {@code tubelytics.youtube.http} section of application.conf.
+     *
+     * @param config The application configuration
+     * @param lifecycle The application lifecycle, used to stop the executor on shutdown
+     * @param quota The scheduler paying for requests from the daily quota
+     */
+    @Inject
+    public YouTubeHttpClient(Config config, ApplicationLifecycle lifecycle, QuotaScheduler quota) {
+        this(config.getDuration("tubelytics.youtube.http.connect-timeout"),
+                config.getDuration("tubelytics.youtube.http.request-timeout"),
+                config.getInt("tubelytics.youtube.http.executor-threads"),
+                bulkheads(config.getConfig("tubelytics.youtube.http.bulkheads")),
+                new AdaptiveLimiter(config.getInt("tubelytics.youtube.http.limiter.initial-limit"),
+                        config.getInt("tubelytics.youtube.http.limiter.min-limit"),
+                        config.getInt("tubelytics.youtube.http.limiter.max-limit")),
+                quota);
+        lifecycle.addStopHook(() -> {
+            shutdown();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Constructor to initialize the client with explicit settings.
+     *
+     * @param connectTimeout How long to wait for a connection to be established
+     * @param requestTimeout How long to wait for a response once the request is sent
+     * @param executorThreads The number of threads handling responses
+     * @param bulkheads The bulkhead of each endpoint; must contain {@value #DEFAULT_ENDPOINT}
+     * @param limiter The limiter of requests in flight across all endpoints
+     * @param quota The scheduler paying for requests from the daily quota
+     */
+    public YouTubeHttpClient(Duration connectTimeout, Duration requestTimeout, int executorThreads,
+                             Map<String, Bulkhead> bulkheads, AdaptiveLimiter limiter, QuotaScheduler quota) {
+        if (!bulkheads.containsKey(DEFAULT_ENDPOINT)) {
+            throw new IllegalArgumentException("A '" + DEFAULT_ENDPOINT + "' bulkhead is required");
+        }
+        this.executor = Executors.newFixedThreadPool(executorThreads, new DaemonThreadFactory("youtube-http-"));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.bulkheads = Collections.unmodifiableMap(new HashMap<>(bulkheads));
+        this.limiter = limiter;
+        this.quota = quota;
+    }
+
+    /**
+     * Sends an interactive GET request, see {@link #get(String, QuotaScheduler.Priority)}.
+     *
+     * @param url The API endpoint URL
+     * @return A CompletionStage containing the response
+     */
+    public CompletionStage<HttpResponse<byte[]>> get(String url) {
+        return get(url, QuotaScheduler.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Sends a GET request through the quota, the bulkhead of its endpoint and the limiter.
+     * The limiter permit is only taken once the request leaves the bulkhead queue, so requests
+     * waiting for a slot do not count as in flight. The round-trip time of the request feeds the limiter.
+     * A request shed by the bulkhead or the limiter is never sent, and its quota units are refunded.
+     *
+     * @param url The API endpoint URL
+     * @param priority How urgently the response is needed, deciding whether the quota reserve may be used
+     * @return A CompletionStage containing the response, failed with a {@link LimitExceededException},
+     *         {@link QuotaScheduler.QuotaExceededException} or {@link Bulkhead.BulkheadFullException}
+     *         if the request was shed
+     */
+    public CompletionStage<HttpResponse<byte[]>> get(String url, QuotaScheduler.Priority priority) {
+        String endpoint = endpointOf(url);
+        if (!quota.tryAcquire(endpoint, priority)) {
+            return CompletableFuture.failedFuture(new QuotaScheduler.QuotaExceededException(
+                    "YouTube API quota exhausted for " + priority.name().toLowerCase() + " " + endpoint + " requests"));
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+        return bulkhead(endpoint)
+                .execute(() -> send(request))
+                .whenComplete((response, error) -> {
+                    if (isShed(error)) {
+                        quota.refund(endpoint);
+                    }
+                });
+    }
+
+    /**
+     * Sends the request once it holds a bulkhead slot, if the limiter has room for it.
+     */
+    private CompletionStage<HttpResponse<byte[]>> send(HttpRequest request) {
+        AdaptiveLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            return CompletableFuture.failedFuture(new LimitExceededException("Too many YouTube API requests in flight"));
+        }
+        long start = System.nanoTime();
+        try {
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> {
+                        if (error != null || isOverloadStatus(response.statusCode())) {
+                            permit.onDropped();
+                        } else {
+                            permit.onSuccess(System.nanoTime() - start);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            permit.onIgnored();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the failure tells that the request was shed before it was sent.
+     */
+    private static boolean isShed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof Bulkhead.BulkheadFullException || cause instanceof LimitExceededException;
+    }
+
+    /**
+     * @return Whether a new request would currently be shed by the limiter
+     */
+    public boolean isSaturated() {
+        return limiter.isSaturated();
+    }
+
+    /**
+     * @return The limiter of requests in flight, for metrics
+     */
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * @return The quota scheduler, for metrics
+     */
+    public QuotaScheduler getQuota() {
+        return quota;
+    }
+
+    /**
+     * @param endpoint The endpoint name, such as {@code search}
+     * @return The bulkhead of the endpoint, or the default one if it has none of its own
+     */
+    public Bulkhead bulkhead(String endpoint) {
+        Bulkhead bulkhead = bulkheads.get(endpoint);
+        return bulkhead != null ? bulkhead : bulkheads.get(DEFAULT_ENDPOINT);
+    }
+
+    /**
+     * @return The bulkheads by endpoint name, for metrics
+     */
+    public Map<String, Bulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    /**
+     * Stops the executor handling responses.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Extracts the endpoint name from a YouTube Data API URL,
+     * e.g. {@code search} from {@code https://www.googleapis.com/youtube/v3/search?part=snippet}.
+     *
+     * @param url The API endpoint URL
+     * @return The last path segment of the URL
+     */
+    static String endpointOf(String url) {
+        String path = URI.create(url).getPath();
+        if (path == null || path.isEmpty()) {
+            return DEFAULT_ENDPOINT;
+        }
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Whether the status tells that the API is throttling or failing, rather than rejecting the request itself.
+     */
+    private static boolean isOverloadStatus(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    private static Map<String, Bulkhead> bulkheads(Config config) {
+        Map<String, Bulkhead> bulkheads = new HashMap<>();
+        for (String endpoint : config.root().keySet()) {
+            Config settings = config.getConfig(endpoint);
+            bulkheads.put(endpoint, new Bulkhead(endpoint,
+                    settings.getInt("max-concurrent"),
+                    settings.getInt("max-queued"),
+                    settings.getDuration("max-wait")));
+        }
+        return bulkheads;
+    }
+
+    /**
+     * Thrown when a request is shed because the limit of requests in flight is reached.
+     */
+    public static class LimitExceededException extends RuntimeException {
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Names the response threads and keeps them from blocking JVM shutdown.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
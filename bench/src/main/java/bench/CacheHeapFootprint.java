@@ -0,0 +1,73 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import play.libs.Json;
+import utils.QueryCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Measures retained heap per cached search page for the former parsed-tree layout and for the
+ * byte layout of QueryCache, plain and gzip-compressed.
+ *
+ * <p>Run with {@code sbt "bench/runMain bench.CacheHeapFootprint"}.</p>
+ */
+public final class CacheHeapFootprint {
+
+    private static final int ENTRIES = 2000;
+
+    private CacheHeapFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int items : new int[]{10, 50}) {
+            List<byte[]> bodies = new ArrayList<>();
+            for (int i = 0; i < ENTRIES; i++) {
+                bodies.add(SampleResponses.searchPage(items, i));
+            }
+
+            List<JsonNode> trees = new ArrayList<>();
+            long tree = measure(i -> {
+                try {
+                    trees.add(Json.mapper().readTree(bodies.get(i)));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            QueryCache plain = QueryCacheLayoutBenchmark.cache(Long.MAX_VALUE);
+            long bytes = measure(i -> plain.put(QueryCacheLayoutBenchmark.key(i), bodies.get(i).clone(), Duration.ofHours(1)));
+
+            QueryCache compressed = QueryCacheLayoutBenchmark.cache(0);
+            long gzip = measure(i -> compressed.put(QueryCacheLayoutBenchmark.key(i), bodies.get(i), Duration.ofHours(1)));
+
+            System.out.printf("%d items/page: tree %,d B/entry, bytes %,d B/entry, gzip %,d B/entry%n",
+                    items, tree / ENTRIES, bytes / ENTRIES, gzip / ENTRIES);
+            if (trees.isEmpty() || plain.estimatedSize() == 0 || compressed.estimatedSize() == 0) {
+                throw new IllegalStateException("Nothing was retained");
+            }
+            plain.shutdown();
+            compressed.shutdown();
+        }
+    }
+
+    private static long measure(IntConsumer fill) throws InterruptedException {
+        long before = usedHeap();
+        for (int i = 0; i < ENTRIES; i++) {
+            fill.accept(i);
+        }
+        return usedHeap() - before;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
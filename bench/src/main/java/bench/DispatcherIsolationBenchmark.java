@@ -0,0 +1,119 @@
+package bench;
+
+import actors.ActorDispatchers;
+import actors.PoolSettings;
+import actors.ReadabilityActor;
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.pattern.Patterns;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.ConfigFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import play.libs.Json;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed load test of the dispatchers: while the readability pool is kept saturated with
+ * descriptions, a stand-in for a UserActor answers pings, as it would push results to a WebSocket.
+ * With {@code isolated} the scoring runs on the analytics dispatcher and the pings on the websocket
+ * one, as configured in application.conf; without, everything shares the default dispatcher,
+ * as all actors did before.
+ *
+ * <p>Run with {@code sbt "bench/jmh:run DispatcherIsolationBenchmark"} and compare the ping latency
+ * percentiles; the isolated ones should stay close to an idle system's.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatcherIsolationBenchmark {
+
+    /** Descriptions kept in flight per core, so the pool never runs dry */
+    private static final int IN_FLIGHT_PER_CORE = 8;
+
+    private static final int DESCRIPTIONS = 256;
+
+    @Param({"true", "false"})
+    public boolean isolated;
+
+    private ActorSystem system;
+    private ActorRef pool;
+    private ActorRef session;
+    private Thread load;
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = ActorSystem.create("DispatcherIsolationBenchmark", ConfigFactory.load());
+        Props routee = ReadabilityActor.props();
+        Props echo = Props.create(Echo.class);
+        if (isolated) {
+            routee = ActorDispatchers.pinned(system, routee, ActorDispatchers.ANALYTICS);
+            echo = ActorDispatchers.pinned(system, echo, ActorDispatchers.WEBSOCKET);
+        }
+        pool = system.actorOf(new PoolSettings(PoolSettings.Routing.SMALLEST_MAILBOX, PoolSettings.CORES).props(routee));
+        session = system.actorOf(echo);
+
+        JsonNode[] messages = new JsonNode[DESCRIPTIONS];
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            messages[i] = Json.newObject().put("description", SampleResponses.description(1000, i));
+        }
+
+        Semaphore inFlight = new Semaphore(IN_FLIGHT_PER_CORE * Runtime.getRuntime().availableProcessors());
+        running = true;
+        load = new Thread(() -> {
+            int i = 0;
+            while (running) {
+                inFlight.acquireUninterruptibly();
+                Patterns.ask(pool, messages[i++ % DESCRIPTIONS], Duration.ofSeconds(30))
+                        .whenComplete((reply, error) -> inFlight.release());
+            }
+        }, "scoring-load");
+        load.setDaemon(true);
+        load.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        load.join(1000);
+        system.terminate();
+        system.getWhenTerminated().toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public Object ping() {
+        return Patterns.ask(session, "ping", Duration.ofSeconds(30)).toCompletableFuture().join();
+    }
+
+    /**
+     * Replies to every message at once, like a UserActor relaying a result to its WebSocket.
+     */
+    public static class Echo extends AbstractActor {
+        @Override
+        public Receive createReceive() {
+            return receiveBuilder()
+                    .matchAny(message -> getSender().tell(message, getSelf()))
+                    .build();
+        }
+    }
+}
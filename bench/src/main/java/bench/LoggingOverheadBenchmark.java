@@ -0,0 +1,108 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.SentimentLexicon;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the logging on the search path: several threads each score the sentiment of a page
+ * of descriptions, logging as the actors used to, with about ten {@code System.out.println} calls
+ * per description and one per cache write and session update, or as they do now, with guarded
+ * SLF4J debug calls while the level is INFO.
+ *
+ * <p>The console is replaced by a discarding {@link PrintStream}, which still takes the same lock
+ * per line as {@code System.out}, so the difference is the contention and formatting and not the
+ * terminal. Run with {@code sbt "bench/jmh:run LoggingOverheadBenchmark"} and compare the pages
+ * per second.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LoggingOverheadBenchmark {
+
+    private static final int DESCRIPTIONS = 10;
+
+    // Not under the application's packages, so at the root level of conf/logback.xml, above DEBUG
+    private static final Logger LOG = LoggerFactory.getLogger(LoggingOverheadBenchmark.class);
+
+    private final PrintStream console = new PrintStream(OutputStream.nullOutputStream(), true);
+    private String[] descriptions;
+
+    /**
+     * Each benchmark thread scores with its own Scorer, as each actor does.
+     */
+    @State(Scope.Thread)
+    public static class ThreadScorer {
+        final SentimentLexicon.Scorer scorer = new SentimentLexicon.Scorer();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        descriptions = new String[DESCRIPTIONS];
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            descriptions[i] = SampleResponses.description(40, i);
+        }
+    }
+
+    @Benchmark
+    public double stdoutPrintln(ThreadScorer thread) {
+        SentimentLexicon lexicon = SentimentLexicon.builtIn();
+        console.println("Current session data: [cats, dogs]");
+        console.println("Updated session data: [\"cats\",\"dogs\"] | Added query: cats");
+        console.println("Adding item to cache with key: cats");
+        console.println("Starting sentiment analysis for " + descriptions.length + " descriptions");
+        double total = 0;
+        for (String description : descriptions) {
+            double score = thread.scorer.score(lexicon, description);
+            total += score;
+            console.println("Description: \"" + description + "\"");
+            console.println("Happy words count: " + thread.scorer.hits());
+            console.println("Sad words count: " + thread.scorer.hits());
+            console.println("Total sentiment words: " + thread.scorer.hits());
+            console.println("Happy percentage: " + score);
+            console.println("Sad percentage: " + -score);
+            console.println("Description classified as " + (score > 0 ? "HAPPY" : "SAD"));
+        }
+        console.println("Final Sentiment: " + total);
+        return total;
+    }
+
+    @Benchmark
+    public double slf4jAtInfo(ThreadScorer thread) {
+        SentimentLexicon lexicon = SentimentLexicon.builtIn();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Session history updated query={} history={}", "cats", "[\"cats\",\"dogs\"]");
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Caching response key={} bytes={} ttl={}", "cats", 4096, "PT1H");
+        }
+        double total = 0;
+        for (String description : descriptions) {
+            total += thread.scorer.score(lexicon, description);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Scored page query={} videos={} sentiment={}", "cats", descriptions.length, total);
+        }
+        return total;
+    }
+}
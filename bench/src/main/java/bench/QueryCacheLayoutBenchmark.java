@@ -0,0 +1,105 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import play.libs.Json;
+import utils.PersistentResponseStore;
+import utils.QueryCache;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hit-path latency of the QueryCache entry layouts: the former parsed {@code JsonNode} tree per entry
+ * against the compact UTF-8 bytes, plain or gzip-compressed, that are parsed on every hit.
+ *
+ * <p>Run with {@code sbt "bench/jmh:run -prof gc QueryCacheLayoutBenchmark"} to also see allocation per hit.
+ * Heap per entry is measured separately by {@link CacheHeapFootprint}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryCacheLayoutBenchmark {
+
+    private static final int KEYS = 256;
+
+    @Param({"10", "50"})
+    public int itemsPerPage;
+
+    private final ConcurrentHashMap<String, JsonNode> treeLayout = new ConcurrentHashMap<>();
+    private QueryCache byteLayout;
+    private QueryCache compressedLayout;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byteLayout = cache(Long.MAX_VALUE);
+        compressedLayout = cache(0);
+        for (int i = 0; i < KEYS; i++) {
+            byte[] body = SampleResponses.searchPage(itemsPerPage, i);
+            treeLayout.put(key(i), Json.mapper().readTree(body));
+            byteLayout.put(key(i), body, Duration.ofHours(1));
+            compressedLayout.put(key(i), body, Duration.ofHours(1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        byteLayout.shutdown();
+        compressedLayout.shutdown();
+    }
+
+    @Benchmark
+    public void treeHit(Blackhole blackhole) {
+        readTitles(treeLayout.get(nextKey()), blackhole);
+    }
+
+    @Benchmark
+    public void bytesHit(Blackhole blackhole) {
+        readTitles(byteLayout.get(nextKey()), blackhole);
+    }
+
+    @Benchmark
+    public void compressedBytesHit(Blackhole blackhole) {
+        readTitles(compressedLayout.get(nextKey()), blackhole);
+    }
+
+    static QueryCache cache(long compressAbove) {
+        return new QueryCache(Duration.ofHours(1), Duration.ofHours(1), QueryCache.DEFAULT_MAXIMUM_WEIGHT,
+                QueryCache.DEFAULT_REFRESH_AHEAD_HITS, QueryCache.DEFAULT_REFRESH_AHEAD_WINDOW,
+                PersistentResponseStore.disabled(), Duration.ZERO, compressAbove);
+    }
+
+    static String key(int i) {
+        return "https://www.googleapis.com/youtube/v3/search?part=snippet&maxResults=50&q=query" + i;
+    }
+
+    private String nextKey() {
+        next = (next + 1) % KEYS;
+        return key(next);
+    }
+
+    private static void readTitles(JsonNode page, Blackhole blackhole) {
+        for (JsonNode item : page.path("items")) {
+            blackhole.consume(item.path("snippet").path("title").asText());
+        }
+    }
+}
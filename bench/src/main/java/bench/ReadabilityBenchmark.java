@@ -0,0 +1,108 @@
+package bench;
+
+import actors.ReadabilityActor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass readability scan of {@link ReadabilityActor#scores} with the
+ * regex-splitting implementation it replaced, on descriptions of the lengths YouTube returns:
+ * a snippet is cut at about 25 words, and a full description runs to a few hundred.
+ *
+ * <p>Run with {@code sbt "bench/jmh:run ReadabilityBenchmark -prof gc"} to see the time and the
+ * bytes allocated per description.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadabilityBenchmark {
+
+    private static final int DESCRIPTIONS = 64;
+
+    @Param({"25", "150", "800"})
+    public int words;
+
+    private String[] descriptions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        descriptions = new String[DESCRIPTIONS];
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            descriptions[i] = SampleResponses.description(words, i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRIPTIONS)
+    public void singlePass(Blackhole blackhole) {
+        for (String description : descriptions) {
+            blackhole.consume(ReadabilityActor.scores(description));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRIPTIONS)
+    public void regexSplit(Blackhole blackhole) {
+        for (String description : descriptions) {
+            blackhole.consume(RegexReadability.scores(description));
+        }
+    }
+
+    /**
+     * The previous implementation, kept as the baseline: three regex splits of the text, a
+     * lowercased copy and char array per word, and integer division of the ratios.
+     */
+    static final class RegexReadability {
+
+        private RegexReadability() {
+        }
+
+        static double[] scores(String text) {
+            int sentenceCount = text.split("[.!?]").length;
+            int wordCount = text.split("\\s+").length;
+            int syllableCount = 0;
+            for (String word : text.split("\\s+")) {
+                syllableCount += syllablesInWord(word);
+            }
+
+            double fkGrade = 0.39 * (wordCount / sentenceCount) + 11.8 * (syllableCount / wordCount) - 15.59;
+            double readingEase = 206.835 - (1.015 * (wordCount / sentenceCount)) - (84.6 * (syllableCount / wordCount));
+
+            return new double[]{fkGrade, readingEase};
+        }
+
+        private static int syllablesInWord(String word) {
+            word = word.toLowerCase();
+            int count = 0;
+            boolean isVowel = false;
+            for (char c : word.toCharArray()) {
+                if ("aeiouy".indexOf(c) != -1) {
+                    if (!isVowel) {
+                        count++;
+                        isVowel = true;
+                    }
+                } else {
+                    isVowel = false;
+                }
+            }
+            return count > 0 ? count : 1;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package bench;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import play.libs.Json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Builds synthetic YouTube search.list responses shaped like the real API output,
+ * so benchmarks run without network access or an API key.
+ */
+public final class SampleResponses {
+
+    private static final String[] WORDS = {
+            "official", "video", "music", "live", "tutorial", "review", "highlights", "best", "new", "how",
+            "to", "the", "and", "with", "for", "channel", "subscribe", "watch", "full", "episode",
+            "happy", "amazing", "terrible", "learn", "java", "football", "world", "cup", "cats", "funny"
+    };
+
+    private SampleResponses() {
+    }
+
+    /**
+     * @param items Number of search results in the page
+     * @param seed Seed for the random text, so runs are repeatable
+     * @return A search.list response as UTF-8 JSON bytes
+     */
+    public static byte[] searchPage(int items, long seed) {
+        return Json.stringify(searchPageJson(items, seed)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param items Number of search results in the page
+     * @param seed Seed for the random text, so runs are repeatable
+     * @return A search.list response as a JSON tree
+     */
+    public static ObjectNode searchPageJson(int items, long seed) {
+        Random random = new Random(seed);
+        ObjectNode page = Json.newObject()
+                .put("kind", "youtube#searchListResponse")
+                .put("etag", "etag-" + seed)
+                .put("nextPageToken", "CAoQAA")
+                .put("regionCode", "CA");
+        page.putObject("pageInfo").put("totalResults", 1000000).put("resultsPerPage", items);
+
+        ArrayNode results = page.putArray("items");
+        for (int i = 0; i < items; i++) {
+            String videoId = "vid" + seed + "x" + i;
+            String channelId = "UC" + Long.toHexString(random.nextLong());
+            ObjectNode item = results.addObject()
+                    .put("kind", "youtube#searchResult")
+                    .put("etag", "etag-" + videoId);
+            item.putObject("id").put("kind", "youtube#video").put("videoId", videoId);
+
+            ObjectNode snippet = item.putObject("snippet")
+                    .put("publishedAt", "2024-11-0" + (1 + i % 9) + "T12:00:00Z")
+                    .put("channelId", channelId)
+                    .put("title", sentence(random, 8))
+                    .put("description", sentence(random, 30))
+                    .put("channelTitle", sentence(random, 2))
+                    .put("liveBroadcastContent", "none")
+                    .put("publishTime", "2024-11-0" + (1 + i % 9) + "T12:00:00Z");
+            ObjectNode thumbnails = snippet.putObject("thumbnails");
+            thumbnail(thumbnails, "default", videoId, 120, 90);
+            thumbnail(thumbnails, "medium", videoId, 320, 180);
+            thumbnail(thumbnails, "high", videoId, 480, 360);
+        }
+        return page;
+    }
+
+    /**
+     * @param words Number of words
+     * @param seed Seed for the random text, so runs are repeatable
+     * @return A video-description-like text
+     */
+    public static String description(int words, long seed) {
+        return sentence(new Random(seed), words);
+    }
+
+    private static void thumbnail(ObjectNode thumbnails, String size, String videoId, int width, int height) {
+        thumbnails.putObject(size)
+                .put("url", "https://i.ytimg.com/vi/" + videoId + "/" + size + ".jpg")
+                .put("width", width)
+                .put("height", height);
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(i % 12 == 0 ? ". " : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.append('.').toString();
+    }
+}
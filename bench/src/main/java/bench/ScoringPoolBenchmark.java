@@ -0,0 +1,81 @@
+package bench;
+
+import actors.PoolSettings;
+import actors.ReadabilityActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.pattern.Patterns;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import play.libs.Json;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the readability pool: a burst of descriptions is scored by a pool of
+ * {@code poolSize} ReadabilityActors, to show the throughput growing with the pool up to the
+ * number of cores, and which routing keeps up better under a uniform load.
+ *
+ * <p>Run with {@code sbt "bench/jmh:run ScoringPoolBenchmark"} and compare the descriptions per second.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringPoolBenchmark {
+
+    private static final int BURST = 1000;
+
+    @Param({"1", "2", "4", "8"})
+    public int poolSize;
+
+    @Param({"SMALLEST_MAILBOX", "CONSISTENT_HASHING"})
+    public PoolSettings.Routing routing;
+
+    private ActorSystem system;
+    private ActorRef pool;
+    private JsonNode[] messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = ActorSystem.create("ScoringPoolBenchmark");
+        pool = system.actorOf(new PoolSettings(routing, poolSize).props(ReadabilityActor.props()));
+        messages = new JsonNode[BURST];
+        for (int i = 0; i < BURST; i++) {
+            messages[i] = Json.newObject().put("description", SampleResponses.description(300, i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.terminate();
+        system.getWhenTerminated().toCompletableFuture().join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void scoreBurst() {
+        CompletableFuture<?>[] replies = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            replies[i] = Patterns.ask(pool, messages[i], Duration.ofSeconds(30)).toCompletableFuture();
+        }
+        CompletableFuture.allOf(replies).join();
+    }
+}
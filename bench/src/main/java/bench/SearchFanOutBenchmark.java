@@ -0,0 +1,93 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import models.SearchPage;
+import models.VideoSummary;
+import models.VideoSummaryParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import play.libs.Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation profile of one search fan-out in the UserActor: from a cached response to the messages
+ * for the readability and sentiment actors, the seen video ids and the websocket frame.
+ * {@code jsonTree} is the former path passing {@code JsonNode}s and description lists around,
+ * {@code typedPage} builds one immutable {@link SearchPage} and shares it.
+ *
+ * <p>Run with {@code sbt "bench/jmh:run -prof gc SearchFanOutBenchmark"} and compare {@code gc.alloc.rate.norm}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchFanOutBenchmark {
+
+    @Param({"10", "50"})
+    public int itemsPerPage;
+
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        body = SampleResponses.searchPage(itemsPerPage, 7);
+    }
+
+    @Benchmark
+    public void jsonTree(Blackhole blackhole) throws IOException {
+        JsonNode results = Json.mapper().readTree(body);
+        JsonNode items = results.get("items");
+
+        // Readability and sentiment each received their own description list
+        List<String> descriptions = items.findValuesAsText("description");
+        blackhole.consume(descriptions);
+        blackhole.consume(items.findValuesAsText("description"));
+
+        Set<String> videoIds = new HashSet<>();
+        items.forEach(item -> videoIds.add(item.path("id").path("videoId").asText()));
+        blackhole.consume(videoIds);
+
+        ObjectNode frame = Json.newObject().put("firstResponse", true).put("query", "query");
+        frame.set("items", items);
+        blackhole.consume(Json.stringify(frame));
+    }
+
+    @Benchmark
+    public void typedPage(Blackhole blackhole) throws IOException {
+        SearchPage page = VideoSummaryParser.parsePage("query", new ByteArrayInputStream(body));
+
+        // Both analysis actors receive the same immutable page
+        blackhole.consume(page.getDescriptions());
+        blackhole.consume(page.getDescriptions());
+
+        Set<String> videoIds = new HashSet<>();
+        for (VideoSummary video : page.getVideos()) {
+            videoIds.add(video.getVideoId());
+        }
+        blackhole.consume(videoIds);
+
+        ObjectNode frame = Json.newObject().put("firstResponse", true).put("query", "query");
+        frame.set("items", page.itemsToJson());
+        blackhole.consume(Json.stringify(frame));
+    }
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import models.VideoSummary;
+import models.VideoSummaryParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import play.libs.Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse cost of one search response: a full {@code JsonNode} tree read with {@code path(...)}
+ * against the streaming {@link VideoSummaryParser} projection.
+ *
+ * <p>Run with {@code sbt "bench/jmh:run -prof gc SearchResponseParseBenchmark"} to also see allocation per response.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchResponseParseBenchmark {
+
+    @Param({"10", "50"})
+    public int itemsPerPage;
+
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        body = SampleResponses.searchPage(itemsPerPage, 42);
+    }
+
+    @Benchmark
+    public void tree(Blackhole blackhole) throws IOException {
+        JsonNode page = Json.mapper().readTree(body);
+        for (JsonNode item : page.path("items")) {
+            JsonNode snippet = item.path("snippet");
+            blackhole.consume(item.path("id").path("videoId").asText());
+            blackhole.consume(snippet.path("title").asText());
+            blackhole.consume(snippet.path("description").asText());
+            blackhole.consume(snippet.path("channelId").asText());
+            blackhole.consume(snippet.path("channelTitle").asText());
+            blackhole.consume(snippet.path("thumbnails").path("default").path("url").asText());
+        }
+    }
+
+    @Benchmark
+    public void streamingProjection(Blackhole blackhole) throws IOException {
+        for (VideoSummary video : VideoSummaryParser.parseItems(new ByteArrayInputStream(body))) {
+            blackhole.consume(video);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.SentimentLexicon;
+import utils.TermMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding the words of a sentiment lexicon in a description with one {@link TermMatcher}
+ * scan against the {@code String.contains} per word that SentimentActor used, as the lexicon grows
+ * from the 80 built-in words to 10,000 terms. The scan should stay flat while the lookups grow
+ * with the lexicon.
+ *
+ * <p>{@code weightedScore} scores with the same terms as a weighted {@link SentimentLexicon}, negation
+ * and intensifier rules included; with {@code -prof gc} it should show no allocation per description.</p>
+ *
+ * <p>Run with {@code sbt "bench/jmh:run SentimentMatchBenchmark"}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SentimentMatchBenchmark {
+
+    private static final int DESCRIPTIONS = 64;
+
+    @Param({"80", "1000", "10000"})
+    public int lexiconSize;
+
+    @Param({"25", "150"})
+    public int words;
+
+    private List<String> lexicon;
+    private TermMatcher matcher;
+    private SentimentLexicon weighted;
+    private final SentimentLexicon.Scorer scorer = new SentimentLexicon.Scorer();
+    private String[] descriptions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The words of the sample descriptions, so some terms are found, padded with random made-up words
+        Random random = new Random(42);
+        lexicon = new ArrayList<>(List.of("happy", "amazing", "terrible", "best", "funny", "love", "sad", "down"));
+        while (lexicon.size() < lexiconSize) {
+            StringBuilder term = new StringBuilder();
+            for (int length = 3 + random.nextInt(8); term.length() < length; ) {
+                term.append((char) ('a' + random.nextInt(26)));
+            }
+            lexicon.add(term.toString());
+        }
+        matcher = new TermMatcher(lexicon);
+        List<String> lines = new ArrayList<>(List.of("@negation\tnot", "@intensifier\tvery\t1.3"));
+        for (int i = 0; i < lexicon.size(); i++) {
+            lines.add(lexicon.get(i) + "\t" + (i % 2 == 0 ? 2 : -2));
+        }
+        weighted = SentimentLexicon.parse(lines);
+        descriptions = new String[DESCRIPTIONS];
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            descriptions[i] = SampleResponses.description(words, i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRIPTIONS)
+    public int automaton() {
+        int[] found = new int[1];
+        for (String description : descriptions) {
+            matcher.scan(description, (term, start, end) -> found[0]++);
+        }
+        return found[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRIPTIONS)
+    public double weightedScore() {
+        double total = 0;
+        for (String description : descriptions) {
+            total += scorer.score(weighted, description);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DESCRIPTIONS)
+    public int containsPerTerm() {
+        int found = 0;
+        for (String description : descriptions) {
+            String lowercase = description.toLowerCase();
+            for (String term : lexicon) {
+                if (lowercase.contains(term)) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+}
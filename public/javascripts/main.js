@@ -13,6 +13,30 @@ function setupWebSocket() {
             return;
         }
 
+        // Statistics follow the results of a search in their own frame
+        if (data.statistics) {
+            updateStatistics(data.statistics);
+            return;
+        }
+
+        // Readability scores follow the results of a search in their own frame
+        if (data.readability) {
+            updateReadability(data);
+            return;
+        }
+
+        // Sentiment scores follow the results of a search in their own frame
+        if (data.sentiment) {
+            updateSentiment(data);
+            return;
+        }
+
+        // New videos found for a query already shown
+        if (data.live) {
+            addLiveResults(data);
+            return;
+        }
+
         // Update the results dynamically with WebSocket response
         updateResults(data);
     };
@@ -41,9 +65,21 @@ function search() {
     // Prepare the message to send
     const searchMessage = {
         type: "search",
-        query: query // Ensure the query is being set correctly here
+        query: query, // Ensure the query is being set correctly here
+        // Watching a query for new videos spends API quota, so it is only asked for when ticked
+        live: document.getElementById("liveUpdates").checked
     };
 
+    // The server closes the socket when the session's actor is stopped or another tab takes over;
+    // open a new one for this search instead of reconnecting on close, so tabs do not take turns
+    if (socket.readyState === WebSocket.CLOSING || socket.readyState === WebSocket.CLOSED) {
+        setupWebSocket();
+    }
+    if (socket.readyState === WebSocket.CONNECTING) {
+        socket.addEventListener("open", () => socket.send(JSON.stringify(searchMessage)), { once: true });
+        return;
+    }
+
     // Send the query as a JSON string
     socket.send(JSON.stringify(searchMessage));
 }
@@ -70,39 +106,19 @@ function updateResults(data) {
 
     const query = data.query || "Unknown Query"; // Fallback to avoid "undefined"
 
-    const avgFkGrade = data.avgFleschKincaidGrade || "7.2";
-    const avgReadingEase = data.avgFleschReadingEase || "80.0";
-    const avgSentiment = data.averageSentiment || ":-|";
 
     let queryDiv = document.createElement("div");
     queryDiv.className = "search-header";
+    queryDiv.dataset.query = query;
     queryDiv.innerHTML = `
-        <p>Search terms: ${query} <span class="sentiment">${avgSentiment}</span>
-        (Flesch-Kincaid Grade Level Avg. = ${avgFkGrade},
-        Flesch Reading Ease Score Avg. = ${avgReadingEase})
+        <p>Search terms: ${query} <span class="sentiment">...</span>
+        <span class="readability-average">(Flesch-Kincaid Grade Level Avg. = ...,
+        Flesch Reading Ease Score Avg. = ...)</span>
         <a href="#" style="margin-left: 10px;" onclick="handlewordcount('${query}')">More Stat ${query}</a></p>
     `;
 
     data.items.forEach((item, index) => {
-        let videoDiv = document.createElement("div");
-        videoDiv.className = "video-result";
-        const randomFkGrade = (Math.random() * 12 + 1).toFixed(1); // Random value between 1 and 13
-        const randomReadingEase = (Math.random() * 100).toFixed(1); // Random value between 0 and 100
-        videoDiv.innerHTML = `
-            <div class="video-content">
-                <h3 class="video-title">${index + 1}. Title:
-                <a href="https://www.youtube.com/watch?v=${item.id.videoId}" target="_blank">${item.snippet.title}</a></h3>
-                <p><strong>Channel:</strong>
-                <a href="#" onclick="handleChannelClick('${item.snippet.channelId}')">${item.snippet.channelTitle}</a></p>
-                <p><strong>Description:</strong> "${item.snippet.description}"</p>
-                <p class="readability-score">Flesch-Kincaid Grade Level = ${randomFkGrade},
-                Flesch Reading Ease Score = ${randomReadingEase}</p>
-            </div>
-            <div class="video-thumbnail">
-                <img src="${item.snippet.thumbnails.default.url}" alt="Thumbnail" class="thumbnail">
-            </div>
-        `;
-        queryDiv.appendChild(videoDiv);
+        queryDiv.appendChild(renderVideo(item, index + 1));
     });
 
     resultsDiv.prepend(queryDiv);
@@ -113,5 +129,85 @@ function updateResults(data) {
     }
 }
 
+// Insert videos found by live polling at the top of the results of their query
+function addLiveResults(data) {
+    const queryDiv = Array.from(document.querySelectorAll(".search-header"))
+        .find(element => element.dataset.query === data.query);
+    if (!queryDiv) {
+        return;
+    }
+    const header = queryDiv.firstElementChild;
+    data.items.slice().reverse().forEach(item => {
+        const videoDiv = renderVideo(item, "New");
+        videoDiv.classList.add("live-result");
+        header.after(videoDiv);
+    });
+}
+
+// Render one video; the label is its position in the results, or "New" for a live result
+function renderVideo(item, label) {
+    let videoDiv = document.createElement("div");
+    videoDiv.className = "video-result";
+    videoDiv.innerHTML = `
+        <div class="video-content">
+            <h3 class="video-title">${label}. Title:
+            <a href="https://www.youtube.com/watch?v=${item.id.videoId}" target="_blank">${item.snippet.title}</a></h3>
+            <p><strong>Channel:</strong>
+            <a href="#" onclick="handleChannelClick('${item.snippet.channelId}')">${item.snippet.channelTitle}</a></p>
+            <p><strong>Description:</strong> "${item.snippet.description}"</p>
+            <p class="readability-score" data-video-id="${item.id.videoId}"></p>
+            <p class="sentiment-score" data-video-id="${item.id.videoId}"></p>
+            <p class="video-statistics" data-video-id="${item.id.videoId}"></p>
+        </div>
+        <div class="video-thumbnail">
+            <img src="${item.snippet.thumbnails.default.url}" alt="Thumbnail" class="thumbnail">
+        </div>
+    `;
+    return videoDiv;
+}
+
+// Fill in the view, like and comment counts of the videos already shown
+function updateStatistics(statistics) {
+    Object.entries(statistics).forEach(([videoId, stats]) => {
+        const count = (value) => value < 0 ? "hidden" : value.toLocaleString();
+        document.querySelectorAll(`.video-statistics[data-video-id="${videoId}"]`).forEach(element => {
+            element.textContent = `Views: ${count(stats.viewCount)}, Likes: ${count(stats.likeCount)}, `
+                + `Comments: ${count(stats.commentCount)}`;
+        });
+    });
+}
+
+// Fill in the readability of the videos of a search and its average in the header of the query
+function updateReadability(data) {
+    const queryDiv = Array.from(document.querySelectorAll(".search-header"))
+        .find(element => element.dataset.query === data.query);
+    if (queryDiv) {
+        queryDiv.querySelector(".readability-average").textContent =
+            `(Flesch-Kincaid Grade Level Avg. = ${data.avgFleschKincaidGrade.toFixed(1)}, `
+            + `Flesch Reading Ease Score Avg. = ${data.avgFleschReadingEase.toFixed(1)})`;
+    }
+    Object.entries(data.readability).forEach(([videoId, score]) => {
+        document.querySelectorAll(`.readability-score[data-video-id="${videoId}"]`).forEach(element => {
+            element.textContent = `Flesch-Kincaid Grade Level = ${score.fkGrade.toFixed(1)}, `
+                + `Flesch Reading Ease Score = ${score.readingEase.toFixed(1)}`;
+        });
+    });
+}
+
+// Fill in the sentiment of the videos of a search, from -1 (sad) to 1 (happy), and of the whole query
+function updateSentiment(data) {
+    const queryDiv = Array.from(document.querySelectorAll(".search-header"))
+        .find(element => element.dataset.query === data.query);
+    if (queryDiv) {
+        queryDiv.querySelector(".sentiment").textContent =
+            `${data.averageSentiment} (${data.sentimentScore.toFixed(2)})`;
+    }
+    Object.entries(data.sentiment).forEach(([videoId, score]) => {
+        document.querySelectorAll(`.sentiment-score[data-video-id="${videoId}"]`).forEach(element => {
+            element.textContent = `Sentiment = ${score.toFixed(2)}`;
+        });
+    });
+}
+
 // Initialize WebSocket on page load
 setupWebSocket();
@@ -0,0 +1,86 @@
+package actors;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.testkit.javadsl.TestKit;
+import com.typesafe.config.ConfigFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JUnit tests for the ActorDispatchers class.
+ * These tests validate that actors and stages run on the configured dispatchers, or on the default one.
+ */
+public class ActorDispatchersTest {
+
+    private static ActorSystem system;
+
+    @BeforeClass
+    public static void setup() {
+        system = ActorSystem.create("ActorDispatchersTest", ConfigFactory.parseString(
+                "tubelytics.dispatchers.analytics { type = Dispatcher, executor = fork-join-executor }"));
+    }
+
+    @AfterClass
+    public static void teardown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    /**
+     * Test that an actor pinned to a configured dispatcher runs on its threads.
+     */
+    @Test
+    public void testPinnedActorRunsOnDispatcher() {
+        TestKit probe = new TestKit(system);
+        ActorRef actor = system.actorOf(ActorDispatchers.pinned(system, Props.create(ThreadName.class), ActorDispatchers.ANALYTICS));
+
+        actor.tell("which thread", probe.getRef());
+
+        assertTrue(probe.expectMsgClass(String.class).contains(ActorDispatchers.ANALYTICS));
+    }
+
+    /**
+     * Test that Props pinned to a dispatcher missing from the configuration are left on the default one.
+     */
+    @Test
+    public void testUnconfiguredDispatcherKeepsDefault() {
+        Props props = Props.create(ThreadName.class);
+
+        assertSame(props, ActorDispatchers.pinned(system, props, ActorDispatchers.WEBSOCKET));
+        assertSame(system.dispatcher(), ActorDispatchers.executor(system, ActorDispatchers.WEBSOCKET));
+    }
+
+    /**
+     * Test that stages given the executor of a configured dispatcher run on its threads.
+     */
+    @Test
+    public void testExecutorRunsOnDispatcher() {
+        String thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(),
+                ActorDispatchers.executor(system, ActorDispatchers.ANALYTICS)).join();
+
+        assertTrue(thread.contains(ActorDispatchers.ANALYTICS));
+        assertEquals(-1, thread.indexOf("ForkJoinPool.commonPool"));
+    }
+
+    /**
+     * Replies with the name of the thread it handled the message on.
+     */
+    public static class ThreadName extends AbstractActor {
+        @Override
+        public Receive createReceive() {
+            return receiveBuilder()
+                    .matchAny(message -> getSender().tell(Thread.currentThread().getName(), getSelf()))
+                    .build();
+        }
+    }
+}
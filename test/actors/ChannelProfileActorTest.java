@@ -3,14 +3,14 @@ package actors;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.testkit.javadsl.TestKit;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import models.ChannelProfile;
+import models.VideoSummary;
 import models.YouTubeService;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
-import org.mockito.Mockito;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
@@ -48,15 +48,13 @@ public class ChannelProfileActorTest {
             // Arrange
             YouTubeService mockYouTubeService = mock(YouTubeService.class);
 
-            // Mock API responses
-            JsonNode mockChannelDetails = JsonNodeFactory.instance.objectNode().put("title", "Mock Channel");
-            JsonNode mockVideos = JsonNodeFactory.instance.objectNode().putArray("items").add("Video1").add("Video2");
+            // Mock API response
+            ChannelProfile mockProfile = new ChannelProfile("mockChannelId", "Mock Channel", "", "", "", "", "",
+                    List.of(new VideoSummary("Video1", "", "", "mockChannelId", "", "", "", ""),
+                            new VideoSummary("Video2", "", "", "mockChannelId", "", "", "", "")));
 
-            when(mockYouTubeService.fetchChannelDetails("mockChannelId"))
-                    .thenReturn(CompletableFuture.completedFuture(mockChannelDetails));
-
-            when(mockYouTubeService.fetchChannelVideos("mockChannelId", 10))
-                    .thenReturn(CompletableFuture.completedFuture(mockVideos));
+            when(mockYouTubeService.fetchChannelProfile("mockChannelId", 10))
+                    .thenReturn(CompletableFuture.completedFuture(mockProfile));
 
             ActorRef channelProfileActor = system.actorOf(ChannelProfileActor.props(mockYouTubeService));
 
@@ -69,18 +67,17 @@ public class ChannelProfileActorTest {
             // Assert
             ChannelProfileActor.ChannelProfileResponse response = expectMsgClass(ChannelProfileActor.ChannelProfileResponse.class);
             assertEquals("mockChannelId", response.channelId);
-            assertEquals(mockChannelDetails, response.profile);
-            assertEquals(mockVideos, response.videos);
+            assertEquals(mockProfile, response.profile);
+            assertEquals(2, response.profile.getVideos().size());
 
             // Verify mocks
-            verify(mockYouTubeService, times(1)).fetchChannelDetails("mockChannelId");
-            verify(mockYouTubeService, times(1)).fetchChannelVideos("mockChannelId", 10);
+            verify(mockYouTubeService, times(1)).fetchChannelProfile("mockChannelId", 10);
         }};
     }
 
     /**
-     * Tests the handling of a FetchChannelProfile message when the API returns null responses.
-     * Verifies that null values are returned in the response for both channel details and videos.
+     * Tests the handling of a FetchChannelProfile message when the channel could not be fetched.
+     * Verifies that a null profile is returned in the response.
      */
     @Test
     public void testHandleFetchChannelProfile_Failure() {
@@ -88,12 +85,9 @@ public class ChannelProfileActorTest {
             // Arrange
             YouTubeService mockYouTubeService = mock(YouTubeService.class);
 
-            // Mock failed API responses
-            when(mockYouTubeService.fetchChannelDetails("mockChannelId"))
-                    .thenReturn(CompletableFuture.completedFuture(null));
-
-            when(mockYouTubeService.fetchChannelVideos("mockChannelId", 10))
-                    .thenReturn(CompletableFuture.completedFuture(null));
+            // Mock failed API response
+            when(mockYouTubeService.fetchChannelProfile("mockChannelId", 10))
+                    .thenReturn(CompletableFuture.failedFuture(new YouTubeService.YouTubeApiException("Failed to fetch channel details.")));
 
             ActorRef channelProfileActor = system.actorOf(ChannelProfileActor.props(mockYouTubeService));
 
@@ -107,17 +101,15 @@ public class ChannelProfileActorTest {
             ChannelProfileActor.ChannelProfileResponse response = expectMsgClass(ChannelProfileActor.ChannelProfileResponse.class);
             assertEquals("mockChannelId", response.channelId);
             assertNull(response.profile);
-            assertNull(response.videos);
 
             // Verify mocks
-            verify(mockYouTubeService, times(1)).fetchChannelDetails("mockChannelId");
-            verify(mockYouTubeService, times(1)).fetchChannelVideos("mockChannelId", 10);
+            verify(mockYouTubeService, times(1)).fetchChannelProfile("mockChannelId", 10);
         }};
     }
 
     /**
      * Tests the handling of a FetchChannelProfile message when exceptions occur during API calls.
-     * Verifies that null values are returned in the response for both channel details and videos.
+     * Verifies that a null profile is returned in the response.
      */
     @Test
     public void testHandleFetchChannelProfile_Exception() {
@@ -125,11 +117,8 @@ public class ChannelProfileActorTest {
             // Arrange
             YouTubeService mockYouTubeService = mock(YouTubeService.class);
 
-            // Mock exceptions in API calls
-            when(mockYouTubeService.fetchChannelDetails("mockChannelId"))
-                    .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Mock Exception")));
-
-            when(mockYouTubeService.fetchChannelVideos("mockChannelId", 10))
+            // Mock exception in API call
+            when(mockYouTubeService.fetchChannelProfile("mockChannelId", 10))
                     .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Mock Exception")));
 
             ActorRef channelProfileActor = system.actorOf(ChannelProfileActor.props(mockYouTubeService));
@@ -144,11 +133,9 @@ public class ChannelProfileActorTest {
             ChannelProfileActor.ChannelProfileResponse response = expectMsgClass(ChannelProfileActor.ChannelProfileResponse.class);
             assertEquals("mockChannelId", response.channelId);
             assertNull(response.profile);
-            assertNull(response.videos);
 
             // Verify mocks
-            verify(mockYouTubeService, times(1)).fetchChannelDetails("mockChannelId");
-            verify(mockYouTubeService, times(1)).fetchChannelVideos("mockChannelId", 10);
+            verify(mockYouTubeService, times(1)).fetchChannelProfile("mockChannelId", 10);
         }};
     }
 }
@@ -0,0 +1,155 @@
+package actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.Status;
+import akka.cluster.Cluster;
+import akka.cluster.MemberStatus;
+import akka.testkit.javadsl.TestKit;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import models.SearchPage;
+import models.VideoSummary;
+import models.YouTubeService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import play.libs.Json;
+import play.mvc.Http;
+import utils.ActorMetrics;
+import utils.QuotaScheduler;
+import utils.SessionManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * JUnit tests of the sharded mode of the SupervisorActor.
+ * Three cluster nodes are run as separate ActorSystems in this JVM, talking over Artery on localhost.
+ */
+public class ClusterShardingTest {
+
+    private static final int NODES = 3;
+
+    private static ActorSystem[] nodes;
+    // The regions are started once per node and keep the Props of their first supervisor, so every test shares one service
+    private static YouTubeService mockYouTubeService;
+
+    /**
+     * Starts the nodes and waits until every node sees all of them up.
+     */
+    @BeforeClass
+    public static void setup() {
+        Config config = ConfigFactory.parseString(
+                "akka.actor.provider = cluster\n"
+                        + "akka.remote.artery.canonical.hostname = \"127.0.0.1\"\n"
+                        + "akka.remote.artery.canonical.port = 0\n"
+                        + "akka.cluster.jmx.multi-mbeans-in-same-jvm = on\n")
+                .withFallback(ConfigFactory.load());
+        mockYouTubeService = mock(YouTubeService.class);
+        nodes = new ActorSystem[NODES];
+        for (int i = 0; i < NODES; i++) {
+            nodes[i] = ActorSystem.create("ClusterShardingTest", config);
+            Cluster.get(nodes[i]).join(Cluster.get(nodes[0]).selfAddress());
+        }
+        for (ActorSystem node : nodes) {
+            new TestKit(node).awaitCond(Duration.ofSeconds(20), () -> StreamSupport
+                    .stream(Cluster.get(node).state().getMembers().spliterator(), false)
+                    .filter(member -> member.status() == MemberStatus.up())
+                    .count() == NODES);
+        }
+    }
+
+    @AfterClass
+    public static void teardown() {
+        for (ActorSystem node : nodes) {
+            TestKit.shutdownActorSystem(node);
+        }
+        nodes = null;
+        mockYouTubeService = null;
+    }
+
+    private static ActorRef supervisor(ActorSystem node) {
+        return node.actorOf(Props.create(SupervisorActor.class, () -> new SupervisorActor(
+                Duration.ofSeconds(1), 16, Duration.ofMinutes(10), 1000, new ActorMetrics(), Map.of(),
+                new ShardingSettings(true, 10))));
+    }
+
+    /**
+     * Tests that sessions on every node watching one query, however spelled, share one hub
+     * and one poller for the whole cluster, and are all sent its results.
+     */
+    @Test
+    public void testQueryIsPolledOncePerCluster() {
+        // The poll stays in flight until completed below, so each poller calls the API exactly once meanwhile
+        CompletableFuture<SearchPage> poll = new CompletableFuture<>();
+        when(mockYouTubeService.refreshSearchPage(anyString(), eq(QueryPoller.PAGE_SIZE), eq(QuotaScheduler.Priority.BACKGROUND)))
+                .thenReturn(poll);
+
+        List<String> spellings = List.of("cats", "Cats", "  cats ");
+        TestKit[] sessions = new TestKit[NODES];
+        for (int i = 0; i < NODES; i++) {
+            ActorRef supervisor = supervisor(nodes[i]);
+            sessions[i] = new TestKit(nodes[i]);
+            supervisor.tell(new SupervisorActor.CreateUserActorMessage("session-" + i, null, mockYouTubeService,
+                    mock(SessionManager.class), mock(Http.Session.class)), sessions[i].getRef());
+            sessions[i].expectMsgClass(Duration.ofSeconds(10), ActorRef.class);
+            supervisor.tell(new QueryHub.Subscribe(spellings.get(i), sessions[i].getRef()), sessions[i].getRef());
+        }
+
+        verify(mockYouTubeService, timeout(10000)).refreshSearchPage(anyString(), anyInt(), any(QuotaScheduler.Priority.class));
+        // Separate hubs per node would each have started a poll by now
+        verify(mockYouTubeService, after(2000).times(1)).refreshSearchPage(anyString(), anyInt(), any(QuotaScheduler.Priority.class));
+
+        poll.complete(new SearchPage("cats", List.of(new VideoSummary("v1", "Cats", "", "c1", "", "", "", "")), null));
+        Set<ActorRef> hubs = new HashSet<>();
+        for (TestKit session : sessions) {
+            QueryHub.LiveResults update = session.expectMsgClass(Duration.ofSeconds(10), QueryHub.LiveResults.class);
+            assertEquals("v1", update.page.getVideos().get(0).getVideoId());
+            hubs.add(session.getLastSender());
+            session.getLastSender().tell(QueryHub.Ack.INSTANCE, session.getRef());
+        }
+        assertEquals(1, hubs.size());
+    }
+
+    /**
+     * Tests that a session has one UserActor in the whole cluster: its client's messages reach it through
+     * the region of any node, and its frames go to the socket attached last, wherever that socket is.
+     */
+    @Test
+    public void testSessionIsServedByOneUserActor() {
+        ActorRef[] regions = new ActorRef[NODES];
+        for (int i = 0; i < NODES; i++) {
+            TestKit probe = new TestKit(nodes[i]);
+            supervisor(nodes[i]).tell(new SupervisorActor.CreateUserActorMessage("reader-" + i, null, mockYouTubeService,
+                    mock(SessionManager.class), mock(Http.Session.class)), probe.getRef());
+            regions[i] = probe.expectMsgClass(Duration.ofSeconds(10), ActorRef.class);
+        }
+        ObjectNode scores = Json.newObject().put("fkGrade", 8.5).put("readingEase", 70.2);
+
+        // A socket on the first node, sent to from the regions of the other nodes
+        TestKit firstSocket = new TestKit(nodes[0]);
+        regions[0].tell(new UserActor.Connect("shared-session", firstSocket.getRef(), Map.of()), firstSocket.getRef());
+        for (int i = 1; i < NODES; i++) {
+            regions[i].tell(new UserActor.ClientMessage("shared-session", scores), ActorRef.noSender());
+            assertEquals(8.5, firstSocket.expectMsgClass(Duration.ofSeconds(10), ObjectNode.class).get("fkGrade").asDouble(), 0);
+        }
+
+        // The session reconnecting on the last node replaces the first socket
+        TestKit lastSocket = new TestKit(nodes[NODES - 1]);
+        regions[NODES - 1].tell(new UserActor.Connect("shared-session", lastSocket.getRef(), Map.of()), lastSocket.getRef());
+        firstSocket.expectMsgClass(Duration.ofSeconds(10), Status.Success.class);
+        regions[0].tell(new UserActor.ClientMessage("shared-session", scores), ActorRef.noSender());
+        assertEquals(70.2, lastSocket.expectMsgClass(Duration.ofSeconds(10), ObjectNode.class).get("readingEase").asDouble(), 0);
+    }
+}
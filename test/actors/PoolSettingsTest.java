@@ -0,0 +1,121 @@
+package actors;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.testkit.javadsl.TestKit;
+import com.typesafe.config.ConfigFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * JUnit tests for the PoolSettings class.
+ * These tests validate reading the pool settings and how messages are routed.
+ */
+public class PoolSettingsTest {
+
+    private static ActorSystem system;
+
+    @BeforeClass
+    public static void setup() {
+        system = ActorSystem.create();
+    }
+
+    @AfterClass
+    public static void teardown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    /**
+     * Test that the routing and size of every pool are read, and size 0 means one routee per core.
+     */
+    @Test
+    public void testFromConfig() {
+        Map<String, PoolSettings> pools = PoolSettings.fromConfig(ConfigFactory.parseString(
+                "word-stats { routing = consistent-hashing, size = 3 }\n"
+                        + "sentiment { routing = smallest-mailbox, size = 0 }"));
+
+        assertEquals(PoolSettings.Routing.CONSISTENT_HASHING, pools.get("word-stats").getRouting());
+        assertEquals(3, pools.get("word-stats").getSize());
+        assertEquals(PoolSettings.Routing.SMALLEST_MAILBOX, pools.get("sentiment").getRouting());
+        assertEquals(Runtime.getRuntime().availableProcessors(), pools.get("sentiment").getSize());
+    }
+
+    /**
+     * Test that a consistent-hashing pool sends every message of one key to the same routee.
+     */
+    @Test
+    public void testConsistentHashingKeepsKeyOnOneRoutee() {
+        TestKit probe = new TestKit(system);
+        ActorRef pool = system.actorOf(new PoolSettings(PoolSettings.Routing.CONSISTENT_HASHING, 4)
+                .props(Props.create(Echo.class)));
+
+        Set<ActorRef> routees = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            pool.tell(new ChannelProfileActor.FetchChannelProfile("c1", probe.getRef()), probe.getRef());
+            probe.expectMsgClass(ChannelProfileActor.FetchChannelProfile.class);
+            routees.add(probe.getLastSender());
+        }
+
+        assertEquals(1, routees.size());
+        system.stop(pool);
+    }
+
+    /**
+     * Test that a smallest-mailbox pool sends messages to the routee that is not busy.
+     */
+    @Test
+    public void testSmallestMailboxUsesEveryRoutee() {
+        TestKit probe = new TestKit(system);
+        ActorRef pool = system.actorOf(new PoolSettings(PoolSettings.Routing.SMALLEST_MAILBOX, 2)
+                .props(Props.create(SlowEcho.class)));
+
+        Set<ActorRef> routees = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            pool.tell("message-" + i, probe.getRef());
+        }
+        for (int i = 0; i < 10; i++) {
+            probe.expectMsgClass(String.class);
+            routees.add(probe.getLastSender());
+        }
+
+        assertEquals(2, routees.size());
+        system.stop(pool);
+    }
+
+    /**
+     * Replies with the message it received, so the reply's sender names the routee.
+     */
+    public static class Echo extends AbstractActor {
+        @Override
+        public Receive createReceive() {
+            return receiveBuilder()
+                    .matchAny(message -> getSender().tell(message, getSelf()))
+                    .build();
+        }
+    }
+
+    /**
+     * Replies with the message it received after a while, so it is busy when the next one is routed.
+     */
+    public static class SlowEcho extends AbstractActor {
+        @Override
+        public Receive createReceive() {
+            return receiveBuilder()
+                    .matchAny(message -> {
+                        Thread.sleep(20);
+                        getSender().tell(message, getSelf());
+                    })
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import models.SearchPage;
+import models.VideoSummary;
+import models.YouTubeService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import utils.QuotaScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+public class QueryHubTest {
+
+    private static ActorSystem system;
+
+    /**
+     * Sets up the ActorSystem for testing.
+     */
+    @BeforeClass
+    public static void setup() {
+        system = ActorSystem.create();
+    }
+
+    /**
+     * Shuts down the ActorSystem after tests are completed.
+     */
+    @AfterClass
+    public static void teardown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    private static SearchPage page(String videoId) {
+        return new SearchPage("cats", List.of(new VideoSummary(videoId, "Cats", "", "c1", "", "", "", "")), null);
+    }
+
+    /**
+     * Tests that the normalized query ignores case, extra whitespace and the + between words.
+     */
+    @Test
+    public void testKeyNormalizesQuery() {
+        assertEquals("funny cats", QueryHub.key("  Funny+Cats "));
+        assertEquals("funny cats", QueryHub.key("funny \t cats"));
+    }
+
+    /**
+     * Tests that sessions subscribing to the same query, however spelled, share one poll
+     * and are all sent its results.
+     */
+    @Test
+    public void testPollIsSharedBySubscribers() {
+        YouTubeService mockYouTubeService = mock(YouTubeService.class);
+        SearchPage page = page("v1");
+        when(mockYouTubeService.refreshSearchPage("cats", QueryPoller.PAGE_SIZE, QuotaScheduler.Priority.BACKGROUND))
+                .thenReturn(CompletableFuture.completedFuture(page));
+
+        ActorRef queryHub = system.actorOf(QueryHub.props(mockYouTubeService, Duration.ofMillis(500), 16));
+        TestKit first = new TestKit(system);
+        TestKit second = new TestKit(system);
+        queryHub.tell(new QueryHub.Subscribe("cats", first.getRef()), first.getRef());
+        queryHub.tell(new QueryHub.Subscribe(" Cats", second.getRef()), second.getRef());
+
+        assertSame(page, first.expectMsgClass(Duration.ofSeconds(3), QueryHub.LiveResults.class).page);
+        assertSame(page, second.expectMsgClass(Duration.ofSeconds(3), QueryHub.LiveResults.class).page);
+        verify(mockYouTubeService, times(1))
+                .refreshSearchPage(anyString(), anyInt(), any(QuotaScheduler.Priority.class));
+        system.stop(queryHub);
+    }
+
+    /**
+     * Tests that a query is no longer polled once its last subscriber has unsubscribed.
+     */
+    @Test
+    public void testLastUnsubscribeStopsPolling() {
+        YouTubeService mockYouTubeService = mock(YouTubeService.class);
+        ActorRef queryHub = system.actorOf(QueryHub.props(mockYouTubeService, Duration.ofMillis(100), 16));
+        TestKit session = new TestKit(system);
+
+        queryHub.tell(new QueryHub.Subscribe("cats", session.getRef()), session.getRef());
+        queryHub.tell(new QueryHub.Unsubscribe("Cats", session.getRef()), session.getRef());
+
+        session.expectNoMessage(Duration.ofMillis(400));
+        verify(mockYouTubeService, never()).refreshSearchPage(anyString(), anyInt(), any(QuotaScheduler.Priority.class));
+        system.stop(queryHub);
+    }
+
+    /**
+     * Tests that no more queries are polled at once than there are poller slots, and that a waiting
+     * query is polled once a slot is freed.
+     */
+    @Test
+    public void testPollersAreCappedBySlots() {
+        YouTubeService mockYouTubeService = mock(YouTubeService.class);
+        when(mockYouTubeService.refreshSearchPage(anyString(), anyInt(), any(QuotaScheduler.Priority.class)))
+                .thenReturn(CompletableFuture.completedFuture(page("v1")));
+        ActorRef queryHub = system.actorOf(QueryHub.props(mockYouTubeService, Duration.ofMillis(100), 16, new Semaphore(1)));
+        TestKit session = new TestKit(system);
+
+        queryHub.tell(new QueryHub.Subscribe("cats", session.getRef()), session.getRef());
+        queryHub.tell(new QueryHub.Subscribe("dogs", session.getRef()), session.getRef());
+        session.expectMsgClass(Duration.ofSeconds(3), QueryHub.LiveResults.class);
+        verify(mockYouTubeService, never()).refreshSearchPage(eq("dogs"), anyInt(), any(QuotaScheduler.Priority.class));
+
+        // Once cats is no longer watched, its slot goes to dogs
+        queryHub.tell(new QueryHub.Unsubscribe("cats", session.getRef()), session.getRef());
+        verify(mockYouTubeService, timeout(3000).atLeastOnce())
+                .refreshSearchPage(eq("dogs"), anyInt(), any(QuotaScheduler.Priority.class));
+        system.stop(queryHub);
+    }
+
+    /**
+     * Tests that no poll is sent while the quota is down to the reserve kept for interactive searches.
+     */
+    @Test
+    public void testNoPollWhileQuotaIsLow() {
+        YouTubeService mockYouTubeService = mock(YouTubeService.class);
+        when(mockYouTubeService.isQuotaLow()).thenReturn(true);
+        ActorRef queryHub = system.actorOf(QueryHub.props(mockYouTubeService, Duration.ofMillis(100), 16));
+        TestKit session = new TestKit(system);
+
+        queryHub.tell(new QueryHub.Subscribe("cats", session.getRef()), session.getRef());
+
+        session.expectNoMessage(Duration.ofMillis(400));
+        verify(mockYouTubeService, atLeastOnce()).isQuotaLow();
+        verify(mockYouTubeService, never()).refreshSearchPage(anyString(), anyInt(), any(QuotaScheduler.Priority.class));
+        system.stop(queryHub);
+    }
+
+    /**
+     * Tests that a subscriber is sent one update at a time, and that the oldest updates are
+     * dropped while it has not acknowledged the previous one.
+     */
+    @Test
+    public void testSlowSubscriberDropsOldestUpdates() {
+        ActorRef queryHub = system.actorOf(QueryHub.props(mock(YouTubeService.class), Duration.ofHours(1), 2));
+        TestKit session = new TestKit(system);
+        queryHub.tell(new QueryHub.Subscribe("cats", session.getRef()), session.getRef());
+
+        for (String videoId : List.of("v1", "v2", "v3", "v4")) {
+            queryHub.tell(new QueryHub.Published("cats", page(videoId)), ActorRef.noSender());
+        }
+
+        assertEquals("v1", session.expectMsgClass(QueryHub.LiveResults.class).page.getVideos().get(0).getVideoId());
+        session.expectNoMessage(Duration.ofMillis(200));
+
+        queryHub.tell(QueryHub.Ack.INSTANCE, session.getRef());
+        assertEquals("v3", session.expectMsgClass(QueryHub.LiveResults.class).page.getVideos().get(0).getVideoId());
+        queryHub.tell(QueryHub.Ack.INSTANCE, session.getRef());
+        assertEquals("v4", session.expectMsgClass(QueryHub.LiveResults.class).page.getVideos().get(0).getVideoId());
+        queryHub.tell(QueryHub.Ack.INSTANCE, session.getRef());
+        session.expectNoMessage(Duration.ofMillis(200));
+        system.stop(queryHub);
+    }
+}
@@ -9,8 +9,12 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import models.Readability;
+import models.SearchPage;
+import models.VideoSummary;
 import play.libs.Json;
 import scala.concurrent.duration.FiniteDuration;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import actors.ReadabilityActor;
@@ -199,4 +203,91 @@ public class ReadabilityActorTest {
         }};
     }
 
-}
\ No newline at end of file
+    /**
+     * Test: The scores use the fractional words per sentence and syllables per word.
+     */
+    @Test
+    public void testScoresUseFloatingPointRatios() {
+        // 2 sentences, 6 words and 7 syllables
+        double[] scores = ReadabilityActor.scores("The cat sat. It was happy.");
+        assertEquals(0.39 * 3 + 11.8 * 7 / 6.0 - 15.59, scores[0], 1e-9);
+        assertEquals(206.835 - 1.015 * 3 - 84.6 * 7 / 6.0, scores[1], 1e-9);
+    }
+
+    /**
+     * Test: Runs of punctuation and whitespace neither add sentences nor words.
+     */
+    @Test
+    public void testPunctuationAndWhitespaceRuns() {
+        new TestKit(system) {{
+            ActorRef readabilityActor = system.actorOf(Props.create(TestableReadabilityActor.class, getRef()));
+            readabilityActor.tell("countSentences:  Really?! Yes... ", getRef());
+            assertEquals(2, (int) expectMsgClass(Integer.class));
+            readabilityActor.tell("countWords:  Really?!   Yes ... ", getRef());
+            assertEquals(2, (int) expectMsgClass(Integer.class));
+        }};
+    }
+
+    /**
+     * Test: A page is scored as a whole, with the grades of every video and their average.
+     */
+    @Test
+    public void testScorePage() {
+        new TestKit(system) {{
+            ActorRef readabilityActor = system.actorOf(ReadabilityActor.props());
+            SearchPage page = new SearchPage("cats", List.of(
+                    new VideoSummary("v1", "Cats", "The cat sat. It was happy.", "c1", "", "", "", ""),
+                    new VideoSummary("v2", "More cats", "Cats are wonderful animals.", "c1", "", "", "", ""),
+                    new VideoSummary("v3", "Even more", "Cats.", "c1", "", "", "", "")), null);
+
+            readabilityActor.tell(page, getRef());
+
+            ReadabilityActor.PageReadability readability = expectMsgClass(ReadabilityActor.PageReadability.class);
+            assertEquals("cats", readability.query);
+            assertEquals(List.of("v1", "v2", "v3"), List.copyOf(readability.byVideo.keySet()));
+            double[] first = ReadabilityActor.scores("The cat sat. It was happy.");
+            assertEquals(new Readability(first[0], first[1]), readability.byVideo.get("v1"));
+            assertEquals(Readability.average(readability.byVideo.values()), readability.average);
+        }};
+    }
+
+    /**
+     * Test: A video seen before keeps its cached score, even if its description is different.
+     */
+    @Test
+    public void testScorePageUsesCachedVideoScores() {
+        new TestKit(system) {{
+            ActorRef readabilityActor = system.actorOf(ReadabilityActor.props());
+            readabilityActor.tell(new SearchPage("cats", List.of(
+                    new VideoSummary("v1", "Cats", "The cat sat. It was happy.", "c1", "", "", "", "")), null), getRef());
+            Readability cached = expectMsgClass(ReadabilityActor.PageReadability.class).byVideo.get("v1");
+
+            readabilityActor.tell(new SearchPage("kittens", List.of(
+                    new VideoSummary("v1", "Cats", "Changed.", "c1", "", "", "", "")), null), getRef());
+            assertEquals(cached, expectMsgClass(ReadabilityActor.PageReadability.class).byVideo.get("v1"));
+        }};
+    }
+
+    /**
+     * Test: Results without a video ID, such as channels, are scored from their own description every time.
+     */
+    @Test
+    public void testScorePageDoesNotCacheResultsWithoutVideoId() {
+        new TestKit(system) {{
+            ActorRef readabilityActor = system.actorOf(ReadabilityActor.props());
+            readabilityActor.tell(new SearchPage("cats", List.of(
+                    new VideoSummary("", "Cat channel", "The cat sat. It was happy.", "c1", "", "", "", "")), null), getRef());
+            expectMsgClass(ReadabilityActor.PageReadability.class);
+
+            readabilityActor.tell(new SearchPage("kittens", List.of(
+                    new VideoSummary("", "Kitten channel", "Kittens are wonderful animals.", "c2", "", "", "", ""),
+                    new VideoSummary("", "Cat channel", "Cats.", "c1", "", "", "", "")), null), getRef());
+
+            ReadabilityActor.PageReadability readability = expectMsgClass(ReadabilityActor.PageReadability.class);
+            double[] first = ReadabilityActor.scores("Kittens are wonderful animals.");
+            double[] second = ReadabilityActor.scores("Cats.");
+            assertEquals(Readability.average(List.of(new Readability(first[0], first[1]), new Readability(second[0], second[1]))),
+                    readability.average);
+        }};
+    }
+}
@@ -4,12 +4,19 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.testkit.javadsl.TestKit;
 import com.fasterxml.jackson.databind.JsonNode;
+import models.SearchPage;
+import models.VideoSummary;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import play.libs.Json;
+import utils.SentimentLexicon;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test class for the SentimentActor.
@@ -81,8 +88,9 @@ public class SentimentActorTest {
                     .add("Just an average experience, not too bad or good.");
             sentimentActor.tell(input, getRef());
 
+            // "not" flips "bad" but "good" is past its window, so the second description leans happy
             JsonNode response = expectMsgClass(JsonNode.class);
-            assertEquals(":-|", response.get("finalSentiment").asText());
+            assertEquals(":-)", response.get("finalSentiment").asText());
         }};
     }
 
@@ -99,8 +107,66 @@ public class SentimentActorTest {
                     .add("I was so happy earlier, but now I'm feeling down.");
             sentimentActor.tell(input, getRef());
 
+            // "fantastic" outweighs "bad" and "so happy" outweighs "down", so the weighted total is happy
+            JsonNode response = expectMsgClass(JsonNode.class);
+            assertEquals(":-)", response.get("finalSentiment").asText());
+        }};
+    }
+
+    /**
+     * Test case for a typed SearchPage, as shared by the UserActor.
+     */
+    @Test
+    public void testSearchPageSentiment() {
+        new TestKit(system) {{
+            ActorRef sentimentActor = system.actorOf(SentimentActor.props());
+
+            SearchPage page = new SearchPage("test", List.of(
+                    new VideoSummary("1", "", "This is a fantastic day! I'm so happy and excited!", "", "", "", "", ""),
+                    new VideoSummary("2", "", "Amazing experience with lots of joy and smiles!", "", "", "", "", "")), null);
+            sentimentActor.tell(page, getRef());
+
+            SentimentActor.PageSentiment response = expectMsgClass(SentimentActor.PageSentiment.class);
+            assertEquals(":-)", response.finalSentiment);
+            assertEquals(List.of("1", "2"), List.copyOf(response.byVideo.keySet()));
+            assertTrue(response.byVideo.get("1") > 0 && response.byVideo.get("2") > 0);
+            assertEquals((response.byVideo.get("1") + response.byVideo.get("2")) / 2, response.average, 1e-9);
+        }};
+    }
+
+    /**
+     * Test case for a lexicon swapped while the actor runs, which is used from the next message on.
+     */
+    @Test
+    public void testUsesCurrentLexicon() {
+        new TestKit(system) {{
+            AtomicReference<SentimentLexicon> lexicon = new AtomicReference<>(SentimentLexicon.parse(List.of("cats\t3")));
+            ActorRef sentimentActor = system.actorOf(SentimentActor.props(lexicon::get));
+
+            sentimentActor.tell(Json.newArray().add("Cats everywhere"), getRef());
+            assertEquals(":-)", expectMsgClass(JsonNode.class).get("finalSentiment").asText());
+
+            lexicon.set(SentimentLexicon.parse(List.of("cats\t-3")));
+            sentimentActor.tell(Json.newArray().add("Cats everywhere"), getRef());
+            assertEquals(":-(", expectMsgClass(JsonNode.class).get("finalSentiment").asText());
+        }};
+    }
+
+    /**
+     * Test case for lexicon words inside other words, which are not counted.
+     */
+    @Test
+    public void testWordsInsideOtherWordsAreIgnored() {
+        new TestKit(system) {{
+            ActorRef sentimentActor = system.actorOf(SentimentActor.props());
+
+            // "download", "function" and "badge" hold "down", "fun" and "bad"
+            JsonNode input = Json.newArray()
+                    .add("Download the function and the badge, what a great day!");
+            sentimentActor.tell(input, getRef());
+
             JsonNode response = expectMsgClass(JsonNode.class);
-            assertEquals(":-|", response.get("finalSentiment").asText());
+            assertEquals(":-)", response.get("finalSentiment").asText());
         }};
     }
 }
@@ -4,19 +4,26 @@ import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Props;
+import akka.actor.Status;
 import akka.actor.typed.javadsl.Receive;
 import akka.testkit.javadsl.TestKit;
+import models.SearchPage;
+import models.VideoSummary;
 import models.YouTubeService;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import play.mvc.Http;
+import utils.ActorMetrics;
 import utils.SessionManager;
 
 import java.time.Duration;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -126,7 +133,7 @@ public class SupervisorActorTest {
 
         // Simulate a response from the ChannelProfileActor
         ChannelProfileActor.ChannelProfileResponse response =
-                new ChannelProfileActor.ChannelProfileResponse(channelId, null, null, probe.getRef());
+                new ChannelProfileActor.ChannelProfileResponse(channelId, null, probe.getRef());
         supervisorActor.tell(response, probe.getRef());
 
         // Expect the response to be forwarded back to the original sender
@@ -150,6 +157,94 @@ public class SupervisorActorTest {
         assertEquals(response.query, forwardedResponse.query);
     }
 
+    /**
+     * Test that an idle UserActor is passivated, and started again for the next request of its session.
+     */
+    @Test
+    public void testIdleUserActorIsPassivated() {
+        ActorMetrics metrics = new ActorMetrics();
+        ActorMetrics.Registry users = metrics.registry("userActor");
+        ActorRef supervisor = actorSystem.actorOf(SupervisorActor.props(Duration.ofMillis(200), 10, metrics));
+
+        ActorRef first = createUserActor(supervisor, "s1");
+        probe.awaitAssert(Duration.ofSeconds(3), () -> {
+            assertEquals(1, users.getPassivated());
+            assertEquals(0, users.getLive());
+            return null;
+        });
+
+        assertNotEquals(first, createUserActor(supervisor, "s1"));
+        assertEquals(2, users.getCreated());
+    }
+
+    /**
+     * Test that a full registry stops its least recently used UserActor to make room.
+     */
+    @Test
+    public void testLeastRecentlyUsedUserActorIsEvicted() {
+        ActorMetrics metrics = new ActorMetrics();
+        ActorMetrics.Registry users = metrics.registry("userActor");
+        ActorRef supervisor = actorSystem.actorOf(SupervisorActor.props(Duration.ofHours(1), 2, metrics));
+
+        ActorRef first = createUserActor(supervisor, "s1");
+        createUserActor(supervisor, "s2");
+        assertEquals(first, createUserActor(supervisor, "s1"));
+        createUserActor(supervisor, "s3");
+
+        probe.awaitAssert(Duration.ofSeconds(3), () -> {
+            assertEquals(3, users.getCreated());
+            assertEquals(1, users.getEvicted());
+            assertEquals(2, users.getLive());
+            return null;
+        });
+        // s2 was evicted, so s1 is still served by its first actor
+        assertEquals(first, createUserActor(supervisor, "s1"));
+    }
+
+    /**
+     * Test that a page sent for scoring is routed to the pools, which reply to its sender.
+     */
+    @Test
+    public void testSearchPageIsScoredByPools() {
+        SearchPage page = new SearchPage("cats", List.of(new VideoSummary("v1", "Cats", "A happy cat", "c1", "", "", "", "")), null);
+
+        supervisorActor.tell(page, probe.getRef());
+
+        // The pools reply in either order
+        List<Object> replies = probe.receiveN(2, Duration.ofSeconds(3));
+        SentimentActor.PageSentiment sentiment = (SentimentActor.PageSentiment) replies.stream()
+                .filter(SentimentActor.PageSentiment.class::isInstance).findFirst().orElseThrow();
+        assertEquals(":-)", sentiment.finalSentiment);
+        ReadabilityActor.PageReadability readability = (ReadabilityActor.PageReadability) replies.stream()
+                .filter(ReadabilityActor.PageReadability.class::isInstance).findFirst().orElseThrow();
+        assertTrue(readability.byVideo.containsKey("v1"));
+    }
+
+    /**
+     * Test that a session connecting again is served by the same UserActor, which closes the socket it replaces.
+     */
+    @Test
+    public void testReconnectingSessionKeepsItsUserActor() {
+        TestKit firstSocket = new TestKit(actorSystem);
+        TestKit secondSocket = new TestKit(actorSystem);
+
+        ActorRef first = createUserActor(supervisorActor, "s1", firstSocket.getRef());
+        assertEquals(first, createUserActor(supervisorActor, "s1", secondSocket.getRef()));
+
+        firstSocket.expectMsgClass(Status.Success.class);
+    }
+
+    private ActorRef createUserActor(ActorRef supervisor, String sessionId) {
+        // A socket of its own, as a UserActor closes its socket when it is stopped
+        return createUserActor(supervisor, sessionId, new TestKit(actorSystem).getRef());
+    }
+
+    private ActorRef createUserActor(ActorRef supervisor, String sessionId, ActorRef out) {
+        supervisor.tell(new SupervisorActor.CreateUserActorMessage(sessionId, out, mockYouTubeService,
+                mockSessionManager, mock(Http.Session.class)), probe.getRef());
+        return probe.expectMsgClass(ActorRef.class);
+    }
+
     /**
      * Test to ensure that SupervisorActor properly handles unhandled messages.
      */
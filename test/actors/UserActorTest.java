@@ -2,6 +2,10 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.testkit.javadsl.TestKit;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import models.Readability;
+import models.SearchPage;
+import models.VideoStatistics;
+import models.VideoSummary;
 import models.YouTubeService;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -9,11 +13,17 @@ import org.junit.Test;
 import play.libs.Json;
 import play.mvc.Http;
 import utils.SessionManager;
+import actors.QueryHub;
+import actors.ReadabilityActor;
+import actors.SentimentActor;
 import actors.UserActor;
 import java.util.concurrent.CompletableFuture;
-import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class UserActorTest {
@@ -38,24 +48,20 @@ public class UserActorTest {
             YouTubeService youTubeService = mock(YouTubeService.class);
             SessionManager sessionManager = mock(SessionManager.class);
             ActorRef readabilityActor = getTestActor(); // Test probe as readability actor
+            TestKit queryHub = new TestKit(system);
             Http.Session session = mock(Http.Session.class);
 
-            // Mock YouTubeService to return a fake response
-            ObjectNode mockYouTubeResponse = Json.newObject();
-            ObjectNode videoIdNode = Json.newObject();
-            ((ObjectNode) videoIdNode).put("videoId", "12345");
+            // Mock YouTubeService to return a fake page
+            SearchPage page = new SearchPage("test query", List.of(new VideoSummary(
+                    "12345", "Sample title", "Sample description", "channel1", "Sample channel", "", "", "")), null);
 
-            ObjectNode videoItemNode = Json.newObject();
-            ((ObjectNode) videoItemNode).set("id", videoIdNode);
-            ((ObjectNode) videoItemNode).put("description", "Sample description");
-
-            mockYouTubeResponse.set("items", Json.newArray().add(videoItemNode));
-
-            when(youTubeService.fetchVideos(anyString(), anyInt()))
-                    .thenReturn(CompletableFuture.completedFuture(mockYouTubeResponse));
+            when(youTubeService.fetchSearchPage(anyString(), anyInt()))
+                    .thenReturn(CompletableFuture.completedFuture(page));
+            when(youTubeService.fetchVideoStatistics(List.of("12345")))
+                    .thenReturn(CompletableFuture.completedFuture(Map.of("12345", new VideoStatistics("12345", 1000, 50, 7, "PT4M13S"))));
 
             // Create UserActor
-            ActorRef userActor = system.actorOf(UserActor.props(getTestActor(), youTubeService, sessionManager, session, readabilityActor));
+            ActorRef userActor = system.actorOf(UserActor.props(getTestActor(), youTubeService, sessionManager, session, readabilityActor, queryHub.getRef()));
 
             // Send a search request
             ObjectNode searchRequest = Json.newObject();
@@ -63,21 +69,90 @@ public class UserActorTest {
             ((ObjectNode) searchRequest).put("query", "test query");
             userActor.tell(searchRequest, getRef());
 
-            // Expect descriptions to be sent to ReadabilityActor as plain text
-            expectMsgEquals(Collections.singletonList("Sample description"));
+            // Expect the page to be shared with ReadabilityActor as is
+            expectMsgEquals(page);
+
+            // Expect initial response to be sent to WebSocket, in the shape of YouTube search items
+            ObjectNode expectedItem = Json.newObject();
+            expectedItem.putObject("id").put("videoId", "12345");
+            ObjectNode snippet = expectedItem.putObject("snippet")
+                    .put("publishedAt", "")
+                    .put("channelId", "channel1")
+                    .put("title", "Sample title")
+                    .put("description", "Sample description");
+            ObjectNode thumbnails = snippet.putObject("thumbnails");
+            thumbnails.putObject("default").put("url", "");
+            thumbnails.putObject("medium").put("url", "");
+            snippet.put("channelTitle", "Sample channel");
 
-            // Expect initial response to be sent to WebSocket
             ObjectNode expectedResponse = Json.newObject();
             ((ObjectNode) expectedResponse).put("firstResponse", true);
             ((ObjectNode) expectedResponse).put("query", "test query");
-            expectedResponse.set("items", mockYouTubeResponse.get("items"));
+            expectedResponse.set("items", Json.newArray().add(expectedItem));
             expectMsgEquals(expectedResponse);
 
+            // Expect the statistics to follow in their own frame
+            ObjectNode expectedStatistics = Json.newObject().put("query", "test query");
+            expectedStatistics.putObject("statistics").putObject("12345")
+                    .put("viewCount", 1000)
+                    .put("likeCount", 50)
+                    .put("commentCount", 7)
+                    .put("duration", "PT4M13S");
+            expectMsgEquals(expectedStatistics);
+
+            // Live mode was not asked for, so the query is not watched
+            queryHub.expectNoMessage(java.time.Duration.ofMillis(200));
+
             // Verify session data preparation
             verify(sessionManager, times(1)).prepareSessionData(any(Http.Session.class), eq("test query"));
         }};
     }
 
+    @Test
+    public void testLiveResultsPushOnlyNewVideos() {
+        new TestKit(system) {{
+            YouTubeService youTubeService = mock(YouTubeService.class);
+            SessionManager sessionManager = mock(SessionManager.class);
+            Http.Session session = mock(Http.Session.class);
+            TestKit readabilityActor = new TestKit(system);
+            TestKit queryHub = new TestKit(system);
+
+            VideoSummary seen = new VideoSummary("seen", "Seen", "", "channel1", "Sample channel", "", "", "");
+            VideoSummary fresh = new VideoSummary("fresh", "Fresh", "", "channel1", "Sample channel", "", "", "");
+            when(youTubeService.fetchSearchPage(anyString(), anyInt()))
+                    .thenReturn(CompletableFuture.completedFuture(new SearchPage("test query", List.of(seen), null)));
+            when(youTubeService.fetchVideoStatistics(anyList()))
+                    .thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+            ActorRef userActor = system.actorOf(UserActor.props(getTestActor(), youTubeService, sessionManager, session,
+                    readabilityActor.getRef(), queryHub.getRef()));
+            userActor.tell(Json.newObject().put("type", "search").put("query", "test query").put("live", true), getRef());
+            expectMsgClass(ObjectNode.class); // search results
+            expectMsgClass(ObjectNode.class); // statistics
+            QueryHub.Subscribe subscribe = queryHub.expectMsgClass(QueryHub.Subscribe.class);
+            assertEquals("test query", subscribe.query);
+            assertEquals(userActor, subscribe.subscriber);
+
+            // A poll returning the video already sent and a new one pushes the new one only
+            SearchPage update = new SearchPage("test query", List.of(fresh, seen), null);
+            userActor.tell(new QueryHub.LiveResults(update), queryHub.getRef());
+            queryHub.expectMsgEquals(QueryHub.Ack.INSTANCE);
+
+            ObjectNode frame = expectMsgClass(ObjectNode.class);
+            assertTrue(frame.get("live").asBoolean());
+            assertEquals(1, frame.get("items").size());
+            assertEquals("fresh", frame.get("items").get(0).get("id").get("videoId").asText());
+
+            // The same poll again pushes nothing
+            userActor.tell(new QueryHub.LiveResults(update), queryHub.getRef());
+            queryHub.expectMsgEquals(QueryHub.Ack.INSTANCE);
+            expectNoMessage(java.time.Duration.ofMillis(200));
+
+            // Statistics were only fetched for the search itself, not for the live update
+            verify(youTubeService, times(1)).fetchVideoStatistics(anyList());
+        }};
+    }
+
     @Test
     public void testHandleReadabilityScores() {
         new TestKit(system) {{
@@ -85,10 +160,11 @@ public class UserActorTest {
             YouTubeService youTubeService = mock(YouTubeService.class);
             SessionManager sessionManager = mock(SessionManager.class);
             ActorRef readabilityActor = getTestActor(); // Test probe as readability actor
+            TestKit queryHub = new TestKit(system);
             Http.Session session = mock(Http.Session.class);
 
             // Create UserActor
-            ActorRef userActor = system.actorOf(UserActor.props(getTestActor(), youTubeService, sessionManager, session, readabilityActor));
+            ActorRef userActor = system.actorOf(UserActor.props(getTestActor(), youTubeService, sessionManager, session, readabilityActor, queryHub.getRef()));
 
             // Send readability scores to the actor
             ObjectNode readabilityScores = Json.newObject();
@@ -103,4 +179,82 @@ public class UserActorTest {
             expectMsgEquals(expectedResponse);
         }};
     }
+
+    @Test
+    public void testHandlePageReadability() {
+        new TestKit(system) {{
+            TestKit queryHub = new TestKit(system);
+            ActorRef userActor = system.actorOf(UserActor.props(getTestActor(), mock(YouTubeService.class),
+                    mock(SessionManager.class), mock(Http.Session.class), getTestActor(), queryHub.getRef()));
+
+            userActor.tell(new ReadabilityActor.PageReadability("cats",
+                    Map.of("v1", new Readability(8.0, 60.0))), getRef());
+
+            // The client is sent the grades of each video and the page average in one frame
+            ObjectNode expectedResponse = Json.newObject()
+                    .put("query", "cats")
+                    .put("avgFleschKincaidGrade", 8.0)
+                    .put("avgFleschReadingEase", 60.0);
+            expectedResponse.putObject("readability").putObject("v1")
+                    .put("fkGrade", 8.0)
+                    .put("readingEase", 60.0);
+            expectMsgEquals(expectedResponse);
+        }};
+    }
+
+    @Test
+    public void testHandlePageSentiment() {
+        new TestKit(system) {{
+            TestKit queryHub = new TestKit(system);
+            ActorRef userActor = system.actorOf(UserActor.props(getTestActor(), mock(YouTubeService.class),
+                    mock(SessionManager.class), mock(Http.Session.class), getTestActor(), queryHub.getRef()));
+
+            userActor.tell(new SentimentActor.PageSentiment("cats", Map.of("v1", 0.5)), getRef());
+
+            // The client is sent the score of each video and of the page in one frame
+            ObjectNode expectedResponse = Json.newObject()
+                    .put("query", "cats")
+                    .put("averageSentiment", ":-)")
+                    .put("sentimentScore", 0.5);
+            expectedResponse.putObject("sentiment").put("v1", 0.5);
+            expectMsgEquals(expectedResponse);
+        }};
+    }
+
+    @Test
+    public void testSocketsAttachToSessionActor() {
+        new TestKit(system) {{
+            YouTubeService youTubeService = mock(YouTubeService.class);
+            TestKit queryHub = new TestKit(system);
+            TestKit firstSocket = new TestKit(system);
+            TestKit secondSocket = new TestKit(system);
+
+            when(youTubeService.fetchSearchPage(anyString(), anyInt()))
+                    .thenReturn(CompletableFuture.completedFuture(new SearchPage("cats", List.of(new VideoSummary(
+                            "v1", "Cats", "", "channel1", "Sample channel", "", "", "")), null)));
+            when(youTubeService.fetchVideoStatistics(anyList()))
+                    .thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+            // A session's UserActor starts without a socket, as the registry starts it
+            ActorRef userActor = system.actorOf(UserActor.props(null, youTubeService, mock(SessionManager.class), null,
+                    getTestActor(), queryHub.getRef()));
+            userActor.tell(new UserActor.Connect("s1", firstSocket.getRef(), Map.of()), getRef());
+            userActor.tell(new UserActor.ClientMessage("s1", Json.newObject().put("type", "search").put("query", "cats").put("live", true)), getRef());
+            expectMsgClass(SearchPage.class);
+            firstSocket.expectMsgClass(ObjectNode.class); // search results
+            firstSocket.expectMsgClass(ObjectNode.class); // statistics
+            queryHub.expectMsgClass(QueryHub.Subscribe.class);
+
+            // Once its socket closes, the session's queries are no longer watched and nothing is sent
+            userActor.tell(new UserActor.Disconnect("s1", firstSocket.getRef()), getRef());
+            assertEquals("cats", queryHub.expectMsgClass(QueryHub.Unsubscribe.class).query);
+            userActor.tell(new SentimentActor.PageSentiment("cats", Map.of("v1", 0.5)), getRef());
+            firstSocket.expectNoMessage(java.time.Duration.ofMillis(200));
+
+            // The next socket of the session is sent the results
+            userActor.tell(new UserActor.Connect("s1", secondSocket.getRef(), Map.of()), getRef());
+            userActor.tell(new SentimentActor.PageSentiment("cats", Map.of("v1", 0.5)), getRef());
+            assertEquals("cats", secondSocket.expectMsgClass(ObjectNode.class).get("query").asText());
+        }};
+    }
 }
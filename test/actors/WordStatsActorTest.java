@@ -6,7 +6,10 @@ import akka.testkit.javadsl.TestKit;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import models.SearchPage;
+import models.VideoSummary;
 import models.YouTubeService;
+import utils.QuotaScheduler;
 import org.junit.*;
 import org.junit.Test;
 
@@ -70,7 +73,7 @@ public class WordStatsActorTest {
         new TestKit(system) {{
             YouTubeService mockYouTubeService = mock(YouTubeService.class);
 
-            when(mockYouTubeService.fetchVideos("mockQuery", 50))
+            when(mockYouTubeService.fetchSearchPage("mockQuery", 50, QuotaScheduler.Priority.BACKGROUND))
                     .thenReturn(CompletableFuture.completedFuture(null));
 
             ActorRef wordStatsActor = system.actorOf(WordStatsActor.props(mockYouTubeService));
@@ -84,7 +87,7 @@ public class WordStatsActorTest {
             assertEquals("mockQuery", response.query);
             assertTrue(response.response.isEmpty());
 
-            verify(mockYouTubeService, times(1)).fetchVideos("mockQuery", 50);
+            verify(mockYouTubeService, times(1)).fetchSearchPage("mockQuery", 50, QuotaScheduler.Priority.BACKGROUND);
         }};
     }
 
@@ -93,7 +96,7 @@ public class WordStatsActorTest {
         new TestKit(system) {{
             YouTubeService mockYouTubeService = mock(YouTubeService.class);
 
-            when(mockYouTubeService.fetchVideos("mockQuery", 50))
+            when(mockYouTubeService.fetchSearchPage("mockQuery", 50, QuotaScheduler.Priority.BACKGROUND))
                     .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Mock Exception")));
 
             ActorRef wordStatsActor = system.actorOf(WordStatsActor.props(mockYouTubeService));
@@ -107,7 +110,33 @@ public class WordStatsActorTest {
             assertEquals("mockQuery", response.query);
             assertTrue(response.response.isEmpty());
 
-            verify(mockYouTubeService, times(1)).fetchVideos("mockQuery", 50);
+            verify(mockYouTubeService, times(1)).fetchSearchPage("mockQuery", 50, QuotaScheduler.Priority.BACKGROUND);
+        }};
+    }
+
+    @Test
+    public void testHandleFetchWordStats_Success() {
+        new TestKit(system) {{
+            YouTubeService mockYouTubeService = mock(YouTubeService.class);
+
+            SearchPage page = new SearchPage("mockQuery", List.of(
+                    new VideoSummary("1", "Hello World", "Akka is awesome", "", "", "", "", ""),
+                    new VideoSummary("2", "Java Programming", "Learn Java and Akka", "", "", "", "", "")), null);
+
+            when(mockYouTubeService.fetchSearchPage("mockQuery", 50, QuotaScheduler.Priority.BACKGROUND))
+                    .thenReturn(CompletableFuture.completedFuture(page));
+
+            ActorRef wordStatsActor = system.actorOf(WordStatsActor.props(mockYouTubeService));
+
+            wordStatsActor.tell(
+                    new WordStatsActor.FetchWordStatsResponse("mockQuery", getRef()),
+                    getRef()
+            );
+
+            WordStatsActor.WordStatsResponse response = expectMsgClass(WordStatsActor.WordStatsResponse.class);
+            assertEquals("mockQuery", response.query);
+            assertEquals(2L, (long) response.response.get("akka"));
+            assertEquals(2L, (long) response.response.get("java"));
         }};
     }
 
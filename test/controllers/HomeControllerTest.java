@@ -91,7 +91,7 @@ public class HomeControllerTest extends WithApplication {
 
         // Check the WebSocket flow creation, this part simulates an actual WebSocket test
         akka.stream.javadsl.Flow<JsonNode, JsonNode, ?> flow = ActorFlow.actorRef(
-                out -> UserActor.props(out, mockYouTubeService, mockSessionManager, mockSession, userActor),
+                out -> UserActor.props(out, mockYouTubeService, mockSessionManager, mockSession, userActor, supervisorActor),
                 actorSystem,
                 materializer
         );
@@ -0,0 +1,54 @@
+package controllers;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import utils.ActorMetrics;
+import utils.QueryCache;
+import utils.YouTubeHttpClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JUnit tests for the MetricsController class.
+ * These tests validate the shape of the exposed metrics.
+ */
+public class MetricsControllerTest {
+
+    private YouTubeHttpClient httpClient;
+    private QueryCache queryCache;
+    private ActorMetrics actorMetrics;
+    private MetricsController controller;
+
+    @Before
+    public void setUp() {
+        httpClient = new YouTubeHttpClient();
+        queryCache = new QueryCache();
+        actorMetrics = new ActorMetrics();
+        controller = new MetricsController(httpClient, queryCache, actorMetrics);
+    }
+
+    @After
+    public void tearDown() {
+        httpClient.shutdown();
+        queryCache.shutdown();
+    }
+
+    /**
+     * Test that the limiter, bulkhead, quota, cache and actor metrics are all reported.
+     */
+    @Test
+    public void testSnapshotReportsAllMetrics() {
+        actorMetrics.registry("userActor").created();
+        ObjectNode metrics = controller.snapshot();
+
+        assertEquals(httpClient.getLimiter().getLimit(), metrics.path("limiter").path("limit").asInt());
+        assertEquals(0, metrics.path("limiter").path("inFlight").asInt());
+        assertTrue(metrics.path("bulkheads").has(YouTubeHttpClient.DEFAULT_ENDPOINT));
+        assertEquals(0, metrics.path("quota").path("spent").asLong());
+        assertEquals(0, metrics.path("cache").path("size").asLong());
+        assertEquals(1, metrics.path("actors").path("userActor").path("live").asInt());
+    }
+}
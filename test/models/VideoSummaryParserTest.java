@@ -0,0 +1,86 @@
+package models;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the VideoSummaryParser class.
+ * These tests validate the projection of search and video responses into VideoSummary objects.
+ */
+public class VideoSummaryParserTest {
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that the projected fields are read and everything else is skipped.
+     */
+    @Test
+    public void testParsesSearchResponse() throws IOException {
+        String json = "{\"kind\":\"youtube#searchListResponse\",\"pageInfo\":{\"totalResults\":2},"
+                + "\"items\":[{\"kind\":\"youtube#searchResult\",\"id\":{\"kind\":\"youtube#video\",\"videoId\":\"v1\"},"
+                + "\"snippet\":{\"publishedAt\":\"2024-01-01T00:00:00Z\",\"channelId\":\"c1\",\"title\":\"Title 1\","
+                + "\"description\":\"Description 1\",\"thumbnails\":{\"default\":{\"url\":\"d1\",\"width\":120},"
+                + "\"medium\":{\"url\":\"m1\"},\"high\":{\"url\":\"h1\"}},\"channelTitle\":\"Channel 1\",\"tags\":[\"a\",\"b\"]}},"
+                + "{\"id\":{\"videoId\":\"v2\"},\"snippet\":{\"title\":\"Title 2\"}}]}";
+
+        List<VideoSummary> videos = VideoSummaryParser.parseItems(body(json));
+
+        assertEquals(2, videos.size());
+        assertEquals(new VideoSummary("v1", "Title 1", "Description 1", "c1", "Channel 1",
+                "2024-01-01T00:00:00Z", "d1", "m1"), videos.get(0));
+        assertEquals("v2", videos.get(1).getVideoId());
+        assertEquals("Title 2", videos.get(1).getTitle());
+        assertEquals("", videos.get(1).getDescription());
+        assertEquals("", videos.get(1).getThumbnailUrl());
+    }
+
+    /**
+     * Test that a plain string id, as returned by videos.list, is read as the video id.
+     */
+    @Test
+    public void testParsesPlainStringId() throws IOException {
+        List<VideoSummary> videos = VideoSummaryParser.parseItems(body("{\"items\":[{\"id\":\"v1\",\"snippet\":{}}]}"));
+
+        assertEquals("v1", videos.get(0).getVideoId());
+    }
+
+    /**
+     * Test that a search page keeps its query and the token of the following page.
+     */
+    @Test
+    public void testParsesPage() throws IOException {
+        SearchPage page = VideoSummaryParser.parsePage("cats",
+                body("{\"nextPageToken\":\"CAoQAA\",\"items\":[{\"id\":{\"videoId\":\"v1\"},\"snippet\":{\"description\":\"d\"}}]}"));
+
+        assertEquals("cats", page.getQuery());
+        assertEquals("CAoQAA", page.getNextPageToken());
+        assertEquals(List.of("d"), page.getDescriptions());
+    }
+
+    /**
+     * Test that responses without items yield no videos.
+     */
+    @Test
+    public void testResponseWithoutItems() throws IOException {
+        assertTrue(VideoSummaryParser.parseItems(body("{\"error\":{\"code\":403}}")).isEmpty());
+        assertTrue(VideoSummaryParser.parseItems(body("[]")).isEmpty());
+    }
+
+    /**
+     * Test that malformed JSON is reported as an IOException.
+     */
+    @Test(expected = IOException.class)
+    public void testMalformedResponse() throws IOException {
+        VideoSummaryParser.parseItems(body("{\"items\":[{\"id\":"));
+    }
+}
@@ -1,19 +1,37 @@
 package models;
 
+import akka.actor.ActorSystem;
+import akka.stream.javadsl.Sink;
+import akka.testkit.javadsl.TestKit;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.typesafe.config.Config;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import play.inject.ApplicationLifecycle;
+import play.libs.Json;
 import utils.QueryCache;
-
-import java.net.http.HttpClient;
+import utils.QuotaScheduler;
+import utils.YouTubeHttpClient;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -25,6 +43,7 @@ public class YouTubeServiceTest {
 
     private YouTubeService youTubeService;
     private QueryCache mockCache;
+    private Config mockConfig;
 
 
     /**
@@ -33,7 +52,7 @@ public class YouTubeServiceTest {
     @Before
     public void setUp() {
         // Mock configuration
-        Config mockConfig = mock(Config.class);
+        mockConfig = mock(Config.class);
         when(mockConfig.hasPath("youtube.api.key")).thenReturn(true);
         when(mockConfig.getString("youtube.api.key")).thenReturn("mockApiKey");
 
@@ -43,8 +62,24 @@ public class YouTubeServiceTest {
 
 
         // Initialize YouTubeService with mocks
-        youTubeService = new YouTubeService(mockConfig, mockCache);
+        youTubeService = new YouTubeService(mockConfig, mockCache, mock(YouTubeHttpClient.class));
+
+    }
+
+    /**
+     * Stops the channel batcher of the service after each test.
+     */
+    @After
+    public void tearDown() {
+        youTubeService.shutdown();
+    }
+
+    private static QueryCache.CachedItem cachedItem(byte[] body) {
+        return new QueryCache.CachedItem(ByteBuffer.wrap(body), Long.MAX_VALUE, Long.MAX_VALUE);
+    }
 
+    private static QueryCache.CachedItem cachedItem(JsonNode value) {
+        return cachedItem(value.toString().getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -57,8 +92,8 @@ public class YouTubeServiceTest {
         JsonNode mockResponse = JsonNodeFactory.instance.objectNode().put("result", "cached");
 
         // Mock cache to return predefined response
-        when(mockCache.getOrElseUpdate(eq(query), any()))
-                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+        when(mockCache.getOrElseUpdateRaw(eq(youTubeService.searchRequest(query, maxResults)), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(cachedItem(mockResponse)));
 
         // Call method under test
         CompletionStage<JsonNode> result = youTubeService.fetchVideos(query, maxResults);
@@ -78,17 +113,17 @@ public class YouTubeServiceTest {
         JsonNode apiResponse = JsonNodeFactory.instance.objectNode().put("result", "apiResponse");
 
         // Mock cache to simulate a cache miss
-        when(mockCache.getOrElseUpdate(eq(query), any()))
+        when(mockCache.getOrElseUpdateRaw(eq(youTubeService.searchRequest(query, maxResults)), any(), any()))
                 .thenAnswer(invocation -> {
-                    Callable<CompletionStage<JsonNode>> callable = invocation.getArgument(1);
-                    return callable.call();
+                    Callable<CompletionStage<byte[]>> callable = invocation.getArgument(1);
+                    return callable.call().thenApply(body -> cachedItem(body));
                 });
 
         // Spy on YouTubeService and mock API call
         YouTubeService spyYouTubeService = Mockito.spy(youTubeService);
-        doReturn(CompletableFuture.completedFuture(apiResponse))
+        doReturn(CompletableFuture.completedFuture(apiResponse.toString().getBytes(StandardCharsets.UTF_8)))
                 .when(spyYouTubeService)
-                .sendRequest(anyString());
+                .sendRawRequest(anyString());
 
         // Call method under test
         CompletionStage<JsonNode> result = spyYouTubeService.fetchVideos(query, maxResults);
@@ -106,11 +141,9 @@ public class YouTubeServiceTest {
         String query = "invalid query";
         int maxResults = 5;
 
-        JsonNode errorResponse = JsonNodeFactory.instance.objectNode().put("error", "API returned error code: 403");
-
-        // Mock cache to return error response
-        when(mockCache.getOrElseUpdate(eq(query), any()))
-                .thenReturn(CompletableFuture.completedFuture(errorResponse));
+        // Mock cache to pass on the failed API request
+        when(mockCache.getOrElseUpdateRaw(eq(youTubeService.searchRequest(query, maxResults)), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new YouTubeService.YouTubeApiException("API returned error code: 403")));
 
         // Call method under test
         CompletionStage<JsonNode> result = youTubeService.fetchVideos(query, maxResults);
@@ -120,6 +153,54 @@ public class YouTubeServiceTest {
         assertEquals("API returned error code: 403", actualResponse.get("error").asText());
     }
 
+    /**
+     * Test to ensure fetchSearchPage projects the cached response into a typed SearchPage.
+     */
+    @Test
+    public void testFetchSearchPage() {
+        String query = "cats";
+        int maxResults = 5;
+        String body = "{\"nextPageToken\":\"CAUQAA\",\"items\":[{\"id\":{\"videoId\":\"v1\"},\"snippet\":{\"title\":\"Cats\",\"channelId\":\"c1\"}}]}";
+
+        when(mockCache.getOrElseUpdateRaw(eq(youTubeService.searchRequest(query, maxResults)), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(cachedItem(body.getBytes(StandardCharsets.UTF_8))));
+
+        SearchPage page = youTubeService.fetchSearchPage(query, maxResults).toCompletableFuture().join();
+        List<VideoSummary> videos = page.getVideos();
+
+        assertEquals(query, page.getQuery());
+        assertEquals("CAUQAA", page.getNextPageToken());
+        assertEquals(1, videos.size());
+        assertEquals("v1", videos.get(0).getVideoId());
+        assertEquals("Cats", videos.get(0).getTitle());
+        assertEquals("c1", videos.get(0).getChannelId());
+    }
+
+    /**
+     * Test to ensure streamSearch follows nextPageToken until the last page.
+     */
+    @Test
+    public void testStreamSearchFollowsPageTokens() {
+        String firstPage = "{\"nextPageToken\":\"P2\",\"items\":[{\"id\":{\"videoId\":\"v1\"}},{\"id\":{\"videoId\":\"v2\"}}]}";
+        String lastPage = "{\"items\":[{\"id\":{\"videoId\":\"v3\"}}]}";
+        when(mockCache.getOrElseUpdateRaw(eq(youTubeService.searchRequest("cats", 2, null)), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(cachedItem(firstPage.getBytes(StandardCharsets.UTF_8))));
+        when(mockCache.getOrElseUpdateRaw(eq(youTubeService.searchRequest("cats", 2, "P2")), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(cachedItem(lastPage.getBytes(StandardCharsets.UTF_8))));
+
+        ActorSystem system = ActorSystem.create();
+        try {
+            List<VideoSummary> videos = youTubeService.streamSearch("cats", 2, QuotaScheduler.Priority.BACKGROUND)
+                    .runWith(Sink.seq(), system)
+                    .toCompletableFuture().join();
+
+            assertEquals(List.of("v1", "v2", "v3"),
+                    videos.stream().map(VideoSummary::getVideoId).collect(Collectors.toList()));
+        } finally {
+            TestKit.shutdownActorSystem(system);
+        }
+    }
+
     /**
      * Test to ensure encodeQuery encodes queries correctly.
      */
@@ -133,34 +214,73 @@ public class YouTubeServiceTest {
     }
 
 
+    private static HttpResponse<byte[]> response(int status, String body) {
+        @SuppressWarnings("unchecked")
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return response;
+    }
+
     /**
-     * Tests the fetchChannelDetails method.
+     * Tests that concurrent fetchChannelDetails calls are merged into one channels.list request
+     * and each caller gets the details of its own channel.
      */
     @Test
-    public void testFetchChannelDetails() {
-        String channelId = "mockChannelId";
-
-        JsonNode mockResponse = JsonNodeFactory.instance.objectNode().put("channel", "details");
+    public void testFetchChannelDetailsBatchesConcurrentLookups() {
+        YouTubeHttpClient mockHttpClient = mock(YouTubeHttpClient.class);
+        when(mockHttpClient.get(anyString(), any())).thenReturn(CompletableFuture.completedFuture(response(200,
+                "{\"items\":[{\"id\":\"c2\",\"snippet\":{\"title\":\"Second\"}},"
+                        + "{\"id\":\"c1\",\"snippet\":{\"title\":\"First\"}}]}")));
+        YouTubeService service = new YouTubeService(mockConfig, mockCache, mockHttpClient);
+
+        CompletionStage<JsonNode> first = service.fetchChannelDetails("c1");
+        CompletionStage<JsonNode> second = service.fetchChannelDetails("c2");
+        CompletionStage<JsonNode> missing = service.fetchChannelDetails("c3");
+
+        assertEquals("First", first.toCompletableFuture().join().at("/items/0/snippet/title").asText());
+        assertEquals("Second", second.toCompletableFuture().join().at("/items/0/snippet/title").asText());
+        assertEquals(0, missing.toCompletableFuture().join().path("items").size());
+        verify(mockHttpClient, times(1)).get(contains("id=c1,c2,c3&"), any());
+    }
 
-        // Mock the QueryCache to simulate fetching from the API
-        when(mockCache.getOrElseUpdate(eq(channelId), any()))
-                .thenAnswer(invocation -> {
-                    Callable<CompletionStage<JsonNode>> callable = invocation.getArgument(1);
-                    return callable.call();
-                });
+    /**
+     * Tests that the stop hook registered with the application lifecycle sends the pending channel lookups at once.
+     */
+    @Test
+    public void testStopHookFlushesChannelBatcher() throws Exception {
+        when(mockConfig.hasPath("tubelytics.youtube.batch.channels")).thenReturn(true);
+        when(mockConfig.getDuration("tubelytics.youtube.batch.channels.window")).thenReturn(Duration.ofMinutes(1));
+        when(mockConfig.getInt("tubelytics.youtube.batch.channels.max-size")).thenReturn(YouTubeService.MAX_IDS_PER_REQUEST);
+        YouTubeHttpClient mockHttpClient = mock(YouTubeHttpClient.class);
+        when(mockHttpClient.get(anyString(), any())).thenReturn(CompletableFuture.completedFuture(response(200,
+                "{\"items\":[{\"id\":\"c1\",\"snippet\":{\"title\":\"First\"}}]}")));
+        ApplicationLifecycle mockLifecycle = mock(ApplicationLifecycle.class);
+        YouTubeService service = new YouTubeService(mockConfig, mockCache, mockHttpClient, mockLifecycle);
+        ArgumentCaptor<Callable<CompletionStage<?>>> stopHook = ArgumentCaptor.forClass(Callable.class);
+        verify(mockLifecycle).addStopHook(stopHook.capture());
+
+        CompletableFuture<JsonNode> pending = service.fetchChannelDetails("c1").toCompletableFuture();
+        assertFalse(pending.isDone());
+
+        stopHook.getValue().call().toCompletableFuture().join();
+        assertEquals("First", pending.join().at("/items/0/snippet/title").asText());
+    }
 
-        // Mock the sendRequest method
-        YouTubeService spyYouTubeService = Mockito.spy(youTubeService);
-        doReturn(CompletableFuture.completedFuture(mockResponse))
-                .when(spyYouTubeService)
-                .sendRequest(anyString());
+    /**
+     * Tests that every caller of a failed channels.list batch gets an error response.
+     */
+    @Test
+    public void testFetchChannelDetailsHandlesError() {
+        YouTubeHttpClient mockHttpClient = mock(YouTubeHttpClient.class);
+        when(mockHttpClient.get(anyString(), any())).thenReturn(CompletableFuture.completedFuture(response(403, "{}")));
+        YouTubeService service = new YouTubeService(mockConfig, mockCache, mockHttpClient);
 
-        // Call the fetchChannelDetails method
-        CompletionStage<JsonNode> result = spyYouTubeService.fetchChannelDetails(channelId);
-        JsonNode actualResponse = result.toCompletableFuture().join();
+        CompletionStage<JsonNode> first = service.fetchChannelDetails("c1");
+        CompletionStage<JsonNode> second = service.fetchChannelDetails("c2");
 
-        // Assert the response matches the mock
-        assertEquals("details", actualResponse.get("channel").asText());
+        assertEquals("Failed to fetch channel details.", first.toCompletableFuture().join().get("error").asText());
+        assertEquals("Failed to fetch channel details.", second.toCompletableFuture().join().get("error").asText());
     }
 
     /**
@@ -221,13 +341,125 @@ public class YouTubeServiceTest {
         assertEquals("Failed to fetch channel videos.", actualResponse.get("error").asText());
     }
 
+    /**
+     * Tests that fetchChannelProfile combines the channel details and videos into a ChannelProfile.
+     */
+    @Test
+    public void testFetchChannelProfile() throws Exception {
+        JsonNode details = Json.mapper().readTree("{\"items\":[{\"id\":\"c1\",\"snippet\":{\"title\":\"Channel\"},"
+                + "\"statistics\":{\"subscriberCount\":\"42\"}}]}");
+        List<VideoSummary> videos = List.of(new VideoSummary("v1", "Video", "", "c1", "Channel", "", "", ""));
 
-}
+        YouTubeService spyYouTubeService = Mockito.spy(youTubeService);
+        doReturn(CompletableFuture.completedFuture(details)).when(spyYouTubeService).fetchChannelDetails("c1");
+        doReturn(CompletableFuture.completedFuture(videos)).when(spyYouTubeService).fetchChannelVideoSummaries("c1", 10);
 
+        ChannelProfile profile = spyYouTubeService.fetchChannelProfile("c1", 10).toCompletableFuture().join();
 
+        assertEquals("Channel", profile.getTitle());
+        assertEquals("42", profile.getSubscriberCount());
+        assertEquals(videos, profile.getVideos());
+    }
 
+    /**
+     * Tests that fetchChannelProfile fails when the channel details could not be fetched.
+     */
+    @Test
+    public void testFetchChannelProfileHandlesError() {
+        JsonNode errorResponse = JsonNodeFactory.instance.objectNode().put("error", "Failed to fetch channel details.");
 
+        YouTubeService spyYouTubeService = Mockito.spy(youTubeService);
+        doReturn(CompletableFuture.completedFuture(errorResponse)).when(spyYouTubeService).fetchChannelDetails("c1");
+        doReturn(CompletableFuture.completedFuture(List.of())).when(spyYouTubeService).fetchChannelVideoSummaries("c1", 10);
 
+        CompletableFuture<ChannelProfile> result = spyYouTubeService.fetchChannelProfile("c1", 10).toCompletableFuture();
 
+        assertTrue(result.isCompletedExceptionally());
+    }
 
+    /**
+     * Tests that fetchVideoStatistics serves cached videos and fetches only the others, caching them
+     * in its own cache rather than the query cache.
+     */
+    @Test
+    public void testFetchVideoStatisticsFetchesOnlyUncachedVideos() {
+        YouTubeHttpClient mockHttpClient = mock(YouTubeHttpClient.class);
+        when(mockHttpClient.get(anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(response(200,
+                        "{\"items\":[{\"id\":\"v1\",\"statistics\":{\"viewCount\":\"10\",\"likeCount\":\"1\",\"commentCount\":\"0\"}}]}")))
+                .thenReturn(CompletableFuture.completedFuture(response(200,
+                        "{\"items\":[{\"id\":\"v2\",\"statistics\":{\"viewCount\":\"20\",\"commentCount\":\"2\"},"
+                                + "\"contentDetails\":{\"duration\":\"PT1M\"}}]}")));
+        YouTubeService service = new YouTubeService(mockConfig, mockCache, mockHttpClient);
+        service.fetchVideoStatistics(List.of("v1")).toCompletableFuture().join();
+
+        Map<String, VideoStatistics> statistics = service.fetchVideoStatistics(List.of("v1", "v2", "v3"))
+                .toCompletableFuture().join();
+
+        assertEquals(List.of("v1", "v2"), List.copyOf(statistics.keySet()));
+        assertEquals(new VideoStatistics("v1", 10, 1, 0, ""), statistics.get("v1"));
+        assertEquals(new VideoStatistics("v2", 20, VideoStatistics.HIDDEN, 2, "PT1M"), statistics.get("v2"));
+        verify(mockHttpClient, times(1)).get(contains("videos?part=statistics,contentDetails&id=v2,v3&"), any());
+        verifyNoInteractions(mockCache);
+        service.shutdown();
+    }
 
+    /**
+     * Test to ensure the search cache key is the request URL without the API key.
+     */
+    @Test
+    public void testSearchRequestExcludesApiKey() {
+        String request = youTubeService.searchRequest("cats and dogs", 10);
+
+        assertEquals("https://www.googleapis.com/youtube/v3/search?maxResults=10&part=snippet&q=cats+and+dogs", request);
+    }
+
+    /**
+     * Test to ensure spellings of the same search share one cache key.
+     */
+    @Test
+    public void testSearchRequestNormalizesQuery() {
+        String request = youTubeService.searchRequest("cats and dogs", 10);
+
+        assertEquals(request, youTubeService.searchRequest("  Cats+AND\tdogs ", 10));
+        assertEquals(request, youTubeService.searchRequest("ｃａｔｓ and dogs", 10));
+    }
+
+    /**
+     * Test to ensure a small page is cut from a fresh cached full page without calling the API.
+     */
+    @Test
+    public void testFetchSearchPageServedFromFullPage() {
+        String body = "{\"nextPageToken\":\"P2\",\"items\":[{\"id\":{\"videoId\":\"v1\"}},{\"id\":{\"videoId\":\"v2\"}},{\"id\":{\"videoId\":\"v3\"}}]}";
+        when(mockCache.getIfFresh(youTubeService.searchRequest("cats", YouTubeService.MAX_SEARCH_RESULTS)))
+                .thenReturn(cachedItem(body.getBytes(StandardCharsets.UTF_8)));
+
+        SearchPage page = youTubeService.fetchSearchPage("Cats", 2).toCompletableFuture().join();
+
+        assertEquals(List.of("v1", "v2"),
+                page.getVideos().stream().map(VideoSummary::getVideoId).collect(Collectors.toList()));
+        assertNull(page.getNextPageToken());
+        verify(mockCache, never()).getOrElseUpdateRaw(anyString(), any(), any());
+    }
+
+    /**
+     * Test to ensure any cached copy is served without calling the API while the quota is low.
+     */
+    @Test
+    public void testFetchSearchPageServesCachedCopyWhileQuotaIsLow() {
+        YouTubeHttpClient mockHttpClient = mock(YouTubeHttpClient.class);
+        // The whole budget is below the background reserve
+        when(mockHttpClient.getQuota()).thenReturn(new QuotaScheduler(100, 200, QuotaScheduler.DEFAULT_PRICES));
+        YouTubeService service = new YouTubeService(mockConfig, mockCache, mockHttpClient);
+        String body = "{\"items\":[{\"id\":{\"videoId\":\"v1\"}}]}";
+        when(mockCache.getIfCached(service.searchRequest("cats", YouTubeService.MAX_SEARCH_RESULTS)))
+                .thenReturn(cachedItem(body.getBytes(StandardCharsets.UTF_8)));
+
+        SearchPage page = service.fetchSearchPage("cats", YouTubeService.MAX_SEARCH_RESULTS).toCompletableFuture().join();
+
+        assertEquals("v1", page.getVideos().get(0).getVideoId());
+        verify(mockCache, never()).getOrElseUpdateRaw(anyString(), any(), any());
+        verify(mockHttpClient, never()).get(anyString(), any());
+        service.shutdown();
+    }
+}
@@ -0,0 +1,88 @@
+package utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the AdaptiveLimiter class.
+ * These tests validate load shedding and how the limit follows the observed round-trip times.
+ */
+public class AdaptiveLimiterTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    /**
+     * Test that requests beyond the limit are shed and counted.
+     */
+    @Test
+    public void testShedsRequestsBeyondLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10);
+
+        AdaptiveLimiter.Permit first = limiter.tryAcquire();
+        AdaptiveLimiter.Permit second = limiter.tryAcquire();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertTrue(limiter.isSaturated());
+        assertNull(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+
+        first.onIgnored();
+        assertEquals(1, limiter.getInFlight());
+        assertNotNull(limiter.tryAcquire());
+    }
+
+    /**
+     * Test that the limit shrinks once the round-trip time rises well above its baseline.
+     */
+    @Test
+    public void testLimitShrinksWhenLatencyRises() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 200);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire().onSuccess(MILLIS);
+        }
+        assertEquals(20, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire().onSuccess(50 * MILLIS);
+        }
+
+        assertTrue(limiter.getLimit() < 20);
+        assertTrue(limiter.getLimit() >= 2);
+    }
+
+    /**
+     * Test that the limit grows while it is fully used and the latency stays at its baseline.
+     */
+    @Test
+    public void testLimitGrowsWhileFullyUsedAtLowLatency() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 200);
+        AdaptiveLimiter.Permit[] permits = new AdaptiveLimiter.Permit[10];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.tryAcquire();
+        }
+        for (AdaptiveLimiter.Permit permit : permits) {
+            permit.onSuccess(MILLIS);
+        }
+
+        assertTrue(limiter.getLimit() > 10);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Test that a dropped request cuts the limit, and that a permit only counts once.
+     */
+    @Test
+    public void testDroppedRequestBacksOff() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 200);
+        AdaptiveLimiter.Permit permit = limiter.tryAcquire();
+
+        permit.onDropped();
+        permit.onIgnored();
+
+        assertEquals(18, limiter.getLimit());
+        assertEquals(1, limiter.getDropped());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,99 @@
+package utils;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the Bulkhead class.
+ * These tests validate the concurrency cap, the bounded queue and fast rejection.
+ */
+public class BulkheadTest {
+
+    private static Throwable failure(CompletionStage<?> stage) {
+        try {
+            stage.toCompletableFuture().join();
+            fail("Expected the call to be rejected");
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+    }
+
+    /**
+     * Test that calls beyond the cap wait for a slot and run once one is freed.
+     */
+    @Test
+    public void testQueuedCallRunsWhenSlotIsFreed() {
+        Bulkhead bulkhead = new Bulkhead("search", 1, 1, Duration.ofSeconds(5));
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        CompletionStage<String> running = bulkhead.execute(() -> first);
+        CompletionStage<String> queued = bulkhead.execute(() -> CompletableFuture.completedFuture("second"));
+
+        assertEquals(1, bulkhead.getInFlight());
+        assertEquals(1, bulkhead.getQueued());
+        assertFalse(queued.toCompletableFuture().isDone());
+
+        first.complete("first");
+
+        assertEquals("first", running.toCompletableFuture().join());
+        assertEquals("second", queued.toCompletableFuture().join());
+        assertEquals(0, bulkhead.getInFlight());
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    /**
+     * Test that calls are rejected immediately once the queue is full.
+     */
+    @Test
+    public void testRejectsWhenQueueIsFull() {
+        Bulkhead bulkhead = new Bulkhead("search", 1, 1, Duration.ofSeconds(5));
+        CompletableFuture<String> blocked = new CompletableFuture<>();
+        bulkhead.execute(() -> blocked);
+        bulkhead.execute(() -> blocked);
+
+        CompletionStage<String> rejected = bulkhead.execute(() -> CompletableFuture.completedFuture("never"));
+
+        assertTrue(failure(rejected) instanceof Bulkhead.BulkheadFullException);
+        assertEquals(1, bulkhead.getRejected());
+        blocked.complete("done");
+    }
+
+    /**
+     * Test that a queued call is rejected once its maximum wait runs out, and gives up its place in the queue.
+     */
+    @Test
+    public void testRejectsWhenWaitRunsOut() {
+        Bulkhead bulkhead = new Bulkhead("channels", 1, 4, Duration.ofMillis(50));
+        CompletableFuture<String> blocked = new CompletableFuture<>();
+        bulkhead.execute(() -> blocked);
+
+        CompletionStage<String> waiting = bulkhead.execute(() -> CompletableFuture.completedFuture("never"));
+
+        assertTrue(failure(waiting) instanceof Bulkhead.BulkheadFullException);
+        assertEquals(1, bulkhead.getTimedOut());
+        assertEquals(0, bulkhead.getQueued());
+
+        blocked.complete("done");
+        assertEquals(0, bulkhead.getInFlight());
+    }
+
+    /**
+     * Test that a failed call frees its slot.
+     */
+    @Test
+    public void testFailedCallFreesSlot() {
+        Bulkhead bulkhead = new Bulkhead("search", 1, 0, Duration.ofSeconds(1));
+
+        failure(bulkhead.execute(() -> CompletableFuture.failedFuture(new RuntimeException("upstream"))));
+
+        assertEquals(0, bulkhead.getInFlight());
+        assertEquals("ok", bulkhead.execute(() -> CompletableFuture.completedFuture("ok")).toCompletableFuture().join());
+    }
+}
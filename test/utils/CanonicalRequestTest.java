@@ -0,0 +1,40 @@
+package utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the CanonicalRequest class.
+ * These tests validate query normalization and the canonical order of request parameters.
+ */
+public class CanonicalRequestTest {
+
+    /**
+     * Test that spellings of the same search normalize to one query.
+     */
+    @Test
+    public void testNormalizeQuery() {
+        assertEquals("cats", CanonicalRequest.normalizeQuery("Cats"));
+        assertEquals("cats", CanonicalRequest.normalizeQuery(" cats "));
+        assertEquals("cats", CanonicalRequest.normalizeQuery("cats+"));
+        assertEquals("funny cats", CanonicalRequest.normalizeQuery("Funny+\tCATS"));
+        assertEquals("cats", CanonicalRequest.normalizeQuery("ＣＡＴＳ"));
+        assertEquals("strasse", CanonicalRequest.normalizeQuery("Straße"));
+    }
+
+    /**
+     * Test that parameters are sorted and encoded, and null parameters left out.
+     */
+    @Test
+    public void testBuildSortsParameters() {
+        String request = CanonicalRequest.to("https://www.googleapis.com/youtube/v3/search")
+                .param("q", "cats & dogs")
+                .param("part", "snippet")
+                .param("pageToken", null)
+                .param("maxResults", 10)
+                .build();
+
+        assertEquals("https://www.googleapis.com/youtube/v3/search?maxResults=10&part=snippet&q=cats+%26+dogs", request);
+    }
+}
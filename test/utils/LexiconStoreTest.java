@@ -0,0 +1,86 @@
+package utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the LexiconStore class.
+ * These tests validate that the lexicon file is swapped in when it changes, and kept when it is broken.
+ */
+public class LexiconStoreTest {
+
+    private Path file;
+    private LexiconStore store;
+    private final SentimentLexicon.Scorer scorer = new SentimentLexicon.Scorer();
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("sentiment-lexicon", ".tsv");
+        write("cats\t3", 1_000);
+        // Checked by hand in the tests rather than on the timer
+        store = new LexiconStore(file, Duration.ofHours(1));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test that the file is read at startup and read again once it changes.
+     */
+    @Test
+    public void testReloadsChangedFile() throws IOException {
+        assertTrue(scorer.score(store.get(), "cats") > 0);
+        assertFalse(store.reload());
+
+        write("cats\t-3", 2_000);
+
+        assertTrue(store.reload());
+        assertTrue(scorer.score(store.get(), "cats") < 0);
+    }
+
+    /**
+     * Test that a file that fails to parse leaves the lexicon in use.
+     */
+    @Test
+    public void testKeepsLexiconWhenFileIsInvalid() throws IOException {
+        SentimentLexicon before = store.get();
+
+        write("cats\tlots", 2_000);
+
+        assertFalse(store.reload());
+        assertSame(before, store.get());
+    }
+
+    /**
+     * Test that the lexicon shipped with the application is used until the file exists.
+     */
+    @Test
+    public void testUsesBuiltInLexiconWithoutFile() {
+        LexiconStore missing = new LexiconStore(file.resolveSibling("missing-lexicon.tsv"), Duration.ofHours(1));
+        try {
+            assertSame(SentimentLexicon.builtIn(), missing.get());
+        } finally {
+            missing.close();
+        }
+    }
+
+    private void write(String line, long modifiedMillis) throws IOException {
+        Files.write(file, List.of(line), StandardCharsets.UTF_8);
+        // Set the time explicitly, as two writes in a row may share a timestamp
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+}
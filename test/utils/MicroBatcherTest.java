@@ -0,0 +1,96 @@
+package utils;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the MicroBatcher class.
+ * These tests validate that lookups are merged into batches and answered individually.
+ */
+public class MicroBatcherTest {
+
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+
+    private final Function<List<String>, CompletionStage<Map<String, String>>> upperCase = keys -> {
+        calls.add(keys);
+        return CompletableFuture.completedFuture(keys.stream()
+                .filter(key -> !key.equals("missing"))
+                .collect(Collectors.toMap(key -> key, String::toUpperCase)));
+    };
+
+    /**
+     * Test that lookups within the window share one batch call, and each gets its own value.
+     */
+    @Test
+    public void testLookupsWithinWindowShareOneCall() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofMillis(50), 10, upperCase);
+
+        CompletionStage<String> a = batcher.load("a");
+        CompletionStage<String> b = batcher.load("b");
+        CompletionStage<String> again = batcher.load("a");
+        CompletionStage<String> missing = batcher.load("missing");
+
+        assertEquals("A", a.toCompletableFuture().join());
+        assertEquals("B", b.toCompletableFuture().join());
+        assertEquals("A", again.toCompletableFuture().join());
+        assertNull(missing.toCompletableFuture().join());
+        assertEquals(List.of(List.of("a", "b", "missing")), calls);
+        assertEquals(4, batcher.getRequests());
+        assertEquals(1, batcher.getBatches());
+    }
+
+    /**
+     * Test that a full batch is sent at once, without waiting for the window to close.
+     */
+    @Test
+    public void testFullBatchIsSentImmediately() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofHours(1), 2, upperCase);
+
+        CompletionStage<String> a = batcher.load("a");
+        assertFalse(a.toCompletableFuture().isDone());
+        CompletionStage<String> b = batcher.load("b");
+        CompletionStage<String> c = batcher.load("c");
+
+        assertEquals("A", a.toCompletableFuture().join());
+        assertEquals("B", b.toCompletableFuture().join());
+        assertFalse(c.toCompletableFuture().isDone());
+
+        batcher.flush();
+
+        assertEquals("C", c.toCompletableFuture().join());
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), calls);
+    }
+
+    /**
+     * Test that every waiter of a failed batch call fails.
+     */
+    @Test
+    public void testFailedBatchFailsAllWaiters() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("test", Duration.ofMillis(10), 10,
+                keys -> CompletableFuture.failedFuture(new IllegalStateException("upstream down")));
+
+        CompletionStage<String> a = batcher.load("a");
+        CompletionStage<String> b = batcher.load("b");
+
+        for (CompletionStage<String> stage : List.of(a, b)) {
+            try {
+                stage.toCompletableFuture().join();
+                fail("Expected the lookup to fail");
+            } catch (CompletionException e) {
+                assertEquals("upstream down", e.getCause().getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the PersistentResponseStore class.
+ * These tests validate storing, reopening and compacting the memory-mapped segment.
+ */
+public class PersistentResponseStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path segmentPath;
+    private PersistentResponseStore store;
+
+    @Before
+    public void setUp() {
+        segmentPath = folder.getRoot().toPath().resolve("responses.seg");
+        store = open();
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    private PersistentResponseStore open() {
+        return new PersistentResponseStore(segmentPath, 64 * 1024, Duration.ofMinutes(5));
+    }
+
+    private static String read(PersistentResponseStore.Entry entry) {
+        ByteBuffer body = entry.getBody();
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test that a stored response can be read back with its write time.
+     */
+    @Test
+    public void testPutAndGet() {
+        long now = System.currentTimeMillis();
+        store.put("search?q=cats", "{\"items\":[]}".getBytes(StandardCharsets.UTF_8), now, now + 60_000);
+
+        PersistentResponseStore.Entry entry = store.get("search?q=cats");
+
+        assertNotNull(entry);
+        assertEquals("{\"items\":[]}", read(entry));
+        assertEquals(now, entry.getWrittenAt());
+        assertNull(store.get("search?q=dogs"));
+    }
+
+    /**
+     * Test that expired responses are not returned.
+     */
+    @Test
+    public void testExpiredEntryIsNotReturned() {
+        long now = System.currentTimeMillis();
+        store.put("search?q=cats", "{}".getBytes(StandardCharsets.UTF_8), now - 10_000, now - 1);
+
+        assertNull(store.get("search?q=cats"));
+    }
+
+    /**
+     * Test that an expired response dropped by a lookup still counts towards the next compaction.
+     */
+    @Test
+    public void testExpiredEntryDroppedOnGetCountsAsDead() {
+        long now = System.currentTimeMillis();
+        store.put("search?q=cats", "{}".getBytes(StandardCharsets.UTF_8), now - 10_000, now - 1);
+
+        assertNull(store.get("search?q=cats"));
+
+        assertEquals(0, store.size());
+        assertEquals(24 + "search?q=cats".length() + 2, store.deadBytes());
+    }
+
+    /**
+     * Test that the latest responses are found again after the store is reopened.
+     */
+    @Test
+    public void testEntriesSurviveReopen() {
+        long now = System.currentTimeMillis();
+        store.put("search?q=cats", "{\"v\":1}".getBytes(StandardCharsets.UTF_8), now, now + 60_000);
+        store.put("search?q=cats", "{\"v\":2}".getBytes(StandardCharsets.UTF_8), now, now + 60_000);
+        store.put("search?q=dogs", "{\"v\":3}".getBytes(StandardCharsets.UTF_8), now, now + 60_000);
+        store.close();
+
+        store = open();
+
+        assertEquals(2, store.size());
+        assertEquals("{\"v\":2}", read(store.get("search?q=cats")));
+        assertEquals("{\"v\":3}", read(store.get("search?q=dogs")));
+    }
+
+    /**
+     * Test that a full segment is not written to but compacted in the background, keeping only the latest responses.
+     */
+    @Test
+    public void testFullSegmentIsCompactedInBackground() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        byte[] value = new byte[1000];
+        // Write the same few keys until they no longer fit in 64 KB
+        int writes = 0;
+        while (store.put("search?q=" + (writes % 5), value, now, now + 60_000)) {
+            writes++;
+            assertTrue("The segment never filled up", writes < 100);
+        }
+
+        // The background compaction reclaims the superseded records, after which writes succeed again
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!store.put("search?q=new", value, now, now + 60_000)) {
+            assertTrue("The segment was never compacted", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+
+        assertEquals(6, store.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(1000, store.get("search?q=" + i).getBody().remaining());
+        }
+        assertEquals(1000, store.get("search?q=new").getBody().remaining());
+    }
+}
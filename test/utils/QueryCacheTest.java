@@ -4,12 +4,16 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import static org.mockito.Mockito.*;
 import static org.junit.Assert.*;
 import java.util.concurrent.Executors;
 import play.libs.Json;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -26,6 +30,9 @@ public class QueryCacheTest {
     private QueryCache queryCache;
     private ScheduledExecutorService mockCleaner;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Before
     public void setUp() {
         // Initialize the QueryCache before each test
@@ -189,4 +196,415 @@ public class QueryCacheTest {
     }
 
 
-}
\ No newline at end of file
+    /**
+     * Test that an entry stored with its own time-to-live outlives the default expiry.
+     */
+    @Test
+    public void testPerEntryTtl() throws InterruptedException {
+        JsonNode value = Json.newObject().put("test", "value");
+
+        queryCache.put("shortLived", value);
+        queryCache.put("longLived", value, Duration.ofSeconds(30));
+
+        TimeUnit.MILLISECONDS.sleep(3100);
+
+        assertNull(queryCache.get("shortLived"));
+        assertNotNull(queryCache.get("longLived"));
+    }
+
+    /**
+     * Test that get keeps returning a stale entry until its hard TTL, unlike getIfFresh.
+     */
+    @Test
+    public void testGetReturnsStaleEntryUntilExpired() throws InterruptedException {
+        QueryCache swrCache = new QueryCache(Duration.ofMillis(200), Duration.ofSeconds(30), QueryCache.DEFAULT_MAXIMUM_WEIGHT);
+        try {
+            swrCache.put("staleQuery", Json.newObject().put("key", "value"));
+            TimeUnit.MILLISECONDS.sleep(300);
+
+            assertEquals("value", swrCache.get("staleQuery").get("key").asText());
+            assertNull(swrCache.getIfFresh("staleQuery"));
+        } finally {
+            swrCache.shutdown();
+        }
+    }
+
+    /**
+     * Test that the cache never holds more than its maximum weight of serialized results.
+     */
+    @Test
+    public void testMaximumWeightBoundsCache() {
+        QueryCache boundedCache = new QueryCache(Duration.ofSeconds(30), Duration.ofSeconds(30), 1024);
+        try {
+            for (int i = 0; i < 200; i++) {
+                boundedCache.put("query" + i, Json.newObject().put("payload", "result number " + i));
+            }
+            boundedCache.cleanUp();
+
+            // Each entry weighs roughly 40 bytes, so only a few dozen can fit in 1 KB
+            assertTrue(boundedCache.estimatedSize() < 50);
+            assertTrue(boundedCache.stats().evictionCount() > 0);
+        } finally {
+            boundedCache.shutdown();
+        }
+    }
+
+    /**
+     * Test that keys are weighed by their UTF-8 size rather than their number of characters.
+     */
+    @Test
+    public void testKeysWeighedInUtf8Bytes() {
+        QueryCache boundedCache = new QueryCache(Duration.ofSeconds(30), Duration.ofSeconds(30), 100);
+        try {
+            // 50 characters but 100 bytes, which with the body no longer fits in 100 bytes
+            String key = "é".repeat(50);
+            boundedCache.put(key, Json.newObject().put("k", "v"));
+            boundedCache.cleanUp();
+
+            assertNull(boundedCache.get(key));
+        } finally {
+            boundedCache.shutdown();
+        }
+    }
+
+    /**
+     * Test that concurrent misses for the same key share one call to the block.
+     */
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        String key = "trendingQuery";
+        CompletableFuture<JsonNode> upstream = new CompletableFuture<>();
+
+        Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+        when(mockBlock.call()).thenReturn(upstream);
+
+        CompletionStage<JsonNode> first = queryCache.getOrElseUpdate(key, mockBlock);
+        CompletionStage<JsonNode> second = queryCache.getOrElseUpdate(key, mockBlock);
+        CompletionStage<JsonNode> third = queryCache.getOrElseUpdate(key, mockBlock);
+
+        upstream.complete(Json.newObject().put("key", "value"));
+
+        assertEquals("value", first.toCompletableFuture().join().get("key").asText());
+        assertEquals("value", second.toCompletableFuture().join().get("key").asText());
+        assertEquals("value", third.toCompletableFuture().join().get("key").asText());
+
+        // Only the first miss reaches the block, the others join it
+        verify(mockBlock, times(1)).call();
+        assertEquals(2, queryCache.coalescedRequests());
+    }
+
+    /**
+     * Test that error results are returned to the caller but not cached.
+     */
+    @Test
+    public void testErrorResultsAreNotCached() throws Exception {
+        String key = "failingQuery";
+        JsonNode errorValue = Json.newObject().put("error", "API returned error code: 403");
+
+        Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+        when(mockBlock.call()).thenReturn(CompletableFuture.completedFuture(errorValue));
+
+        JsonNode first = queryCache.getOrElseUpdate(key, mockBlock).toCompletableFuture().join();
+        JsonNode second = queryCache.getOrElseUpdate(key, mockBlock).toCompletableFuture().join();
+
+        assertEquals(errorValue, first);
+        assertEquals(errorValue, second);
+        assertNull(queryCache.get(key));
+
+        // Nothing was cached, so both calls went upstream
+        verify(mockBlock, times(2)).call();
+    }
+
+    /**
+     * Test that a result that fails to be cached is passed on as a failure and frees the key for the next caller.
+     */
+    @Test
+    public void testCachingFailureReleasesKey() {
+        String key = "brokenQuery";
+
+        // A null body cannot be stored
+        CompletableFuture<QueryCache.CachedItem> failed = queryCache
+                .getOrElseUpdateRaw(key, () -> CompletableFuture.completedFuture(null)).toCompletableFuture();
+        assertTrue(failed.isCompletedExceptionally());
+
+        QueryCache.CachedItem item = queryCache
+                .getOrElseUpdateRaw(key, () -> CompletableFuture.completedFuture("{\"key\":\"value\"}".getBytes(StandardCharsets.UTF_8)))
+                .toCompletableFuture().join();
+        assertEquals("value", item.getValue().get("key").asText());
+        assertEquals(0, queryCache.coalescedRequests());
+    }
+
+    /**
+     * Test that a refresh calls the block even for a fresh entry, and caches its result.
+     */
+    @Test
+    public void testRefreshBypassesFreshEntry() {
+        String key = "liveQuery";
+        queryCache.put(key, Json.newObject().put("key", "old"));
+
+        QueryCache.CachedItem item = queryCache
+                .refreshRaw(key, () -> CompletableFuture.completedFuture("{\"key\":\"new\"}".getBytes(StandardCharsets.UTF_8)))
+                .toCompletableFuture().join();
+
+        assertEquals("new", item.getValue().get("key").asText());
+        assertEquals("new", queryCache.get(key).get("key").asText());
+    }
+
+    /**
+     * Test that a stale entry is served immediately while one background refresh replaces it.
+     */
+    @Test
+    public void testStaleEntryServedWhileRevalidating() throws Exception {
+        QueryCache swrCache = new QueryCache(Duration.ofMillis(200), Duration.ofSeconds(30), QueryCache.DEFAULT_MAXIMUM_WEIGHT);
+        try {
+            String key = "staleQuery";
+            swrCache.put(key, Json.newObject().put("key", "old value"));
+            TimeUnit.MILLISECONDS.sleep(300);
+
+            CompletableFuture<JsonNode> upstream = new CompletableFuture<>();
+            Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+            when(mockBlock.call()).thenReturn(upstream);
+
+            // Both callers get the stale value without waiting for the upstream
+            assertEquals("old value", swrCache.getOrElseUpdate(key, mockBlock).toCompletableFuture().join().get("key").asText());
+            assertEquals("old value", swrCache.getOrElseUpdate(key, mockBlock).toCompletableFuture().join().get("key").asText());
+
+            upstream.complete(Json.newObject().put("key", "new value"));
+
+            // A single refresh ran and replaced the entry
+            verify(mockBlock, times(1)).call();
+            assertEquals(2, swrCache.staleHits());
+            assertEquals("new value", swrCache.get(key).get("key").asText());
+        } finally {
+            swrCache.shutdown();
+        }
+    }
+
+    /**
+     * Test that a stale entry is refreshed with the refresh block rather than the block callers wait on.
+     */
+    @Test
+    public void testStaleEntryRefreshedWithRefreshBlock() throws Exception {
+        QueryCache swrCache = new QueryCache(Duration.ofMillis(200), Duration.ofSeconds(30), QueryCache.DEFAULT_MAXIMUM_WEIGHT);
+        try {
+            String key = "staleQuery";
+            swrCache.put(key, Json.newObject().put("key", "old value"));
+            TimeUnit.MILLISECONDS.sleep(300);
+
+            Callable<CompletionStage<byte[]>> block = mock(Callable.class);
+            Callable<CompletionStage<byte[]>> refreshBlock = mock(Callable.class);
+            when(refreshBlock.call()).thenReturn(CompletableFuture.completedFuture("{\"key\":\"new value\"}".getBytes(StandardCharsets.UTF_8)));
+
+            QueryCache.CachedItem item = swrCache.getOrElseUpdateRaw(key, block, refreshBlock).toCompletableFuture().join();
+
+            assertEquals("old value", item.getValue().get("key").asText());
+            verify(block, never()).call();
+            verify(refreshBlock, times(1)).call();
+            assertEquals("new value", swrCache.get(key).get("key").asText());
+        } finally {
+            swrCache.shutdown();
+        }
+    }
+
+    /**
+     * Test that a hot entry is refreshed in the background shortly before it goes stale.
+     */
+    @Test
+    public void testHotEntryRefreshedAhead() throws Exception {
+        QueryCache hotCache = new QueryCache(Duration.ofMillis(500), Duration.ofSeconds(30),
+                QueryCache.DEFAULT_MAXIMUM_WEIGHT, 2, Duration.ofMillis(400));
+        try {
+            String key = "hotQuery";
+            hotCache.put(key, Json.newObject().put("key", "value"));
+
+            Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+            when(mockBlock.call()).thenReturn(CompletableFuture.completedFuture(Json.newObject().put("key", "refreshed")));
+
+            // First read is not hot enough yet
+            hotCache.getOrElseUpdate(key, mockBlock).toCompletableFuture().join();
+            TimeUnit.MILLISECONDS.sleep(200);
+            // Second read is hot and within the refresh-ahead window
+            hotCache.getOrElseUpdate(key, mockBlock).toCompletableFuture().join();
+
+            verify(mockBlock, times(1)).call();
+            assertEquals(1, hotCache.backgroundRefreshes());
+            assertEquals("refreshed", hotCache.get(key).get("key").asText());
+        } finally {
+            hotCache.shutdown();
+        }
+    }
+
+    /**
+     * Test that a result kept in the persistent tier is served after a restart and refreshed.
+     */
+    @Test
+    public void testRestoresFromPersistentTier() throws Exception {
+        PersistentResponseStore store = new PersistentResponseStore(folder.getRoot().toPath().resolve("responses.seg"),
+                64 * 1024, Duration.ofMinutes(5));
+        long fetchedAt = System.currentTimeMillis() - 30_000;
+        store.put("testKey", "{\"key\":\"persisted\"}".getBytes(StandardCharsets.UTF_8), fetchedAt, fetchedAt + 3_600_000);
+
+        QueryCache restartedCache = new QueryCache(QueryCache.DEFAULT_SOFT_TTL, QueryCache.DEFAULT_HARD_TTL,
+                QueryCache.DEFAULT_MAXIMUM_WEIGHT, QueryCache.DEFAULT_REFRESH_AHEAD_HITS,
+                QueryCache.DEFAULT_REFRESH_AHEAD_WINDOW, store, Duration.ofHours(1), QueryCache.DEFAULT_COMPRESS_ABOVE);
+        try {
+            Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+            when(mockBlock.call()).thenReturn(CompletableFuture.completedFuture(Json.newObject().put("key", "fetched")));
+
+            // The persisted result is served straight away, and refreshed since it is half a minute old
+            JsonNode result = restartedCache.getOrElseUpdate("testKey", mockBlock).toCompletableFuture().join();
+            assertEquals("persisted", result.get("key").asText());
+            verify(mockBlock, times(1)).call();
+
+            // The refreshed result is written through to the persistent tier as well
+            assertEquals("fetched", restartedCache.get("testKey").get("key").asText());
+            assertTrue(store.get("testKey").getWrittenAt() > fetchedAt);
+        } finally {
+            restartedCache.shutdown();
+            store.close();
+        }
+    }
+
+    /**
+     * Test that a persisted result older than the hard TTL is still served stale within the persistent TTL.
+     */
+    @Test
+    public void testRestoresPastHardTtlWithinPersistentTtl() throws Exception {
+        PersistentResponseStore store = new PersistentResponseStore(folder.getRoot().toPath().resolve("responses.seg"),
+                64 * 1024, Duration.ofMinutes(5));
+        long fetchedAt = System.currentTimeMillis() - 120_000;
+        store.put("testKey", "{\"key\":\"persisted\"}".getBytes(StandardCharsets.UTF_8), fetchedAt, fetchedAt + 3_600_000);
+
+        QueryCache restartedCache = new QueryCache(QueryCache.DEFAULT_SOFT_TTL, QueryCache.DEFAULT_HARD_TTL,
+                QueryCache.DEFAULT_MAXIMUM_WEIGHT, QueryCache.DEFAULT_REFRESH_AHEAD_HITS,
+                QueryCache.DEFAULT_REFRESH_AHEAD_WINDOW, store, Duration.ofHours(1), QueryCache.DEFAULT_COMPRESS_ABOVE);
+        try {
+            Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+            when(mockBlock.call()).thenReturn(new CompletableFuture<>());
+
+            // Two minutes old is past the hard TTL but well within the hour kept on disk
+            JsonNode result = restartedCache.getOrElseUpdate("testKey", mockBlock).toCompletableFuture().join();
+            assertEquals("persisted", result.get("key").asText());
+            verify(mockBlock, times(1)).call();
+        } finally {
+            restartedCache.shutdown();
+            store.close();
+        }
+    }
+
+    /**
+     * Test that a persisted result older than the persistent TTL is fetched again instead of served stale.
+     */
+    @Test
+    public void testDoesNotRestorePastPersistentTtl() throws Exception {
+        PersistentResponseStore store = new PersistentResponseStore(folder.getRoot().toPath().resolve("responses.seg"),
+                64 * 1024, Duration.ofMinutes(5));
+        long fetchedAt = System.currentTimeMillis() - 120_000;
+        store.put("testKey", "{\"key\":\"persisted\"}".getBytes(StandardCharsets.UTF_8), fetchedAt, fetchedAt + 3_600_000);
+
+        QueryCache restartedCache = new QueryCache(QueryCache.DEFAULT_SOFT_TTL, QueryCache.DEFAULT_HARD_TTL,
+                QueryCache.DEFAULT_MAXIMUM_WEIGHT, QueryCache.DEFAULT_REFRESH_AHEAD_HITS,
+                QueryCache.DEFAULT_REFRESH_AHEAD_WINDOW, store, Duration.ofMinutes(1), QueryCache.DEFAULT_COMPRESS_ABOVE);
+        try {
+            Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+            when(mockBlock.call()).thenReturn(CompletableFuture.completedFuture(Json.newObject().put("key", "fetched")));
+
+            // Two minutes old is past both the hard and the persistent TTL, so the caller waits for a fresh result
+            JsonNode result = restartedCache.getOrElseUpdate("testKey", mockBlock).toCompletableFuture().join();
+            assertEquals("fetched", result.get("key").asText());
+            verify(mockBlock, times(1)).call();
+        } finally {
+            restartedCache.shutdown();
+            store.close();
+        }
+    }
+
+    /**
+     * Test that only a bounded number of restored results are refreshed at once after a restart.
+     */
+    @Test
+    public void testRestoredRefreshesAreBounded() throws Exception {
+        PersistentResponseStore store = new PersistentResponseStore(folder.getRoot().toPath().resolve("responses.seg"),
+                64 * 1024, Duration.ofMinutes(5));
+        long fetchedAt = System.currentTimeMillis() - 30_000;
+        for (int i = 0; i < 3; i++) {
+            store.put("query" + i, "{\"key\":\"persisted\"}".getBytes(StandardCharsets.UTF_8), fetchedAt, fetchedAt + 3_600_000);
+        }
+
+        QueryCache restartedCache = new QueryCache(QueryCache.DEFAULT_SOFT_TTL, QueryCache.DEFAULT_HARD_TTL,
+                QueryCache.DEFAULT_MAXIMUM_WEIGHT, QueryCache.DEFAULT_REFRESH_AHEAD_HITS,
+                QueryCache.DEFAULT_REFRESH_AHEAD_WINDOW, store, Duration.ofHours(1), QueryCache.DEFAULT_COMPRESS_ABOVE, 1);
+        try {
+            CompletableFuture<JsonNode> upstream = new CompletableFuture<>();
+            Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+            when(mockBlock.call()).thenReturn(upstream);
+
+            for (int i = 0; i < 3; i++) {
+                JsonNode result = restartedCache.getOrElseUpdate("query" + i, mockBlock).toCompletableFuture().join();
+                assertEquals("persisted", result.get("key").asText());
+            }
+
+            // Every restored result is served from disk, but only one of them goes upstream
+            verify(mockBlock, times(1)).call();
+            upstream.complete(Json.newObject().put("key", "fetched"));
+
+            // The slot is free again for the next restored result
+            restartedCache.getOrElseUpdate("query1", mockBlock).toCompletableFuture().join();
+            verify(mockBlock, times(2)).call();
+        } finally {
+            restartedCache.shutdown();
+            store.close();
+        }
+    }
+
+    /**
+     * Test that restored results, read from the mapped file, do not count towards the memory bound.
+     */
+    @Test
+    public void testRestoredEntriesAreNotWeighed() throws Exception {
+        PersistentResponseStore store = new PersistentResponseStore(folder.getRoot().toPath().resolve("responses.seg"),
+                64 * 1024, Duration.ofMinutes(5));
+        long fetchedAt = System.currentTimeMillis() - 30_000;
+        StringBuilder body = new StringBuilder("{\"key\":\"");
+        for (int i = 0; i < 100; i++) {
+            body.append("persisted ");
+        }
+        store.put("testKey", body.append("\"}").toString().getBytes(StandardCharsets.UTF_8), fetchedAt, fetchedAt + 3_600_000);
+
+        // The body alone is about 1 KB, far more than this cache may keep on the heap
+        QueryCache restartedCache = new QueryCache(QueryCache.DEFAULT_SOFT_TTL, QueryCache.DEFAULT_HARD_TTL,
+                100, QueryCache.DEFAULT_REFRESH_AHEAD_HITS,
+                QueryCache.DEFAULT_REFRESH_AHEAD_WINDOW, store, Duration.ofHours(1), QueryCache.DEFAULT_COMPRESS_ABOVE);
+        try {
+            Callable<CompletionStage<JsonNode>> mockBlock = mock(Callable.class);
+            when(mockBlock.call()).thenReturn(new CompletableFuture<>());
+
+            restartedCache.getOrElseUpdate("testKey", mockBlock).toCompletableFuture().join();
+            restartedCache.cleanUp();
+
+            assertNotNull(restartedCache.get("testKey"));
+            assertEquals(0, restartedCache.stats().evictionCount());
+        } finally {
+            restartedCache.shutdown();
+            store.close();
+        }
+    }
+
+    /**
+     * Test that large results are stored compressed and read back unchanged.
+     */
+    @Test
+    public void testLargeResultsAreCompressed() throws Exception {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            description.append("a fairly repetitive video description ");
+        }
+        JsonNode value = Json.newObject().put("description", description.toString());
+        byte[] body = Json.stringify(value).getBytes(StandardCharsets.UTF_8);
+
+        QueryCache.CachedItem item = queryCache.put("largeQuery", body, Duration.ofSeconds(30));
+
+        assertTrue(item.getWeight() < body.length / 4);
+        assertEquals(value, queryCache.get("largeQuery"));
+    }
+}
@@ -0,0 +1,88 @@
+package utils;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the QuotaScheduler class.
+ * These tests validate endpoint pricing, the background reserve and the refill of the budget.
+ */
+public class QuotaSchedulerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private QuotaScheduler scheduler(long budget, long reserve) {
+        return new QuotaScheduler(budget, reserve, Map.of("search", 100L, YouTubeHttpClient.DEFAULT_ENDPOINT, 1L), now::get);
+    }
+
+    /**
+     * Test that calls are priced by endpoint.
+     */
+    @Test
+    public void testCallsArePricedByEndpoint() {
+        QuotaScheduler quota = scheduler(1000, 0);
+
+        assertTrue(quota.tryAcquire("search", QuotaScheduler.Priority.INTERACTIVE));
+        assertTrue(quota.tryAcquire("channels", QuotaScheduler.Priority.INTERACTIVE));
+
+        assertEquals(101, quota.getSpent());
+        assertEquals(899, quota.getAvailable());
+    }
+
+    /**
+     * Test that background calls leave the reserve to interactive calls.
+     */
+    @Test
+    public void testBackgroundCallsLeaveReserve() {
+        QuotaScheduler quota = scheduler(300, 150);
+
+        assertTrue(quota.tryAcquire("search", QuotaScheduler.Priority.BACKGROUND));
+        assertFalse(quota.tryAcquire("search", QuotaScheduler.Priority.BACKGROUND));
+        assertFalse(quota.isLow());
+
+        assertTrue(quota.tryAcquire("search", QuotaScheduler.Priority.INTERACTIVE));
+        assertTrue(quota.isLow());
+        assertTrue(quota.tryAcquire("search", QuotaScheduler.Priority.INTERACTIVE));
+        assertFalse(quota.tryAcquire("search", QuotaScheduler.Priority.INTERACTIVE));
+
+        assertEquals(1, quota.getDenied(QuotaScheduler.Priority.BACKGROUND));
+        assertEquals(1, quota.getDenied(QuotaScheduler.Priority.INTERACTIVE));
+    }
+
+    /**
+     * Test that the budget refills over the day, up to the daily budget.
+     */
+    @Test
+    public void testBudgetRefillsOverTheDay() {
+        QuotaScheduler quota = scheduler(1000, 0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(quota.tryAcquire("search", QuotaScheduler.Priority.INTERACTIVE));
+        }
+        assertFalse(quota.tryAcquire("search", QuotaScheduler.Priority.INTERACTIVE));
+
+        now.addAndGet(Duration.ofHours(12).toNanos());
+        assertEquals(500, quota.getAvailable());
+
+        now.addAndGet(Duration.ofDays(2).toNanos());
+        assertEquals(1000, quota.getAvailable());
+    }
+
+    /**
+     * Test that a refunded call gives its units back.
+     */
+    @Test
+    public void testRefund() {
+        QuotaScheduler quota = scheduler(1000, 0);
+        quota.tryAcquire("search", QuotaScheduler.Priority.INTERACTIVE);
+
+        quota.refund("search");
+
+        assertEquals(1000, quota.getAvailable());
+        assertEquals(0, quota.getSpent());
+    }
+}
@@ -0,0 +1,43 @@
+package utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the SeenIdSet class.
+ * These tests validate membership and growth of the fingerprint table.
+ */
+public class SeenIdSetTest {
+
+    /**
+     * Test that an ID is new only the first time it is added.
+     */
+    @Test
+    public void testAddReportsNewIdsOnly() {
+        SeenIdSet seen = new SeenIdSet();
+
+        assertTrue(seen.add("dQw4w9WgXcQ"));
+        assertFalse(seen.add("dQw4w9WgXcQ"));
+        assertTrue(seen.contains("dQw4w9WgXcQ"));
+        assertFalse(seen.contains("9bZkp7q19f0"));
+        assertEquals(1, seen.size());
+    }
+
+    /**
+     * Test that all IDs are kept while the table grows.
+     */
+    @Test
+    public void testKeepsIdsWhileGrowing() {
+        SeenIdSet seen = new SeenIdSet();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(seen.add("video-" + i));
+        }
+
+        assertEquals(10_000, seen.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(seen.contains("video-" + i));
+        }
+        assertFalse(seen.contains("video-10000"));
+    }
+}
@@ -0,0 +1,84 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the SentimentLexicon class.
+ * These tests validate parsing of the lexicon lines and the negation and intensifier rules.
+ */
+public class SentimentLexiconTest {
+
+    private static final SentimentLexicon LEXICON = SentimentLexicon.parse(List.of(
+            "# Test lexicon",
+            "good\t3",
+            "bad\t-3",
+            "",
+            "@negation\tnot",
+            "@intensifier\tvery\t1.5"));
+
+    private final SentimentLexicon.Scorer scorer = new SentimentLexicon.Scorer();
+
+    /**
+     * Test that a text is scored from the weights of its terms, normalized into (-1, 1).
+     */
+    @Test
+    public void testScoresWeightedTerms() {
+        assertEquals(3 / Math.sqrt(9 + 15), scorer.score(LEXICON, "A good video"), 1e-9);
+        assertEquals(1, scorer.hits());
+        assertEquals(0, scorer.score(LEXICON, "Good and bad"), 1e-9);
+        assertEquals(0, scorer.score(LEXICON, "Nothing to see here"), 1e-9);
+        assertEquals(0, scorer.hits());
+    }
+
+    /**
+     * Test that a negation flips the terms up to three words after it, and no further.
+     */
+    @Test
+    public void testNegation() {
+        double negated = 3 * SentimentLexicon.NEGATION_SCALAR;
+        assertEquals(negated / Math.sqrt(negated * negated + 15), scorer.score(LEXICON, "Not good"), 1e-9);
+        assertEquals(negated / Math.sqrt(negated * negated + 15), scorer.score(LEXICON, "not at all good"), 1e-9);
+        assertEquals(3 / Math.sqrt(9 + 15), scorer.score(LEXICON, "not that it was good"), 1e-9);
+    }
+
+    /**
+     * Test that an intensifier only scales the term right after it.
+     */
+    @Test
+    public void testIntensifier() {
+        assertEquals(4.5 / Math.sqrt(4.5 * 4.5 + 15), scorer.score(LEXICON, "Very good!"), 1e-9);
+        assertEquals(3 / Math.sqrt(9 + 15), scorer.score(LEXICON, "very, very long and good"), 1e-9);
+    }
+
+    /**
+     * Test that invalid lines are rejected with their line number.
+     */
+    @Test
+    public void testRejectsInvalidLines() {
+        try {
+            SentimentLexicon.parse(List.of("good\t3", "bad\tvery"));
+            fail("Expected the score to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("line 2"));
+        }
+        try {
+            SentimentLexicon.parse(List.of("@intensifier\tvery"));
+            fail("Expected the intensifier without a factor to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("line 1"));
+        }
+    }
+
+    /**
+     * Test that the lexicon shipped with the application loads.
+     */
+    @Test
+    public void testBuiltInLexicon() {
+        assertTrue(SentimentLexicon.builtIn().size() > 80);
+        assertTrue(scorer.score(SentimentLexicon.builtIn(), "An amazing, happy day") > 0);
+    }
+}
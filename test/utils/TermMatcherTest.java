@@ -0,0 +1,74 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the TermMatcher class.
+ * These tests validate the matches of the automaton, whole-word matching and emoji handling.
+ */
+public class TermMatcherTest {
+
+    /**
+     * Test that overlapping terms sharing suffixes are all found, in the order they end.
+     */
+    @Test
+    public void testFindsOverlappingTerms() {
+        TermMatcher matcher = new TermMatcher(List.of(":(", "(:", ":(:", "):"));
+
+        assertEquals(List.of("0@0-2", "2@0-3", "1@1-3"), matches(matcher, ":(:"));
+        assertEquals(List.of("3@1-3", "0@2-4"), matches(matcher, "x):("));
+    }
+
+    /**
+     * Test that words are only found whole, regardless of case.
+     */
+    @Test
+    public void testMatchesWholeWordsIgnoringCase() {
+        TermMatcher matcher = new TermMatcher(List.of("down", "fun", "happy"));
+
+        assertEquals(List.of(), matches(matcher, "Download this function, unhappy"));
+        assertEquals(List.of("0@8-12", "1@14-17", "2@19-24"), matches(matcher, "Feeling DOWN, fun, Happy!"));
+    }
+
+    /**
+     * Test that emoticons and emoji match anywhere, with or without a variation selector.
+     */
+    @Test
+    public void testMatchesEmoji() {
+        TermMatcher matcher = new TermMatcher(List.of(":)", "☹️", "😊"));
+
+        assertEquals(List.of("0@2-4", "1@8-9", "2@10-12", "1@15-16"),
+                matches(matcher, "hi:) so ☹ 😊and☹️"));
+    }
+
+    /**
+     * Test that a match spanning a variation selector starts at its first char in the text.
+     */
+    @Test
+    public void testMatchSpanningVariationSelectorStartsAtItsFirstChar() {
+        TermMatcher matcher = new TermMatcher(List.of("☹:(", "sad"));
+
+        assertEquals(List.of("0@0-4", "1@5-8"), matches(matcher, "☹\uFE0F:( sad"));
+        assertEquals(List.of("0@3-7"), matches(matcher, "\uFE0Fa ☹\uFE0F:("));
+    }
+
+    /**
+     * Test that an empty lexicon or an empty term never matches.
+     */
+    @Test
+    public void testEmptyTermsNeverMatch() {
+        assertEquals(List.of(), matches(new TermMatcher(List.of()), "anything"));
+        assertEquals(List.of("1@0-1"), matches(new TermMatcher(List.of("", "a")), "a"));
+    }
+
+    private static List<String> matches(TermMatcher matcher, String text) {
+        List<String> found = new ArrayList<>();
+        matcher.scan(text, (term, start, end) -> found.add(term + "@" + start + "-" + end));
+        return found;
+    }
+}
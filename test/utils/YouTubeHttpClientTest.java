@@ -0,0 +1,170 @@
+package utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * JUnit tests for the YouTubeHttpClient class.
+ * These tests validate how requests are assigned to endpoint bulkheads, and how the adaptive
+ * limiter behaves against a local stub of the API with injected latency.
+ */
+public class YouTubeHttpClientTest {
+
+    private HttpServer stub;
+    private volatile long latencyMillis;
+
+    @Before
+    public void setUp() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/youtube/v3/", exchange -> {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"items\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.setExecutor(Executors.newCachedThreadPool());
+        stub.start();
+    }
+
+    @After
+    public void tearDown() {
+        stub.stop(0);
+    }
+
+    private String stubUrl(String endpoint) {
+        return "http://localhost:" + stub.getAddress().getPort() + "/youtube/v3/" + endpoint + "?part=snippet";
+    }
+
+    private static YouTubeHttpClient client(AdaptiveLimiter limiter) {
+        return new YouTubeHttpClient(Duration.ofSeconds(2), Duration.ofSeconds(5), 2,
+                Map.of(YouTubeHttpClient.DEFAULT_ENDPOINT, new Bulkhead(YouTubeHttpClient.DEFAULT_ENDPOINT, 16, 16, Duration.ofSeconds(5))),
+                limiter, new QuotaScheduler());
+    }
+
+    /**
+     * Test that the endpoint is the last path segment of the request URL.
+     */
+    @Test
+    public void testEndpointOf() {
+        assertEquals("search", YouTubeHttpClient.endpointOf("https://www.googleapis.com/youtube/v3/search?part=snippet&q=cats"));
+        assertEquals("channels", YouTubeHttpClient.endpointOf("https://www.googleapis.com/youtube/v3/channels?id=c1"));
+    }
+
+    /**
+     * Test that endpoints without a bulkhead of their own share the default one.
+     */
+    @Test
+    public void testUnknownEndpointUsesDefaultBulkhead() {
+        Bulkhead search = new Bulkhead("search", 2, 2, Duration.ofSeconds(1));
+        Bulkhead fallback = new Bulkhead(YouTubeHttpClient.DEFAULT_ENDPOINT, 1, 1, Duration.ofSeconds(1));
+        YouTubeHttpClient client = new YouTubeHttpClient(Duration.ofSeconds(1), Duration.ofSeconds(1), 1,
+                Map.of("search", search, YouTubeHttpClient.DEFAULT_ENDPOINT, fallback), new AdaptiveLimiter(), new QuotaScheduler());
+
+        assertSame(search, client.bulkhead("search"));
+        assertSame(fallback, client.bulkhead("videos"));
+        client.shutdown();
+    }
+
+    /**
+     * Test that requests beyond the limit are shed at once while slow requests are in flight.
+     */
+    @Test
+    public void testShedsRequestsBeyondLimitWhileUpstreamIsSlow() {
+        latencyMillis = 300;
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 2);
+        YouTubeHttpClient client = client(limiter);
+
+        List<CompletableFuture<HttpResponse<byte[]>>> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(client.get(stubUrl("search")).toCompletableFuture());
+        }
+
+        int succeeded = 0;
+        int shed = 0;
+        for (CompletableFuture<HttpResponse<byte[]>> request : requests) {
+            try {
+                assertEquals(200, request.join().statusCode());
+                succeeded++;
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof YouTubeHttpClient.LimitExceededException);
+                shed++;
+            }
+        }
+        assertEquals(2, succeeded);
+        assertEquals(2, shed);
+        assertEquals(2, limiter.getRejected());
+        assertEquals(0, limiter.getInFlight());
+        client.shutdown();
+    }
+
+    /**
+     * Test that requests waiting in the bulkhead queue do not hold a limiter permit.
+     */
+    @Test
+    public void testQueuedRequestsDoNotHoldLimiterPermits() {
+        latencyMillis = 100;
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1);
+        YouTubeHttpClient client = new YouTubeHttpClient(Duration.ofSeconds(2), Duration.ofSeconds(5), 2,
+                Map.of(YouTubeHttpClient.DEFAULT_ENDPOINT, new Bulkhead(YouTubeHttpClient.DEFAULT_ENDPOINT, 1, 4, Duration.ofSeconds(5))),
+                limiter, new QuotaScheduler());
+
+        List<CompletableFuture<HttpResponse<byte[]>>> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            requests.add(client.get(stubUrl("search")).toCompletableFuture());
+        }
+
+        // One request runs at a time, and each takes the single permit only once it leaves the queue
+        for (CompletableFuture<HttpResponse<byte[]>> request : requests) {
+            assertEquals(200, request.join().statusCode());
+        }
+        assertEquals(0, limiter.getRejected());
+        assertEquals(0, limiter.getInFlight());
+        client.shutdown();
+    }
+
+    /**
+     * Test that the limit shrinks when latency is injected into the upstream.
+     */
+    @Test
+    public void testLimitShrinksWhenUpstreamSlowsDown() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 200);
+        YouTubeHttpClient client = client(limiter);
+
+        latencyMillis = 0;
+        for (int i = 0; i < 10; i++) {
+            client.get(stubUrl("search")).toCompletableFuture().join();
+        }
+        int baselineLimit = limiter.getLimit();
+
+        latencyMillis = 100;
+        for (int i = 0; i < 10; i++) {
+            client.get(stubUrl("search")).toCompletableFuture().join();
+        }
+
+        assertTrue(limiter.getLimit() < baselineLimit);
+        client.shutdown();
+    }
+}